@@ -11,12 +11,16 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.user.UserDto;
 import ru.practicum.service.subs.FriendService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
 
 import static ru.practicum.utils.Constants.FROM;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
 import static ru.practicum.utils.Constants.PAGE_SIZE;
 
 @RestController
@@ -48,30 +52,64 @@ public class PrivateFriendController {
         return friendService.getFollowers(userId);
     }
 
+    /**
+     * Получить общих друзей текущего пользователя и пользователя otherId<br>
+     * GET /users/{userId}/friends/{otherId}/mutual
+     */
+    @GetMapping("/friends/{otherId}/mutual")
+    public List<UserDto> getMutualFriends(@PathVariable("userId") long userId,
+                                          @PathVariable("otherId") long otherId) {
+        log.debug("Request received GET '/users/{}/friends/{}/mutual'", userId, otherId);
+        return friendService.getMutualFriends(userId, otherId);
+    }
+
     /**
      * Получить события в которых будут участвовать друзья текущего пользователя<br>
-     * GET /users/{userId}/friends/share?from={from}&size={size}
+     * GET /users/{userId}/friends/share?from={from}&size={size}<br>
+     * GET /users/{userId}/friends/share?cursor={cursor}&size={size} - выдача по курсору,
+     * курсор следующей страницы в заголовке X-Next-Cursor
      */
     @GetMapping("/friends/share")
     public List<EventShortDto> getParticipateEvents(
             @PathVariable("userId") long userId,
             @PositiveOrZero @RequestParam(value = "from", defaultValue = FROM) int from,
-            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size) {
-        log.debug("Request received GET /users/{}/friends/share?from={}&size={}", userId, from, size);
+            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletResponse response) {
+        log.debug("Request received GET /users/{}/friends/share?from={}&size={}&cursor={}", userId, from, size, cursor);
+        if (cursor != null) {
+            final CursorPage<EventShortDto> page = friendService.getParticipateEvents(userId, cursor, size);
+            if (page.getNextCursor() != null) response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            return page.getItems();
+        }
         return friendService.getParticipateEvents(userId, from, size);
     }
 
     /**
      * Получить список событий опубликованных друзьями текущего пользователя<br>
-     * GET /users/{userId}/friends/events?from={from}&size={size}
+     * GET /users/{userId}/friends/events?from={from}&size={size}<br>
+     * GET /users/{userId}/friends/events?cursor={cursor}&size={size} - выдача по курсору,
+     * курсор следующей страницы в заголовке X-Next-Cursor
      */
     @GetMapping("/friends/events")
     public List<EventShortDto> getFriendEvents(
             @PathVariable("userId") long userId,
             @PositiveOrZero @RequestParam(value = "from", defaultValue = FROM) int from,
-            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size) {
-        log.debug("Request received GET /users/{}/friends/events?from={}&size={}", userId, from, size);
-        return friendService.getFriendEvents(userId, from, size);
+            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletResponse response) {
+        log.debug("Request received GET /users/{}/friends/events?from={}&size={}&cursor={}", userId, from, size, cursor);
+        if (cursor != null) {
+            final CursorPage<EventShortDto> page = friendService.getFriendEvents(userId, cursor, size);
+            if (page.getNextCursor() != null) response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            return page.getItems();
+        }
+        final List<EventShortDto> events = friendService.getFriendEvents(userId, from, size);
+        if (events.size() == size) {
+            final EventShortDto last = events.get(events.size() - 1);
+            response.setHeader(NEXT_CURSOR_HEADER, EventCursor.ofEventDate(last.getEventDate(), last.getId()).encode());
+        }
+        return events;
     }
 
 }
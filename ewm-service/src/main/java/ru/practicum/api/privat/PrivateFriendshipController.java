@@ -13,12 +13,21 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.dto.subs.FriendshipBulkUpdateResult;
 import ru.practicum.dto.subs.FriendshipShortDto;
 import ru.practicum.dto.subs.FriendshipDto;
 import ru.practicum.service.subs.FriendshipService;
+import ru.practicum.utils.CursorPage;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
 
+import static ru.practicum.utils.Constants.FROM;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
+import static ru.practicum.utils.Constants.PAGE_SIZE;
+
 @RestController
 @RequestMapping(path = "/users/{userId}/friendships")
 @RequiredArgsConstructor
@@ -72,6 +81,17 @@ public class PrivateFriendshipController {
         return friendshipService.approveFriendship(followerId, ids);
     }
 
+    /**
+     * Подтверждение всех полученных запросов на дружбу в ожидании(PENDING)<br>
+     * PATCH /users/{userId}/friendships/approve-all <br>
+     * - возвращается количество подтвержденных запросов
+     */
+    @PatchMapping("/approve-all")
+    public FriendshipBulkUpdateResult approveAllPending(@PathVariable("userId") long userId) {
+        log.debug("Request received PATCH '/users/{}/friendships/approve-all'", userId);
+        return friendshipService.approveAllPending(userId);
+    }
+
     /**
      * Отклонение полученного запроса на дружбу<br>
      * PATCH /users/{userId}/friendships/reject?ids={ids} <br>
@@ -86,30 +106,56 @@ public class PrivateFriendshipController {
     }
 
     /**
-     * Получить список поданных текущим пользователем заявок на дружбу<BR>
-     * GET /users/{userId}/friendships?filter={filter} <br>
+     * Получить список поданных текущим пользователем заявок на дружбу, от новых к старым<BR>
+     * GET /users/{userId}/friendships?filter={filter}&from={from}&size={size} <br>
+     * GET /users/{userId}/friendships?filter={filter}&cursor={cursor}&size={size} - выдача по курсору,
+     * курсор следующей страницы в заголовке X-Next-Cursor <br>
      * filter: ALL, PENDING, APPROVED, REJECTED
      */
     @GetMapping("/requests")
     public List<FriendshipShortDto> getFriendshipRequests(
             @PathVariable("userId") long followerId,
-            @RequestParam(value = "filter", defaultValue = "ALL") String filter
+            @RequestParam(value = "filter", defaultValue = "ALL") String filter,
+            @PositiveOrZero @RequestParam(value = "from", defaultValue = FROM) int from,
+            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletResponse response
     ) {
-        log.debug("Request received POST /users/{}/friendships?filter={}", followerId, filter);
-        return friendshipService.getFriendshipRequests(followerId, filter);
+        log.debug("Request received GET /users/{}/friendships?filter={}&from={}&size={}&cursor={}",
+                followerId, filter, from, size, cursor);
+        if (cursor != null) {
+            final CursorPage<FriendshipShortDto> page =
+                    friendshipService.getFriendshipRequests(followerId, filter, cursor, size);
+            if (page.getNextCursor() != null) response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            return page.getItems();
+        }
+        return friendshipService.getFriendshipRequests(followerId, filter, from, size);
     }
 
     /**
-     * Получить список полученных текущим пользователем заявок на дружбу<br>
-     * GET /users/{userId}/followers?filter={filter} <br>
+     * Получить список полученных текущим пользователем заявок на дружбу, от новых к старым<br>
+     * GET /users/{userId}/followers?filter={filter}&from={from}&size={size} <br>
+     * GET /users/{userId}/followers?filter={filter}&cursor={cursor}&size={size} - выдача по курсору,
+     * курсор следующей страницы в заголовке X-Next-Cursor <br>
      * filter: ALL, PENDING, APPROVED, REJECTED
      */
     @GetMapping("/followers")
     public List<FriendshipShortDto> getIncomingFriendRequests(
             @PathVariable("userId") long userId,
-            @RequestParam(value = "filter", defaultValue = "ALL") String filter
+            @RequestParam(value = "filter", defaultValue = "ALL") String filter,
+            @PositiveOrZero @RequestParam(value = "from", defaultValue = FROM) int from,
+            @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletResponse response
     ) {
-        log.debug("Request received POST /users/{}/followers?filter={}", userId, filter);
-        return friendshipService.getIncomingFriendRequests(userId, filter);
+        log.debug("Request received GET /users/{}/followers?filter={}&from={}&size={}&cursor={}",
+                userId, filter, from, size, cursor);
+        if (cursor != null) {
+            final CursorPage<FriendshipShortDto> page =
+                    friendshipService.getIncomingFriendRequests(userId, filter, cursor, size);
+            if (page.getNextCursor() != null) response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            return page.getItems();
+        }
+        return friendshipService.getIncomingFriendRequests(userId, filter, from, size);
     }
 }
@@ -8,25 +8,30 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.dto.user.UserDto;
-import ru.practicum.service.user.UserService;
+import ru.practicum.service.subs.FriendshipService;
 
 @RestController
 @RequestMapping("/users/{userId}")
 @RequiredArgsConstructor
 @Slf4j
 public class PrivateUserController {
-    private final UserService userService;
+    private final FriendshipService friendshipService;
 
     /**
      * Изменение режима подписки на пользователя.<br>
      * true - разрешен автоматический прием запросов дружбы<br>
-     * false - необходимо подтверждение
+     * false - необходимо подтверждение<br>
+     * approvePending=true при включении автоматического приема - подтвердить и накопившиеся запросы в ожидании
+     * (как PATCH /users/{userId}/friendships/approve-all)
      */
     @PatchMapping("/subs")
     public UserDto changeSubscribeMode(@PathVariable(value = "userId") long userId,
-                                       @RequestParam(value = "auto", defaultValue = "true") boolean isAutoSubscribe
+                                       @RequestParam(value = "auto", defaultValue = "true") boolean isAutoSubscribe,
+                                       @RequestParam(value = "approvePending", defaultValue = "false")
+                                       boolean approvePending
     ) {
-        log.debug("Request received PATCH /users/{}/subs?auto={}", userId, isAutoSubscribe);
-        return userService.changeSubscribeMode(userId, isAutoSubscribe);
+        log.debug("Request received PATCH /users/{}/subs?auto={}&approvePending={}",
+                userId, isAutoSubscribe, approvePending);
+        return friendshipService.changeSubscribeMode(userId, isAutoSubscribe, approvePending);
     }
 }
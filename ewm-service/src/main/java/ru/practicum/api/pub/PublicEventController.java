@@ -12,9 +12,15 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.enums.SortType;
+import ru.practicum.filter.GeoArea;
 import ru.practicum.service.event.EventService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.time.LocalDateTime;
@@ -22,6 +28,7 @@ import java.util.List;
 
 import static ru.practicum.Constants.YYYY_MM_DD_HH_MM_SS;
 import static ru.practicum.utils.Constants.FROM;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
 import static ru.practicum.utils.Constants.PAGE_SIZE;
 
 @RestController
@@ -48,15 +55,33 @@ public class PublicEventController {
             @RequestParam(value = "rangeEnd", required = false)
             @DateTimeFormat(pattern = YYYY_MM_DD_HH_MM_SS) LocalDateTime rangeEnd,
             @RequestParam(value = "onlyAvailable", defaultValue = "false") Boolean onlyAvailable,
+            @DecimalMin("-90") @DecimalMax("90") @RequestParam(value = "lat", required = false) Double lat,
+            @DecimalMin("-180") @DecimalMax("180") @RequestParam(value = "lon", required = false) Double lon,
+            @Positive @RequestParam(value = "radius", required = false) Double radius,//км
             @RequestParam(value = "sort", required = false) SortType sort,
             @PositiveOrZero @RequestParam(value = "from", defaultValue = FROM) Integer from,
             @Positive @RequestParam(value = "size", defaultValue = PAGE_SIZE) Integer size,
-            HttpServletRequest request
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
         log.debug("Request received GET /events");
-        log.debug("RequestParams: text='{}',categories={},paid={},rangeStart={},rangeEnd={},onlyAvailable={},sort='{}',from={},size={}",
-                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
-        return eventService.getPublishedEvents(
-                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size, request);
+        log.debug("RequestParams: text='{}',categories={},paid={},rangeStart={},rangeEnd={},onlyAvailable={},lat={},lon={},radius={},sort='{}',from={},size={},cursor={}",
+                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, lat, lon, radius, sort, from, size, cursor);
+        final GeoArea area = GeoArea.of(lat, lon, radius);
+        if (cursor != null) {
+            final CursorPage<EventShortDto> page = eventService.getPublishedEvents(
+                    text, categories, paid, rangeStart, rangeEnd, onlyAvailable, area, sort, cursor, size, request);
+            if (page.getNextCursor() != null) response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+            return page.getItems();
+        }
+        final List<EventShortDto> events = eventService.getPublishedEvents(
+                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, area, sort, from, size, request);
+//        при сортировке по дате события можно перейти к выдаче по курсору
+        if (sort == SortType.EVENT_DATE && events.size() == size) {
+            final EventShortDto last = events.get(events.size() - 1);
+            response.setHeader(NEXT_CURSOR_HEADER, EventCursor.ofEventDate(last.getEventDate(), last.getId()).encode());
+        }
+        return events;
     }
 }
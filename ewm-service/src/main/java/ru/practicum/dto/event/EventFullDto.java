@@ -1,6 +1,7 @@
 package ru.practicum.dto.event;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -47,4 +48,7 @@ public class EventFullDto {
     // Нужна ли пре-модерация заявок на участие
     private Boolean requestModeration;
     private Long views = 0L;// Количество просмотрев события
+    // Просмотры взяты из последних известных значений: сервис статистики не ответил
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean viewsStale;
 }
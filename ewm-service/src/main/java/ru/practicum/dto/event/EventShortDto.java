@@ -1,6 +1,7 @@
 package ru.practicum.dto.event;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,4 +31,7 @@ public class EventShortDto {
     private UserShortDto initiator;
     private Boolean paid;
     private Long views = 0L;
+    // Просмотры взяты из последних известных значений: сервис статистики не ответил
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean viewsStale;
 }
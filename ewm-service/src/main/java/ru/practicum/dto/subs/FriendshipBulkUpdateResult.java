@@ -0,0 +1,17 @@
+package ru.practicum.dto.subs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат массового изменения заявок на дружбу: только количество, без списка заявок
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FriendshipBulkUpdateResult {
+    private int approvedCount;
+}
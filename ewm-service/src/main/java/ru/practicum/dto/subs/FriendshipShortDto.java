@@ -1,5 +1,6 @@
 package ru.practicum.dto.subs;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,6 +8,10 @@ import lombok.NoArgsConstructor;
 import ru.practicum.dto.user.UserShortDto;
 import ru.practicum.enums.FriendshipState;
 
+import java.time.LocalDateTime;
+
+import static ru.practicum.Constants.YYYY_MM_DD_HH_MM_SS;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -15,4 +20,6 @@ public class FriendshipShortDto {
     private long id;
     private FriendshipState state;
     private UserShortDto friend;
+    @JsonFormat(pattern = YYYY_MM_DD_HH_MM_SS)
+    private LocalDateTime created;
 }
@@ -8,7 +8,8 @@ import static ru.practicum.mapper.EnumMapper.getEnumFromString;
 @Getter
 public enum SortType {
     EVENT_DATE("eventDate"),
-    VIEWS("view");
+    VIEWS("view"),
+    DISTANCE("distance");
 
     private final String name;
 
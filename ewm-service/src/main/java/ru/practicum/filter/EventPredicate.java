@@ -1,10 +1,16 @@
 package ru.practicum.filter;
 
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import ru.practicum.model.QLocation;
+import ru.practicum.utils.Geohash;
 import ru.practicum.utils.QPredicate;
 
+import java.util.List;
+
 import static ru.practicum.model.QEvent.event;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -14,9 +20,51 @@ public class EventPredicate {
                 .or(event.confirmedRequests.lt(event.participantLimit));
     }
 
-    public static Predicate getTextFilter(String text) {
-        return event.description.likeIgnoreCase(text)
-                .or(event.annotation.likeIgnoreCase(text));
+    public static Predicate getIdIn(List<Long> ids) {
+        return event.id.in(ids);
+    }
+
+    /**
+     * Полнотекстовый поиск по title, annotation и description
+     * @param query запрос, построенный {@link FullTextQuery#of}
+     */
+    public static Predicate getTextFilter(String query) {
+        return Expressions.booleanTemplate("function('fts_match', {0}, {1}) = true",
+                event.searchDocument.searchVector, query);
+    }
+
+    /** Релевантность события запросу {@link FullTextQuery#of}, больше - лучше */
+    public static NumberExpression<Double> getTextRank(String query) {
+        return Expressions.numberTemplate(Double.class, "function('fts_rank', {0}, {1})",
+                event.searchDocument.searchVector, query);
+    }
+
+    /**
+     * События в круге: отбор по ячейкам geohash (индекс locations.geohash) и описанному прямоугольнику,
+     * затем точная проверка расстояния
+     */
+    public static Predicate getWithinArea(GeoArea area) {
+        final QLocation location = event.location;
+        final double latDelta = Geohash.latDelta(area.getRadiusKm());
+        final double lonDelta = Geohash.lonDelta(area.getLat(), area.getRadiusKm());
+//        границы ячейки - диапазон строк, а не like 'prefix%': так индекс используется и с параметрами запроса
+        final QPredicate cells = QPredicate.builder();
+        Geohash.cover(area.getLat(), area.getLon(), area.getRadiusKm())
+                .forEach(cell -> cells.add(cell, c -> location.geohash.goe(c).and(location.geohash.lt(c + "{"))));
+        final boolean crossesAntimeridian = Math.abs(area.getLon()) + lonDelta > 180;
+        return QPredicate.builder()
+                .add(cells.buildOr(), p -> p)
+                .add(area, a -> location.lat.between(a.getLat() - latDelta, a.getLat() + latDelta))
+                .add(crossesAntimeridian ? null : area,
+                        a -> location.lon.between(a.getLon() - lonDelta, a.getLon() + lonDelta))
+                .add(area, a -> getDistance(a).loe(a.getRadiusKm()))
+                .buildAnd();
+    }
+
+    /** Расстояние от центра круга до места проведения события, км */
+    public static NumberExpression<Double> getDistance(GeoArea area) {
+        return Expressions.numberTemplate(Double.class, "function('geo_distance_km', {0}, {1}, {2}, {3})",
+                area.getLat(), area.getLon(), event.location.lat, event.location.lon);
     }
 
     public static Predicate getAndEventPredicate(EventFilter filter) {
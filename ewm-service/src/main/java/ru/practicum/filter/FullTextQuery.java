@@ -0,0 +1,59 @@
+package ru.practicum.filter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Построение поискового запроса для fts_match / fts_rank из строки пользователя.<br>
+ * Каждое слово ищется по префиксу, все слова должны встретиться в событии: "джаз фест" -> "джаз:* & фест:*"
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FullTextQuery {
+    static final String AND = " & ";
+    static final String PREFIX = ":*";
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MAX_TERMS = 10;
+
+    /**
+     * @param text строка поиска
+     * @return запрос в синтаксисе tsquery или null, если в строке нет ни одного слова
+     */
+    public static String of(String text) {
+        final List<String> terms = terms(text);
+        if (terms.isEmpty()) return null;
+
+        return terms.stream()
+                .map(term -> term + PREFIX)
+                .collect(Collectors.joining(AND));
+    }
+
+    /** Слова запроса в нижнем регистре, без повторов (не больше MAX_TERMS) */
+    public static List<String> terms(String text) {
+        return new ArrayList<>(words(text, MAX_TERMS));
+    }
+
+    /** Все слова текста в нижнем регистре, без повторов */
+    public static Set<String> words(String text) {
+        return words(text, Integer.MAX_VALUE);
+    }
+
+    private static Set<String> words(String text, int limit) {
+        final Set<String> words = new LinkedHashSet<>();
+        if (text == null) return words;
+
+        final Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find() && words.size() < limit) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+}
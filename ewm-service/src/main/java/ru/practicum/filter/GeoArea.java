@@ -0,0 +1,31 @@
+package ru.practicum.filter;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.exception.ValidateException;
+
+/**
+ * Круг на поверхности Земли: центр (lat, lon) и радиус в километрах
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class GeoArea {
+    private final double lat;
+    private final double lon;
+    private final double radiusKm;
+
+    /**
+     * @return null, если ни один параметр не задан
+     */
+    public static GeoArea of(Double lat, Double lon, Double radiusKm) {
+        if (lat == null && lon == null && radiusKm == null) return null;
+        if (lat == null || lon == null || radiusKm == null) {
+            throw new ValidateException("Parameters 'lat', 'lon' and 'radius' must be set together");
+        }
+        return new GeoArea(lat, lon, radiusKm);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.filter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * Реализация fts_match / fts_rank для H2 (подключается в schema-h2.sql).<br>
+ * Документ - текст события в нижнем регистре, запрос - результат {@link FullTextQuery#of}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class H2FullTextFunctions {
+    private static final String DELIMITER = "[^\\p{L}\\p{N}]+";
+
+    /** Все слова запроса встречаются в документе как префиксы слов */
+    public static Boolean match(String document, String query) {
+        if (document == null || query == null) return false;
+
+        final String[] words = document.split(DELIMITER);
+        for (String term : terms(query)) {
+            if (count(words, term) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Релевантность - число вхождений слов запроса в документ */
+    public static Double rank(String document, String query) {
+        if (document == null || query == null) return 0.0;
+
+        final String[] words = document.split(DELIMITER);
+        double rank = 0;
+        for (String term : terms(query)) {
+            rank += count(words, term);
+        }
+        return rank;
+    }
+
+    private static String[] terms(String query) {
+        return query.toLowerCase(Locale.ROOT)
+                .replace(FullTextQuery.PREFIX, "")
+                .split(FullTextQuery.AND);
+    }
+
+    private static int count(String[] words, String term) {
+        int count = 0;
+        for (String word : words) {
+            if (word.startsWith(term)) count++;
+        }
+        return count;
+    }
+}
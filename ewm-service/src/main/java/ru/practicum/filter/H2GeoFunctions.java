@@ -0,0 +1,17 @@
+package ru.practicum.filter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.utils.Geohash;
+
+/**
+ * Реализация geo_distance_km для H2 (подключается в schema-h2.sql)
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class H2GeoFunctions {
+    public static Double distanceKm(Double lat1, Double lon1, Double lat2, Double lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return null;
+
+        return Geohash.distanceKm(lat1, lon1, lat2, lon2);
+    }
+}
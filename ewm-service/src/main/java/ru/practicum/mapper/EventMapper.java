@@ -86,6 +86,27 @@ public class EventMapper {
                 .build();
     }
 
+    /** viewsStale попадает в ответ, только если просмотры взяты не из актуального ответа сервиса статистики */
+    public static EventFullDto toFullDto(Event event, long hits, boolean viewsStale) {
+        return toFullDto(event, hits).toBuilder()
+                .viewsStale(viewsStale ? Boolean.TRUE : null)
+                .build();
+    }
+
+    public static EventShortDto toShortDto(Event event, long hits, boolean viewsStale) {
+        return toShortDto(event, hits).toBuilder()
+                .viewsStale(viewsStale ? Boolean.TRUE : null)
+                .build();
+    }
+
+    /** Подставить просмотры в событие, прочитанное проекцией */
+    public static EventShortDto withViews(EventShortDto dto, long hits, boolean viewsStale) {
+        return dto.toBuilder()
+                .views(hits)
+                .viewsStale(viewsStale ? Boolean.TRUE : null)
+                .build();
+    }
+
     public static List<EventShortDto> toDto(List<Event> subs) {
         return subs.stream()
                 .map(EventMapper::toShortDto)
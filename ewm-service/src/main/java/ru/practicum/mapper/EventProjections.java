@@ -0,0 +1,60 @@
+package ru.practicum.mapper;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.dto.category.CategoryDto;
+import ru.practicum.dto.event.EventFullDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.dto.location.LocationDto;
+import ru.practicum.dto.user.UserShortDto;
+import ru.practicum.model.QCategory;
+import ru.practicum.model.QLocation;
+import ru.practicum.model.QUser;
+
+import static ru.practicum.model.QEvent.event;
+
+/**
+ * Проекции событий сразу в DTO: запрос выбирает только нужные колонки, сущности не создаются
+ * и не попадают в контекст персистентности.<br>
+ * Запрос должен присоединить связи под алиасами проекций:
+ * {@code leftJoin(event.category, CATEGORY).leftJoin(event.initiator, INITIATOR)}
+ * и для полной информации {@code leftJoin(event.location, LOCATION)}.<br>
+ * views - значение счетчика events.views; актуальные просмотры подставляет сервис
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventProjections {
+    public static final QCategory CATEGORY = new QCategory("category");
+    public static final QUser INITIATOR = new QUser("initiator");
+    public static final QLocation LOCATION = new QLocation("location");
+
+    public static final QBean<EventShortDto> SHORT_DTO = Projections.fields(EventShortDto.class,
+            event.id,
+            event.title,
+            event.annotation,
+            ExpressionUtils.as(Projections.constructor(CategoryDto.class, CATEGORY.id, CATEGORY.name), "category"),
+            event.confirmedRequests,
+            event.eventDate,
+            ExpressionUtils.as(Projections.constructor(UserShortDto.class, INITIATOR.id, INITIATOR.name), "initiator"),
+            event.paid,
+            event.views);
+
+    public static final QBean<EventFullDto> FULL_DTO = Projections.fields(EventFullDto.class,
+            event.id,
+            event.title,
+            event.annotation,
+            event.description,
+            ExpressionUtils.as(Projections.constructor(CategoryDto.class, CATEGORY.id, CATEGORY.name), "category"),
+            ExpressionUtils.as(Projections.constructor(UserShortDto.class, INITIATOR.id, INITIATOR.name), "initiator"),
+            ExpressionUtils.as(Projections.constructor(LocationDto.class, LOCATION.lat, LOCATION.lon), "location"),
+            event.paid,
+            event.eventDate,
+            event.createdOn,
+            event.publishedOn,
+            event.participantLimit,
+            event.requestModeration,
+            event.confirmedRequests,
+            event.state);
+}
@@ -25,6 +25,7 @@ public class FriendshipMapper {
                 .id(friendship.getId())
                 .friend(UserMapper.toShotDto(friendship.getFriend()))
                 .state(friendship.getState())
+                .created(friendship.getCreatedOn())
                 .build();
     }
 
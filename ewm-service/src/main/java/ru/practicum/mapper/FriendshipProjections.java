@@ -0,0 +1,27 @@
+package ru.practicum.mapper;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.dto.user.UserShortDto;
+import ru.practicum.model.QUser;
+
+import static ru.practicum.model.QFriendship.friendship;
+
+/**
+ * Проекции заявок на дружбу сразу в DTO: пользователи не загружаются целиком, подписчик не присоединяется.<br>
+ * Запрос должен присоединить друга под алиасом проекции: {@code innerJoin(friendship.friend, FRIEND)}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FriendshipProjections {
+    public static final QUser FRIEND = new QUser("friend");
+
+    public static final QBean<FriendshipShortDto> SHORT_DTO = Projections.fields(FriendshipShortDto.class,
+            friendship.id,
+            friendship.state,
+            ExpressionUtils.as(Projections.constructor(UserShortDto.class, FRIEND.id, FRIEND.name), "friend"),
+            ExpressionUtils.as(friendship.createdOn, "created"));
+}
@@ -3,7 +3,9 @@ package ru.practicum.mapper;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.dto.request.ParticipationRequestDto;
+import ru.practicum.enums.RequestStatus;
 import ru.practicum.model.Request;
+import ru.practicum.repository.RequestRepository;
 
 import static ru.practicum.Constants.FORMATTER;
 
@@ -19,4 +21,15 @@ public class RequestMapper {
                 .isPrivate(newRequest.isPrivate())
                 .build();
     }
+
+    public static ParticipationRequestDto toDto(RequestRepository.RequestView request, RequestStatus status) {
+        return ParticipationRequestDto.builder()
+                .id(request.getId())
+                .requester(request.getRequesterId())
+                .event(request.getEventId())
+                .status(status)
+                .created(request.getCreated().format(FORMATTER))
+                .isPrivate(request.getIsPrivate())
+                .build();
+    }
 }
@@ -3,7 +3,10 @@ package ru.practicum.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.enums.EventState;
 
 import javax.persistence.Column;
@@ -17,12 +20,14 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@DynamicUpdate
 @Data
 @Table(name = "events")
 public class Event {
@@ -59,7 +64,9 @@ public class Event {
     @Column(name = "participant_limit")
     private Integer participantLimit;
 
-    //Количество одобренных заявок на участие в данном событии
+    //Количество одобренных заявок на участие в данном событии. Увеличивается условным UPDATE
+    //(EventRepository.incrementConfirmedRequests); благодаря @DynamicUpdate сохранение события
+    //не перезаписывает счетчик устаревшим значением
     @Column(name = "confirmed_requests")
     private Integer confirmedRequests;
 
@@ -77,4 +84,22 @@ public class Event {
     //Список состояний жизненного цикла события
     @Enumerated(EnumType.STRING)
     private EventState state;
+
+    //Количество просмотров, синхронизируется из сервиса статистики (EventViewsSyncJob), поэтому не пишется при save
+    @Column(name = "views", insertable = false, updatable = false)
+    private long views;
+
+    //Поисковый индекс по title, annotation и description в той же строке events. Связь никогда не загружается:
+    //используется только в условиях поиска по тексту, поэтому при загрузке события search_vector не читается
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private EventSearchDocument searchDocument;
+
+    //Версия для оптимистической блокировки. Счетчики confirmed_requests и views меняются
+    //отдельными UPDATE без увеличения версии, поэтому бронирования не конфликтуют с изменением события
+    @Version
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
@@ -0,0 +1,28 @@
+package ru.practicum.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Поисковый индекс события (events.search_vector), вычисляется БД (schema-postgresql.sql / schema-h2.sql).<br>
+ * Вынесен из {@link Event}, чтобы не читать его при каждой загрузке события: нужен только в условии fts_match
+ */
+@NoArgsConstructor
+@Entity
+@Immutable
+@Data
+@Table(name = "events")
+public class EventSearchDocument {
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "search_vector", insertable = false, updatable = false)
+    private String searchVector;
+}
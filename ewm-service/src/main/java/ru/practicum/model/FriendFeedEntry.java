@@ -0,0 +1,47 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Запись ленты событий друзей: опубликованное событие друга, которое увидит подписчик.<br>
+ * eventDate копируется из события, чтобы лента читалась по индексу (follower_id, event_date, event_id)
+ * без соединения с events
+ */
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Data
+@Table(name = "friend_feed")
+@IdClass(FriendFeedEntry.Key.class)
+public class FriendFeedEntry {
+    @Id
+    @Column(name = "follower_id")
+    private Long followerId;
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "event_date")
+    private LocalDateTime eventDate;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long followerId;
+        private Long eventId;
+    }
+}
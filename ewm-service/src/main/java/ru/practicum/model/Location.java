@@ -4,12 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.practicum.utils.Geohash;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 
 @Builder(toBuilder = true)
@@ -28,4 +31,17 @@ public class Location {
     private Float lat;
     @Column
     private Float lon;
+    //Ячейка geohash точки, для поиска событий рядом с точкой
+    @Column
+    private String geohash;
+
+    public Location(Long id, Float lat, Float lon) {
+        this(id, lat, lon, null);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateGeohash() {
+        geohash = (lat == null || lon == null) ? null : Geohash.encode(lat, lon, Geohash.MAX_PRECISION);
+    }
 }
@@ -3,6 +3,7 @@ package ru.practicum.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import ru.practicum.enums.RequestStatus;
 
@@ -17,6 +18,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Builder(toBuilder = true)
@@ -44,4 +46,8 @@ public class Request {
 
     @Column(name = "private")
     private boolean isPrivate;
+
+    @Version
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
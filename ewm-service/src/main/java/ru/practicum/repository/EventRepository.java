@@ -1,25 +1,101 @@
 package ru.practicum.repository;
 
+import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.enums.EventState;
 import ru.practicum.model.Event;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventRepositoryCustom {
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Optional<Event> findByIdAndInitiatorId(long eventId, long userId);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Page<Event> findAllByInitiatorId(long userId, PageRequest page);
 
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Predicate predicate, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Pageable pageable);
+
     boolean existsByCategoryId(long catId);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Optional<Event> findByIdAndState(long id, EventState eventState);
 
     boolean existsByInitiatorId(long userId);
+
+    /** Просмотры событий в состоянии state с id больше afterId, по возрастанию id */
+    @Query("select e.id as id, e.views as views from Event e where e.state = :state and e.id > :afterId order by e.id")
+    List<EventViews> findViewsByStateAndIdAfter(EventState state, long afterId, Pageable page);
+
+    /** Текст и фильтруемые поля событий в состоянии state с id больше afterId, по возрастанию id */
+    @Query("select e.id as id, e.title as title, e.annotation as annotation, e.description as description, "
+            + "e.category.id as categoryId, e.paid as paid "
+            + "from Event e where e.state = :state and e.id > :afterId order by e.id")
+    List<EventText> findTextByStateAndIdAfter(EventState state, long afterId, Pageable page);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Event e set e.views = :views where e.id = :id")
+    int updateViews(long id, long views);
+
+    /**
+     * Занять место в событии: счетчик подтвержденных заявок увеличивается одним условным UPDATE,
+     * только если лимит участников не исчерпан, поэтому одновременные заявки не превышают лимит
+     * @return 1 - место занято, 0 - лимит исчерпан
+     */
+    @Modifying
+    @Query("update Event e set e.confirmedRequests = e.confirmedRequests + 1 where e.id = :id "
+            + "and (e.participantLimit = 0 or e.confirmedRequests < e.participantLimit)")
+    int incrementConfirmedRequests(long id);
+
+    @Query("select e.confirmedRequests from Event e where e.id = :id")
+    int findConfirmedRequestsById(long id);
+
+    /**
+     * Занять count мест, если счетчик подтвержденных заявок не изменился с момента чтения
+     * @return 1 - места заняты, 0 - счетчик успели изменить, нужно перечитать его и повторить
+     */
+    @Modifying
+    @Query("update Event e set e.confirmedRequests = e.confirmedRequests + :count "
+            + "where e.id = :id and e.confirmedRequests = :expected")
+    int addConfirmedRequests(long id, int expected, int count);
+
+    interface EventViews {
+        Long getId();
+
+        long getViews();
+    }
+
+    interface EventText {
+        Long getId();
+
+        String getTitle();
+
+        String getAnnotation();
+
+        String getDescription();
+
+        Long getCategoryId();
+
+        Boolean getPaid();
+    }
 }
@@ -0,0 +1,48 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.dto.event.EventFullDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.enums.SortType;
+import ru.practicum.utils.EventCursor;
+
+import java.util.List;
+
+/** Чтение событий сразу в DTO (см. {@link ru.practicum.mapper.EventProjections}) */
+public interface EventRepositoryCustom {
+    /**
+     * Краткая информация о событиях, постранично по from/size
+     * @param predicate фильтр событий (null - все события)
+     * @param page страница и сортировка по полям события
+     */
+    List<EventShortDto> findShortDtos(Predicate predicate, Pageable page);
+
+    /**
+     * Краткая информация о событиях в порядке, который не выразить сортировкой по полю события
+     * (релевантность поиску по тексту, расстояние до точки), постранично по from/size
+     * @param predicate фильтр событий
+     * @param order порядок событий, при равенстве - по id
+     * @param page страница (сортировка страницы не используется)
+     */
+    List<EventShortDto> findShortDtos(Predicate predicate, OrderSpecifier<?> order, Pageable page);
+
+    /**
+     * Краткая информация о событиях, упорядоченных по (eventDate, id) или (views desc, id),
+     * начиная сразу после курсора.<br>
+     * В отличие от OFFSET стоимость не зависит от номера страницы и не нужен подсчет общего количества
+     * @param predicate фильтр событий
+     * @param sort сортировка: по дате события (null) или по просмотрам
+     * @param cursor последнее событие предыдущей страницы (null - первая страница)
+     * @param size количество событий в наборе
+     */
+    List<EventShortDto> findShortDtosAfter(Predicate predicate, SortType sort, EventCursor cursor, int size);
+
+    /**
+     * Полная информация о событиях, постранично по from/size
+     * @param predicate фильтр событий (null - все события)
+     * @param page страница и сортировка по полям события
+     */
+    List<EventFullDto> findFullDtos(Predicate predicate, Pageable page);
+}
@@ -0,0 +1,97 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import ru.practicum.dto.event.EventFullDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.enums.SortType;
+import ru.practicum.model.Event;
+import ru.practicum.utils.EventCursor;
+import ru.practicum.utils.QPredicate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static ru.practicum.mapper.EventProjections.CATEGORY;
+import static ru.practicum.mapper.EventProjections.FULL_DTO;
+import static ru.practicum.mapper.EventProjections.INITIATOR;
+import static ru.practicum.mapper.EventProjections.LOCATION;
+import static ru.practicum.mapper.EventProjections.SHORT_DTO;
+import static ru.practicum.model.QEvent.event;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+    private final Querydsl querydsl;
+
+    public EventRepositoryCustomImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.querydsl = new Querydsl(em, new PathBuilder<>(Event.class, event.getMetadata()));
+    }
+
+    @Override
+    public List<EventShortDto> findShortDtos(Predicate predicate, Pageable page) {
+        final JPQLQuery<EventShortDto> query = queryFactory.select(SHORT_DTO)
+                .from(event)
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .where(predicate);
+        return querydsl.applyPagination(page, query).fetch();
+    }
+
+    @Override
+    public List<EventShortDto> findShortDtos(Predicate predicate, OrderSpecifier<?> order, Pageable page) {
+        return queryFactory.select(SHORT_DTO)
+                .from(event)
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .where(predicate)
+                .orderBy(order, event.id.asc())
+                .offset(page.getOffset())
+                .limit(page.getPageSize())
+                .fetch();
+    }
+
+    @Override
+    public List<EventShortDto> findShortDtosAfter(Predicate predicate, SortType sort, EventCursor cursor, int size) {
+        final boolean byViews = sort == SortType.VIEWS;
+        final Predicate after = QPredicate.builder()
+                .add(predicate, p -> p)
+                .add(cursor, c -> byViews ? afterViews(c) : afterEventDate(c))
+                .buildAnd();
+        final OrderSpecifier<?> order = byViews ? event.views.desc() : event.eventDate.asc();
+        return queryFactory.select(SHORT_DTO)
+                .from(event)
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .where(after)
+                .orderBy(order, event.id.asc())
+                .limit(size)
+                .fetch();
+    }
+
+    @Override
+    public List<EventFullDto> findFullDtos(Predicate predicate, Pageable page) {
+        final JPQLQuery<EventFullDto> query = queryFactory.select(FULL_DTO)
+                .from(event)
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .leftJoin(event.location, LOCATION)
+                .where(predicate);
+        return querydsl.applyPagination(page, query).fetch();
+    }
+
+    private static Predicate afterEventDate(EventCursor cursor) {
+        return event.eventDate.gt(cursor.getEventDate())
+                .or(event.eventDate.eq(cursor.getEventDate()).and(event.id.gt(cursor.getId())));
+    }
+
+    private static Predicate afterViews(EventCursor cursor) {
+        return event.views.lt(cursor.getViews())
+                .or(event.views.eq(cursor.getViews()).and(event.id.gt(cursor.getId())));
+    }
+}
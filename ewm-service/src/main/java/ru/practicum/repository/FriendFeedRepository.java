@@ -0,0 +1,77 @@
+package ru.practicum.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.FriendFeedEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Лента событий друзей (fan-out on write): записи создаются при публикации события и при подтверждении дружбы,
+ * поэтому чтение ленты - один проход по индексу (follower_id, event_date, event_id)
+ */
+@Repository
+public interface FriendFeedRepository extends JpaRepository<FriendFeedEntry, FriendFeedEntry.Key> {
+
+    /** Разослать опубликованное событие всем подтвержденным подписчикам инициатора */
+    @Modifying
+    @Query(value = "INSERT INTO friend_feed (follower_id, event_id, event_date) "
+            + "SELECT DISTINCT f.follower_id, :eventId, :eventDate FROM friendship f "
+            + "WHERE f.friend_id = :initiatorId AND f.state = 'APPROVED' "
+            + "AND NOT EXISTS (SELECT 1 FROM friend_feed ff WHERE ff.follower_id = f.follower_id "
+            + "AND ff.event_id = :eventId)", nativeQuery = true)
+    int addEvent(long eventId, long initiatorId, LocalDateTime eventDate);
+
+    /** Перенести событие в лентах после изменения даты события */
+    @Modifying
+    @Query("update FriendFeedEntry f set f.eventDate = :eventDate where f.eventId = :eventId")
+    int moveEvent(long eventId, LocalDateTime eventDate);
+
+    /**
+     * Добавить подписчикам подтвержденных дружб опубликованные события друга, которые начнутся позже after
+     * @param friendshipIds id подтвержденных запросов на дружбу
+     */
+    @Modifying
+    @Query(value = "INSERT INTO friend_feed (follower_id, event_id, event_date) "
+            + "SELECT DISTINCT f.follower_id, e.id, e.event_date FROM friendship f "
+            + "JOIN events e ON e.initiator_id = f.friend_id "
+            + "WHERE f.id IN (:friendshipIds) AND e.state = 'PUBLISHED' AND e.event_date > :after "
+            + "AND NOT EXISTS (SELECT 1 FROM friend_feed ff WHERE ff.follower_id = f.follower_id "
+            + "AND ff.event_id = e.id)", nativeQuery = true)
+    int addFriendEvents(Collection<Long> friendshipIds, LocalDateTime after);
+
+    /**
+     * Добавить события пользователя friendId, которые начнутся позже after, в ленты всех, чьи заявки к нему
+     * в ожидании (id заявки не больше maxId). Вызывается перед массовым подтверждением этих заявок
+     */
+    @Modifying
+    @Query(value = "INSERT INTO friend_feed (follower_id, event_id, event_date) "
+            + "SELECT DISTINCT f.follower_id, e.id, e.event_date FROM friendship f "
+            + "JOIN events e ON e.initiator_id = f.friend_id "
+            + "WHERE f.friend_id = :friendId AND f.state = 'PENDING' AND f.id <= :maxId "
+            + "AND e.state = 'PUBLISHED' AND e.event_date > :after "
+            + "AND NOT EXISTS (SELECT 1 FROM friend_feed ff WHERE ff.follower_id = f.follower_id "
+            + "AND ff.event_id = e.id)", nativeQuery = true)
+    int addPendingFollowerEvents(long friendId, long maxId, LocalDateTime after);
+
+    /**
+     * Убрать из лент события друзей по дружбам, которые еще подтверждены в БД.<br>
+     * Вызывается до отклонения или удаления дружбы
+     */
+    @Modifying
+    @Query(value = "DELETE FROM friend_feed WHERE EXISTS (SELECT 1 FROM friendship f "
+            + "JOIN events e ON e.initiator_id = f.friend_id "
+            + "WHERE f.id IN (:friendshipIds) AND f.state = 'APPROVED' "
+            + "AND f.follower_id = friend_feed.follower_id AND e.id = friend_feed.event_id)", nativeQuery = true)
+    int removeFriendEvents(Collection<Long> friendshipIds);
+
+    /** Удалить записи о прошедших событиях */
+    @Transactional
+    @Modifying
+    @Query("delete from FriendFeedEntry f where f.eventDate < :before")
+    int deleteByEventDateBefore(LocalDateTime before);
+}
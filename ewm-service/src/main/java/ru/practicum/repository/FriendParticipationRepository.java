@@ -0,0 +1,61 @@
+package ru.practicum.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.FriendParticipation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Индекс "друзья идут": (follower_id, event_id) -> количество друзей с подтвержденной открытой заявкой.<br>
+ * Счетчики меняются на +-1 при изменении заявки или дружбы. Увеличение - функции upsert в БД
+ * (schema-postgresql.sql, schema-h2.sql), одновременные изменения одной строки не теряются.
+ * Строки с нулевым счетчиком в выдачу не попадают и удаляются вместе с прошедшими событиями
+ */
+@Repository
+public interface FriendParticipationRepository extends JpaRepository<FriendParticipation, FriendParticipation.Key> {
+
+    /** Заявка пользователя на событие стала подтвержденной и открытой: +1 у всех его подписчиков */
+    @Query(value = "select add_friend_participation(:requesterId, :eventId)", nativeQuery = true)
+    Integer addParticipation(long requesterId, long eventId);
+
+    /** Заявка пользователя на событие отменена или скрыта: -1 у всех его подписчиков */
+    @Modifying
+    @Query(value = "UPDATE friend_participation SET friend_count = friend_count - 1 "
+            + "WHERE event_id = :eventId AND friend_count > 0 AND follower_id IN (SELECT f.follower_id "
+            + "FROM friendship f WHERE f.friend_id = :requesterId AND f.state = 'APPROVED')", nativeQuery = true)
+    int removeParticipation(long requesterId, long eventId);
+
+    /** Дружба подтверждена: +1 подписчику по событиям друга, которые начнутся позже after */
+    @Query(value = "select add_friend_participations(:followerId, :friendId, :after)", nativeQuery = true)
+    Integer addFriendParticipations(long followerId, long friendId, LocalDateTime after);
+
+    /**
+     * Заявки к пользователю friendId в ожидании (id заявки не больше maxId) будут подтверждены:
+     * +1 их подписчикам по событиям friendId, которые начнутся позже after
+     */
+    @Query(value = "select add_pending_follower_participations(:friendId, :maxId, :after)", nativeQuery = true)
+    Integer addPendingFollowerParticipations(long friendId, long maxId, LocalDateTime after);
+
+    /** Подтвержденная дружба отклонена или удалена: -1 подписчику по событиям друга */
+    @Modifying
+    @Query(value = "UPDATE friend_participation SET friend_count = friend_count - 1 "
+            + "WHERE follower_id = :followerId AND friend_count > 0 AND event_id IN (SELECT r.event_id "
+            + "FROM requests r WHERE r.requester_id = :friendId AND r.status = 'CONFIRMED' AND r.private = false)",
+            nativeQuery = true)
+    int removeFriendParticipations(long followerId, long friendId);
+
+    /** Перенести событие после изменения даты события */
+    @Modifying
+    @Query("update FriendParticipation p set p.eventDate = :eventDate where p.eventId = :eventId")
+    int moveEvent(long eventId, LocalDateTime eventDate);
+
+    /** Удалить строки прошедших событий и строки без друзей */
+    @Transactional
+    @Modifying
+    @Query("delete from FriendParticipation p where p.eventDate < :before or p.friendCount <= 0")
+    int deleteObsolete(LocalDateTime before);
+}
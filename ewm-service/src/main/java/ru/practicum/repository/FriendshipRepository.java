@@ -1,16 +1,57 @@
 package ru.practicum.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.stereotype.Repository;
 import ru.practicum.enums.FriendshipState;
 import ru.practicum.model.Friendship;
 
-@Repository
-public interface FriendshipRepository extends JpaRepository<Friendship, Long>, QuerydslPredicateExecutor<Friendship> {
-    void deleteByFollowerIdAndId(long followerId, long friendId);
+import java.util.List;
+import java.util.Optional;
 
+@Repository
+public interface FriendshipRepository extends JpaRepository<Friendship, Long>, QuerydslPredicateExecutor<Friendship>,
+        FriendshipRepositoryCustom {
     boolean existsByFollowerIdAndFriendIdAndStateNot(long followerId, long friendId, FriendshipState status);
 
-    boolean existsByIdAndFollowerId(long subsId, long followerId);
+    Optional<Friendship> findByIdAndFollowerId(long subsId, long followerId);
+
+    /** Ребра графа дружб в состоянии state с id больше afterId, по возрастанию id */
+    @Query("select f.id as id, f.follower.id as followerId, f.friend.id as friendId from Friendship f "
+            + "where f.state = :state and f.id > :afterId order by f.id")
+    List<FriendshipEdge> findEdgesByStateAndIdAfter(FriendshipState state, long afterId, Pageable page);
+
+    /** Ребра заявок к пользователю friendId в состоянии state */
+    @Query("select f.id as id, f.follower.id as followerId, f.friend.id as friendId from Friendship f "
+            + "where f.friend.id = :friendId and f.state = :state")
+    List<FriendshipEdge> findEdgesByFriendIdAndState(long friendId, FriendshipState state);
+
+    /**
+     * Перевести заявки к пользователю friendId из состояния state в newState одним UPDATE
+     * @param maxId заявки с id не больше maxId: поступившие позже не затрагиваются
+     * @return количество измененных заявок
+     */
+    @Modifying
+    @Query("update Friendship f set f.state = :newState "
+            + "where f.friend.id = :friendId and f.state = :state and f.id <= :maxId")
+    int updateStateByFriendId(long friendId, FriendshipState state, FriendshipState newState, long maxId);
+
+    /**
+     * Перевести заявку в newState условным UPDATE: из параллельных изменений одной заявки строку меняет только одно
+     * @return 1, если заявка еще не была в newState и изменена, иначе 0
+     */
+    @Modifying
+    @Query("update Friendship f set f.state = :newState where f.id = :id and f.state <> :newState")
+    int updateStateById(long id, FriendshipState newState);
+
+    interface FriendshipEdge {
+        Long getId();
+
+        long getFollowerId();
+
+        long getFriendId();
+    }
 }
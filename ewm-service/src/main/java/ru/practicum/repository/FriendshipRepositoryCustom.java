@@ -0,0 +1,26 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.utils.FriendshipCursor;
+
+import java.util.List;
+
+/** Чтение заявок на дружбу сразу в DTO (см. {@link ru.practicum.mapper.FriendshipProjections}) */
+public interface FriendshipRepositoryCustom {
+    /**
+     * Заявки от новых к старым (created desc, id desc), постранично по from/size
+     * @param predicate фильтр заявок
+     * @param page страница (сортировка страницы не используется)
+     */
+    List<FriendshipShortDto> findShortDtos(Predicate predicate, Pageable page);
+
+    /**
+     * Заявки от новых к старым (created desc, id desc), начиная сразу после курсора
+     * @param predicate фильтр заявок
+     * @param cursor последняя заявка предыдущей страницы (null - первая страница)
+     * @param size количество заявок в наборе
+     */
+    List<FriendshipShortDto> findShortDtosAfter(Predicate predicate, FriendshipCursor cursor, int size);
+}
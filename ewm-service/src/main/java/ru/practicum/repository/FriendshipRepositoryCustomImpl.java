@@ -0,0 +1,56 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.utils.FriendshipCursor;
+import ru.practicum.utils.QPredicate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static ru.practicum.mapper.FriendshipProjections.FRIEND;
+import static ru.practicum.mapper.FriendshipProjections.SHORT_DTO;
+import static ru.practicum.model.QFriendship.friendship;
+
+/**
+ * Фильтр по подписчику или другу и состоянию вместе с порядком (created_on, id) читается по индексам
+ * (follower_id, state, created_on, id) и (friend_id, state, created_on, id) в обратном направлении
+ */
+public class FriendshipRepositoryCustomImpl implements FriendshipRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+
+    public FriendshipRepositoryCustomImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public List<FriendshipShortDto> findShortDtos(Predicate predicate, Pageable page) {
+        return query(predicate)
+                .offset(page.getOffset())
+                .limit(page.getPageSize())
+                .fetch();
+    }
+
+    @Override
+    public List<FriendshipShortDto> findShortDtosAfter(Predicate predicate, FriendshipCursor cursor, int size) {
+        final Predicate after = QPredicate.builder()
+                .add(predicate, p -> p)
+                .add(cursor, c -> friendship.createdOn.lt(c.getCreated())
+                        .or(friendship.createdOn.eq(c.getCreated()).and(friendship.id.lt(c.getId()))))
+                .buildAnd();
+        return query(after)
+                .limit(size)
+                .fetch();
+    }
+
+    private JPAQuery<FriendshipShortDto> query(Predicate predicate) {
+        return queryFactory.select(SHORT_DTO)
+                .from(friendship)
+                .innerJoin(friendship.friend, FRIEND)
+                .where(predicate)
+                .orderBy(friendship.createdOn.desc(), friendship.id.desc());
+    }
+}
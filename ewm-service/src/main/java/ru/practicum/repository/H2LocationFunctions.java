@@ -0,0 +1,36 @@
+package ru.practicum.repository;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Реализация upsert_location для H2 (подключается в schema-h2.sql)
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class H2LocationFunctions {
+    public static Long upsertLocation(Connection connection, Float lat, Float lon, String geohash)
+            throws SQLException {
+        if (lat == null || lon == null) return null;
+
+        try (PreparedStatement merge = connection.prepareStatement(
+                "MERGE INTO locations (lat, lon, geohash) KEY (lat, lon) VALUES (?, ?, ?)")) {
+            merge.setFloat(1, lat);
+            merge.setFloat(2, lon);
+            merge.setString(3, geohash);
+            merge.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM locations WHERE lat = ? AND lon = ?")) {
+            select.setFloat(1, lat);
+            select.setFloat(2, lon);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : null;
+            }
+        }
+    }
+}
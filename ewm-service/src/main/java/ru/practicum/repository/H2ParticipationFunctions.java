@@ -0,0 +1,60 @@
+package ru.practicum.repository;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Реализация add_friend_participation, add_friend_participations и add_pending_follower_participations для H2
+ * (подключается в schema-h2.sql)
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class H2ParticipationFunctions {
+    private static final String MERGE = "MERGE INTO friend_participation p USING (%s) s "
+            + "ON (p.follower_id = s.follower_id AND p.event_id = s.event_id) "
+            + "WHEN MATCHED THEN UPDATE SET friend_count = p.friend_count + 1 "
+            + "WHEN NOT MATCHED THEN INSERT (follower_id, event_id, event_date, friend_count) "
+            + "VALUES (s.follower_id, s.event_id, s.event_date, 1)";
+
+    public static int addFriendParticipation(Connection connection, Long requesterId, Long eventId)
+            throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(String.format(MERGE,
+                "SELECT DISTINCT f.follower_id, e.id AS event_id, e.event_date FROM friendship f "
+                        + "JOIN events e ON e.id = ? WHERE f.friend_id = ? AND f.state = 'APPROVED'"))) {
+            merge.setLong(1, eventId);
+            merge.setLong(2, requesterId);
+            return merge.executeUpdate();
+        }
+    }
+
+    public static int addFriendParticipations(Connection connection, Long followerId, Long friendId,
+                                              Timestamp after) throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(String.format(MERGE,
+                "SELECT DISTINCT CAST(? AS BIGINT) AS follower_id, e.id AS event_id, e.event_date FROM requests r "
+                        + "JOIN events e ON e.id = r.event_id WHERE r.requester_id = ? AND r.status = 'CONFIRMED' "
+                        + "AND r.private = false AND e.event_date > ?"))) {
+            merge.setLong(1, followerId);
+            merge.setLong(2, friendId);
+            merge.setTimestamp(3, after);
+            return merge.executeUpdate();
+        }
+    }
+
+    public static int addPendingFollowerParticipations(Connection connection, Long friendId, Long maxId,
+                                                       Timestamp after) throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(String.format(MERGE,
+                "SELECT DISTINCT f.follower_id, e.id AS event_id, e.event_date FROM friendship f "
+                        + "JOIN requests r ON r.requester_id = f.friend_id JOIN events e ON e.id = r.event_id "
+                        + "WHERE f.friend_id = ? AND f.state = 'PENDING' AND f.id <= ? AND r.status = 'CONFIRMED' "
+                        + "AND r.private = false AND e.event_date > ?"))) {
+            merge.setLong(1, friendId);
+            merge.setLong(2, maxId);
+            merge.setTimestamp(3, after);
+            return merge.executeUpdate();
+        }
+    }
+}
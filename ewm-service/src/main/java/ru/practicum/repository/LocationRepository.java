@@ -1,6 +1,7 @@
 package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.model.Location;
 
@@ -9,4 +10,12 @@ import java.util.Optional;
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     Optional<Location> findByLatAndLon(Float lat, Float lon);
+
+    /**
+     * Найти или создать место одним запросом (upsert_location в schema-postgresql.sql / schema-h2.sql),
+     * уникальность координат обеспечивает ограничение uq_locations_lat_lon
+     * @return id места; null, если место с теми же координатами только что создала параллельная транзакция
+     */
+    @Query(value = "select upsert_location(:lat, :lon, :geohash)", nativeQuery = true)
+    Long upsert(float lat, float lon, String geohash);
 }
@@ -1,10 +1,14 @@
 package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.enums.RequestStatus;
 import ru.practicum.model.Request;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +25,32 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     boolean existsByEventIdAndRequesterId(long eventId, long userId);
 
     boolean existsByRequesterId(long userId);
+
+    /** Заявки события в статусе status из списка id, по возрастанию id, без загрузки сущностей */
+    @Query("select r.id as id, r.event.id as eventId, r.requester.id as requesterId, r.created as created, "
+            + "r.isPrivate as isPrivate "
+            + "from Request r where r.id in :ids and r.event.id = :eventId and r.status = :status order by r.id")
+    List<RequestView> findViewsByIdInAndEventIdAndStatus(Collection<Long> ids, long eventId, RequestStatus status);
+
+    /** @return количество заявок из списка id, переведенных из статуса from в статус to (версия заявок увеличивается) */
+    @Modifying
+    @Query("update versioned Request r set r.status = :to where r.id in :ids and r.status = :from")
+    int updateStatus(Collection<Long> ids, RequestStatus from, RequestStatus to);
+
+    /** @return количество заявок события, переведенных из статуса from в статус to (версия заявок увеличивается) */
+    @Modifying
+    @Query("update versioned Request r set r.status = :to where r.event.id = :eventId and r.status = :from")
+    int updateStatusByEventId(long eventId, RequestStatus from, RequestStatus to);
+
+    interface RequestView {
+        Long getId();
+
+        Long getEventId();
+
+        Long getRequesterId();
+
+        LocalDateTime getCreated();
+
+        boolean getIsPrivate();
+    }
 }
@@ -0,0 +1,73 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exception.ConflictException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Повтор транзакции при конфликте оптимистической блокировки (@Version).<br>
+ * - действие выполняется в своей транзакции; при OptimisticLockingFailureException она откатывается
+ * и выполняется заново, с перечитыванием данных<br>
+ * - пауза между попытками растет экспоненциально от backoffMs до maxBackoffMs, со случайным разбросом<br>
+ * - после maxAttempts неудачных попыток возвращается ConflictException (409)<br>
+ * - внутри уже открытой транзакции действие выполняется один раз: повторять должен внешний вызов
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+    private final TransactionOperations transactions;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticLockRetry(TransactionOperations transactions,
+                               @Value("${ewm.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${ewm.retry.backoff-ms:20}") long backoffMs,
+                               @Value("${ewm.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        if (maxAttempts <= 0 || backoffMs < 0 || maxBackoffMs < backoffMs) {
+            throw new IllegalArgumentException("Retry attempts must be positive and backoff must not decrease");
+        }
+        this.transactions = transactions;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return action.get();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Optimistic lock conflict after {} attempts: {}", attempt, e.getMessage());
+                    throw new ConflictException("The object was modified concurrently, try again.",
+                            "Optimistic lock conflict");
+                }
+                log.debug("Optimistic lock conflict, attempt {} of {}", attempt, maxAttempts);
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        final long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 30));
+        if (delay == 0) return;
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("The object was modified concurrently, try again.",
+                    "Optimistic lock conflict");
+        }
+    }
+}
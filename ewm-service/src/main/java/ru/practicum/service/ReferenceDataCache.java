@@ -0,0 +1,116 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.model.Category;
+import ru.practicum.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Локальный кэш справочных данных: категории и пользователи по id, id мест по координатам.<br>
+ * - запись живет ttl после загрузки, размер каждого кэша ограничен maxSize записей<br>
+ * - объекты, которых нет в БД, не кэшируются<br>
+ * - категории и пользователи удаляются из кэша при изменении и удалении (evict*) и повторно после коммита
+ * транзакции: иначе параллельный запрос успеет закэшировать еще не измененную строку; места не меняются
+ * и не удаляются;
+ * другие экземпляры сервиса увидят изменение не позже чем через ttl<br>
+ * - наружу отдаются копии, изменения в вызывающем коде в кэш не попадают<br>
+ * - статистика публикуется в метриках как кэши ewm.categories, ewm.users и ewm.locations,
+ * доля попаданий - в ewm.reference.cache.hit.ratio
+ */
+@Component
+public class ReferenceDataCache {
+    private final Cache<Long, Category> categories;
+    private final Cache<Long, User> users;
+    private final Cache<Long, Long> locations;
+
+    public ReferenceDataCache(MeterRegistry meterRegistry,
+                              @Value("${ewm.reference-cache.ttl-ms:60000}") long ttlMs,
+                              @Value("${ewm.reference-cache.max-size:10000}") long maxSize) {
+        this.categories = build(meterRegistry, "ewm.categories", ttlMs, maxSize);
+        this.users = build(meterRegistry, "ewm.users", ttlMs, maxSize);
+        this.locations = build(meterRegistry, "ewm.locations", ttlMs, maxSize);
+    }
+
+    public Optional<Category> getCategory(long catId, Function<Long, Optional<Category>> loader) {
+        return get(categories, catId, loader, c -> c.toBuilder().build());
+    }
+
+    public void evictCategory(long catId) {
+        categories.invalidate(catId);
+        afterCommit(() -> categories.invalidate(catId));
+    }
+
+    public Optional<User> getUser(long userId, Function<Long, Optional<User>> loader) {
+        return get(users, userId, loader, u -> u.toBuilder().build());
+    }
+
+    public void evictUser(long userId) {
+        users.invalidate(userId);
+        afterCommit(() -> users.invalidate(userId));
+    }
+
+    /** id места по координатам */
+    public Optional<Long> getLocationId(float lat, float lon) {
+        return Optional.ofNullable(locations.getIfPresent(pack(lat, lon)));
+    }
+
+    /**
+     * Запомнить id места. Внутри транзакции - только после ее коммита: при откате место может не сохраниться
+     */
+    public void putLocationId(float lat, float lon, long locationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locations.put(pack(lat, lon), locationId);
+            return;
+        }
+        afterCommit(() -> locations.put(pack(lat, lon), locationId));
+    }
+
+    /** Координаты точки одним числом: биты lat в старшей половине, биты lon в младшей */
+    static long pack(float lat, float lon) {
+        return ((long) Float.floatToIntBits(lat) << 32) | (Float.floatToIntBits(lon) & 0xFFFFFFFFL);
+    }
+
+    /** Выполнить после коммита текущей транзакции; без транзакции не выполняется */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static <V> Optional<V> get(Cache<Long, V> cache, long key, Function<Long, Optional<V>> loader,
+                                       UnaryOperator<V> copy) {
+        return Optional.ofNullable(cache.get(key, k -> loader.apply(k).orElse(null)))
+                .map(copy);
+    }
+
+    private static <V> Cache<Long, V> build(MeterRegistry meterRegistry, String name, long ttlMs, long maxSize) {
+        final Cache<Long, V> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("ewm.reference.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+}
@@ -12,6 +12,7 @@ import ru.practicum.mapper.CategoryMapper;
 import ru.practicum.model.Category;
 import ru.practicum.repository.CategoryRepository;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 
 import java.util.List;
@@ -25,10 +26,11 @@ import static ru.practicum.utils.Constants.THE_REQUIRED_OBJECT_WAS_NOT_FOUND;
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final EventRepository eventRepository;
+    private final ReferenceDataCache cache;
 
     @Override
     public Category findCategoryById(long catId) {
-        return categoryRepository.findById(catId)
+        return cache.getCategory(catId, categoryRepository::findById)
                 .orElseThrow(() -> new NotFoundException(
                         String.format(CATEGORY_WITH_ID_D_WAS_NOT_FOUND, catId),
                         THE_REQUIRED_OBJECT_WAS_NOT_FOUND));
@@ -60,6 +62,7 @@ public class CategoryServiceImpl implements CategoryService {
                     Constants.FOR_THE_REQUESTED_OPERATION_THE_CONDITIONS_ARE_NOT_MET);
         }
         categoryRepository.deleteById(catId);
+        cache.evictCategory(catId);
     }
 
     @Override
@@ -73,6 +76,7 @@ public class CategoryServiceImpl implements CategoryService {
         final Category category = findCategoryById(catId);
         category.setName(body.getName());
         final Category updatedCategory = categoryRepository.save(category);
+        cache.evictCategory(catId);
         return CategoryMapper.toDto(updatedCategory);
     }
 
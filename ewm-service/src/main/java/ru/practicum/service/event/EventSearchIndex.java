@@ -0,0 +1,290 @@
+package ru.practicum.service.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.filter.FullTextQuery;
+import ru.practicum.model.Event;
+import ru.practicum.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static ru.practicum.enums.EventState.PUBLISHED;
+
+/**
+ * Инвертированный индекс опубликованных событий в памяти (ewm.search.mode=INDEX).<br>
+ * - слово title, annotation и description -> отсортированный список id событий ({@link PostingList});
+ * слова запроса ищутся по префиксу, списки пересекаются слиянием<br>
+ * - плотные битовые карты опубликованных, платных событий и событий каждой категории проверяются
+ * для найденных по тексту id<br>
+ * - для каждого события хранятся его слова и категория, поэтому переиндексация трогает только его списки<br>
+ * - строится при старте приложения, обновляется при изменении события администратором после коммита транзакции;
+ * изменения, пришедшие во время построения, копятся и применяются после загрузки<br>
+ * - индекс только отбирает кандидатов: условия фильтра повторно проверяются в БД,
+ * поэтому устаревшая запись в индексе не попадет в ответ
+ */
+@Slf4j
+@Component
+public class EventSearchIndex {
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Integer, IndexedDocument> documents = new HashMap<>();
+    private final Map<Long, BitSet> categories = new HashMap<>();
+    private final BitSet paid = new BitSet();
+    private final BitSet published = new BitSet();
+    private final List<Document> pending = new ArrayList<>();
+    /** id события не помещается в битовую карту: индекс отключен до перезапуска */
+    private boolean overflow;
+
+    private volatile boolean ready;
+
+    public EventSearchIndex(EventRepository eventRepository,
+                            @Value("${ewm.search.mode:DATABASE}") Mode mode,
+                            @Value("${ewm.search.index.batch-size:500}") int batchSize,
+                            @Value("${ewm.search.index.max-candidates:1000}") int maxCandidates) {
+        this.eventRepository = eventRepository;
+        this.enabled = Mode.INDEX.equals(mode);
+        this.batchSize = batchSize;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /** Индекс построен, и по нему можно искать */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) return;
+
+        final PageRequest page = PageRequest.of(0, batchSize);
+        int count = 0;
+        long afterId = 0;
+        List<EventRepository.EventText> events = eventRepository.findTextByStateAndIdAfter(PUBLISHED, afterId, page);
+        while (!events.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                for (EventRepository.EventText event : events) {
+                    if (!add(new Document(event.getId(), true, event.getTitle(), event.getAnnotation(),
+                            event.getDescription(), event.getCategoryId(), event.getPaid()))) return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            count += events.size();
+            afterId = events.get(events.size() - 1).getId();
+            events = eventRepository.findTextByStateAndIdAfter(PUBLISHED, afterId, page);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Document document : pending) {
+                if (!reindex(document)) return;
+            }
+            pending.clear();
+            postings.values().forEach(PostingList::trimToSize);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index is built: {} events, {} words", count, postings.size());
+    }
+
+    /**
+     * Переиндексировать событие после коммита текущей транзакции: при откате индекс не меняется.
+     * В индексе остаются только опубликованные события
+     */
+    public void update(Event event) {
+        if (!enabled) return;
+
+        final Document document = new Document(event.getId(), PUBLISHED.equals(event.getState()),
+                event.getTitle(), event.getAnnotation(), event.getDescription(),
+                event.getCategory() == null ? null : event.getCategory().getId(), event.getPaid());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(document);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(document);
+            }
+        });
+    }
+
+    /**
+     * Отобрать опубликованные события по тексту, категориям и платности
+     * @param terms слова запроса {@link FullTextQuery#terms}, каждое ищется по префиксу
+     * @param categoryIds список категорий (null - любая)
+     * @param isPaid платность (null - любая)
+     * @return id событий по возрастанию; пусто, если кандидатов больше maxCandidates
+     * и фильтровать дешевле в БД
+     */
+    public Optional<List<Long>> search(List<String> terms, List<Long> categoryIds, Boolean isPaid) {
+        lock.readLock().lock();
+        try {
+            final List<int[]> termMatches = new ArrayList<>();
+            for (String term : terms) {
+                final int[] matches = PostingList.union(
+                        postings.subMap(term, true, term + Character.MAX_VALUE, true).values());
+                if (matches.length == 0) return Optional.of(List.of());
+                termMatches.add(matches);
+            }
+            termMatches.sort(Comparator.comparingInt(ids -> ids.length));
+            int[] matches = termMatches.isEmpty() ? published.stream().toArray() : termMatches.get(0);
+            for (int i = 1; i < termMatches.size() && matches.length > 0; i++) {
+                matches = PostingList.intersect(matches, termMatches.get(i));
+            }
+
+            final List<BitSet> inCategories = categoryIds == null ? null : categoryIds.stream()
+                    .map(categories::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            final List<Long> result = new ArrayList<>();
+            for (int doc : matches) {
+                if (!published.get(doc)) continue;
+                if (inCategories != null && inCategories.stream().noneMatch(category -> category.get(doc))) continue;
+                if (isPaid != null && isPaid != paid.get(doc)) continue;
+
+                if (result.size() == maxCandidates) return Optional.empty();
+                result.add((long) doc);
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Document document) {
+        lock.writeLock().lock();
+        try {
+            if (overflow) return;
+
+            if (ready) {
+                reindex(document);
+            } else {
+                pending.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Удалить старые записи события и добавить новые; вызывается под блокировкой записи */
+    private boolean reindex(Document document) {
+        remove(document.id);
+        return !document.isPublished || add(document);
+    }
+
+    /**
+     * Вызывается под блокировкой записи
+     * @return false, если id события не помещается в битовую карту и индекс отключен
+     */
+    private boolean add(Document document) {
+        if (document.id > Integer.MAX_VALUE) {
+            log.warn("Event id {} does not fit the search index, database search is used", document.id);
+            ready = false;
+            overflow = true;
+            pending.clear();
+            return false;
+        }
+        final int doc = (int) document.id;
+        final Set<String> words = new HashSet<>();
+        for (String text : new String[]{document.title, document.annotation, document.description}) {
+            words.addAll(FullTextQuery.words(text));
+        }
+        final String[] keys = new String[words.size()];
+        int i = 0;
+        for (String word : words) {
+//            в списке слов события хранится тот же экземпляр строки, что и ключ словаря
+            final Map.Entry<String, PostingList> entry = postings.ceilingEntry(word);
+            final PostingList postingList;
+            if (entry != null && entry.getKey().equals(word)) {
+                keys[i++] = entry.getKey();
+                postingList = entry.getValue();
+            } else {
+                keys[i++] = word;
+                postingList = new PostingList();
+                postings.put(word, postingList);
+            }
+            postingList.add(doc);
+        }
+        documents.put(doc, new IndexedDocument(keys, document.categoryId));
+        if (document.categoryId != null) categories.computeIfAbsent(document.categoryId, c -> new BitSet()).set(doc);
+        paid.set(doc, Boolean.TRUE.equals(document.isPaid));
+        published.set(doc);
+        return true;
+    }
+
+    /** Убрать событие только из списков его слов; вызывается под блокировкой записи */
+    private void remove(long id) {
+        if (id > Integer.MAX_VALUE) return;
+
+        final int doc = (int) id;
+        final IndexedDocument indexed = documents.remove(doc);
+        if (indexed == null) return;
+
+        for (String word : indexed.words) {
+            final PostingList postingList = postings.get(word);
+            postingList.remove(doc);
+            if (postingList.isEmpty()) postings.remove(word);
+        }
+        if (indexed.categoryId != null) {
+            final BitSet category = categories.get(indexed.categoryId);
+            if (category != null) category.clear(doc);
+        }
+        paid.clear(doc);
+        published.clear(doc);
+    }
+
+    /** Слова и категория проиндексированного события */
+    @RequiredArgsConstructor
+    private static final class IndexedDocument {
+        private final String[] words;
+        private final Long categoryId;
+    }
+
+    /** Индексируемые поля события на момент изменения */
+    @RequiredArgsConstructor
+    private static final class Document {
+        private final long id;
+        private final boolean isPublished;
+        private final String title;
+        private final String annotation;
+        private final String description;
+        private final Long categoryId;
+        private final Boolean isPaid;
+    }
+
+    public enum Mode {
+        /** Полнотекстовый поиск в БД */
+        DATABASE,
+        /** Отбор кандидатов по индексу в памяти */
+        INDEX
+    }
+}
@@ -6,6 +6,8 @@ import ru.practicum.dto.event.NewEventDto;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.dto.event.UpdateEventUserRequest;
 import ru.practicum.enums.SortType;
+import ru.practicum.filter.GeoArea;
+import ru.practicum.utils.CursorPage;
 import ru.practicum.model.Event;
 
 import javax.servlet.http.HttpServletRequest;
@@ -62,7 +64,8 @@ public interface EventService {
      * @param rangeStart дата и время не раньше которых должно произойти событие
      * @param rangeEnd дата и время не позже которых должно произойти событие
      * @param onlyAvailable только события у которых не исчерпан лимит запросов на участие
-     * @param sort Вариант сортировки: по дате события или по количеству просмотров
+     * @param area только события в круге (null - без ограничения по месту)
+     * @param sort Вариант сортировки: по дате события, по количеству просмотров или по расстоянию до центра area
      * @param from количество событий, которые нужно пропустить для формирования текущего набора default: 0
      * @param size количество событий в наборе
      * @param request
@@ -70,9 +73,24 @@ public interface EventService {
      */
     List<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid,
                                            LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                           Boolean onlyAvailable, SortType sort,
+                                           Boolean onlyAvailable, GeoArea area, SortType sort,
                                            Integer from, Integer size, HttpServletRequest request);
 
+    /**
+     * Получение опубликованных событий постранично по курсору (keyset): события упорядочены по (eventDate, id)
+     * или по (views desc, id), следующая страница начинается сразу после последнего события предыдущей.<br>
+     * Стоимость любой страницы такая же, как первой, а новые публикации не сдвигают уже выданные страницы
+     * @param area только события в круге (null - без ограничения по месту)
+     * @param sort сортировка: по дате события (по умолчанию) или по количеству просмотров
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы (пустая строка - первая страница)
+     * @param size количество событий в наборе
+     * @return события и курсор следующей страницы
+     */
+    CursorPage<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid,
+                                           LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                           Boolean onlyAvailable, GeoArea area, SortType sort,
+                                           String cursor, Integer size, HttpServletRequest request);
+
 
     /**
      * Получение подробной информации об опубликованном событии по его идентификатору
@@ -1,5 +1,6 @@
 package ru.practicum.service.event;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -20,27 +21,34 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.exception.ValidateException;
 import ru.practicum.filter.EventFilter;
 import ru.practicum.filter.EventPredicate;
+import ru.practicum.filter.FullTextQuery;
+import ru.practicum.filter.GeoArea;
 import ru.practicum.mapper.EventMapper;
 import ru.practicum.model.Category;
 import ru.practicum.model.Event;
 import ru.practicum.model.Location;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.FriendFeedRepository;
+import ru.practicum.repository.FriendParticipationRepository;
+import ru.practicum.service.OptimisticLockRetry;
 import ru.practicum.service.category.CategoryService;
 import ru.practicum.service.location.LocationService;
 import ru.practicum.service.stats.StatsService;
+import ru.practicum.service.stats.ViewCounts;
 import ru.practicum.service.user.UserService;
 import ru.practicum.utils.Constants;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
 import ru.practicum.utils.QPredicate;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static ru.practicum.enums.EventState.*;
@@ -49,7 +57,6 @@ import static ru.practicum.enums.EventStateAction.PUBLISH_EVENT;
 import static ru.practicum.enums.EventStateAction.REJECT_EVENT;
 import static ru.practicum.enums.EventStateAction.SEND_TO_REVIEW;
 import static ru.practicum.utils.Constants.EVENT_WITH_ID_D_WAS_NOT_FOUND;
-import static ru.practicum.utils.Constants.START;
 import static ru.practicum.utils.Constants.THE_REQUIRED_OBJECT_WAS_NOT_FOUND;
 
 @Service
@@ -57,11 +64,15 @@ import static ru.practicum.utils.Constants.THE_REQUIRED_OBJECT_WAS_NOT_FOUND;
 public class EventServiceImpl implements EventService {
     private static final String EVENT_DATE_AND_TIME_IS_BEFORE = "Event date and time cannot be earlier than %d hours from the";
     private final EventRepository eventRepository;
+    private final FriendFeedRepository friendFeedRepository;
+    private final FriendParticipationRepository friendParticipationRepository;
 
     private final UserService userService;
     private final CategoryService categoryService;
     private final LocationService locationService;
     private final StatsService statsService;
+    private final EventSearchIndex searchIndex;
+    private final OptimisticLockRetry retry;
 
     @Override
     @Transactional
@@ -112,12 +123,7 @@ public class EventServiceImpl implements EventService {
                 .build();
         final Predicate predicate = EventPredicate.getAndEventPredicate(filter);
 
-        final List<Event> events = (predicate == null)
-                ? eventRepository.findAll(page).getContent()
-                : eventRepository.findAll(predicate, page).getContent();
-        return events.stream()
-                .map(EventMapper::toFullDto)
-                .collect(Collectors.toList());
+        return eventRepository.findFullDtos(predicate, page);
     }
 
 
@@ -129,14 +135,16 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public EventFullDto getPublishedEvent(long eventId, HttpServletRequest request) {
+//        запрос просмотров к сервису статистики идет параллельно с запросом события из БД
+        final CompletableFuture<ViewCounts> viewStats = statsService.getMapAsync(request, true);
         final Event event = eventRepository.findByIdAndState(eventId, PUBLISHED)
                 .orElseThrow(() -> new NotFoundException(
                         String.format(EVENT_WITH_ID_D_WAS_NOT_FOUND, eventId),
                         THE_REQUIRED_OBJECT_WAS_NOT_FOUND));
 
         statsService.save(request);
-        final Map<String, Long> mapViewStats = statsService.getMap(request, true);
-        return EventMapper.toFullDto(event, mapViewStats.getOrDefault(request.getRequestURI(), 0L));
+        final ViewCounts viewCounts = viewStats.join();
+        return EventMapper.toFullDto(event, viewCounts.get(request.getRequestURI()), viewCounts.isStale());
     }
 
     /**
@@ -153,35 +161,79 @@ public class EventServiceImpl implements EventService {
     public List<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid,
                                                   LocalDateTime rangeStart, LocalDateTime rangeEnd,
                                                   Boolean onlyAvailable,
-                                                  SortType sort,//по дате события или по количеству просмотров
+                                                  GeoArea area,
+                                                  SortType sort,//по дате события, количеству просмотров или расстоянию
                                                   Integer from, Integer size, HttpServletRequest request) {
         confirmStartBeforeEnd(rangeStart, rangeEnd);
+        if (sort == SortType.DISTANCE && area == null) {
+            throw new ValidateException("Sort by DISTANCE requires 'lat', 'lon' and 'radius'");
+        }
 
         final PageRequest page = getPageRequest(sort, from, size);
 
-        final List<Predicate> predicateList = getPredicates(text, categories, paid, rangeStart, rangeEnd, onlyAvailable);
+        final String query = FullTextQuery.of(text);
+        final List<Long> candidates = findCandidates(text, categories, paid);
+        if (candidates != null && candidates.isEmpty()) {
+            statsService.save(request);
+            return Collections.emptyList();
+        }
+        final List<Predicate> predicateList =
+                getPredicates(query, candidates, categories, paid, rangeStart, rangeEnd, onlyAvailable, area);
         final Predicate predicate = QPredicate.buildAnd(predicateList);
-        final List<Event> events = eventRepository.findAll(predicate, page).getContent();
+        final OrderSpecifier<?> order = getOrder(sort, query, area);
+        final List<EventShortDto> events = (order == null)
+                ? eventRepository.findShortDtos(predicate, page)
+                : eventRepository.findShortDtos(predicate, order, page);
 
         statsService.save(request);
         if (events.isEmpty()) return Collections.emptyList();
 
+        return withViews(events, request);
+    }
 
-        final Map<String, Long> mapViewStats = getViewStats(request, events, false);
-        List<EventShortDto> eventShortDtoList = events.stream()
-                .map(event -> EventMapper.toShortDto(event, getView(request, mapViewStats, event.getId())))
-                .collect(Collectors.toList());
+    @Override
+    public CursorPage<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid,
+                                                        LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                        Boolean onlyAvailable, GeoArea area, SortType sort,
+                                                        String cursor, Integer size, HttpServletRequest request) {
+        confirmStartBeforeEnd(rangeStart, rangeEnd);
+        final SortType sortType = (sort == null) ? SortType.EVENT_DATE : sort;
+        if (sortType == SortType.DISTANCE) {
+            throw new ValidateException("Sort by DISTANCE is not supported with cursor");
+        }
+        final EventCursor after = cursor.isEmpty() ? null : EventCursor.decode(cursor);
+        if (after != null && after.getSort() != sortType) {
+            throw new ValidateException(String.format("Cursor was issued for sort by %s", after.getSort()));
+        }
 
-        return needSortByViews(sort)
-                ? getSortedList(eventShortDtoList)
-                : eventShortDtoList;
+        final List<Long> candidates = findCandidates(text, categories, paid);
+        if (candidates != null && candidates.isEmpty()) {
+            statsService.save(request);
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        final List<Predicate> predicateList =
+                getPredicates(FullTextQuery.of(text), candidates, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                        area);
+        final Predicate predicate = QPredicate.buildAnd(predicateList);
+        final List<EventShortDto> events = eventRepository.findShortDtosAfter(predicate, sortType, after, size);
 
+        statsService.save(request);
+        if (events.isEmpty()) return new CursorPage<>(Collections.emptyList(), null);
+
+//        курсор считается до подстановки актуальных просмотров: порядок задает счетчик events.views
+        final String nextCursor = (events.size() == size)
+                ? EventCursor.of(sortType, events.get(events.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(withViews(events, request), nextCursor);
     }
 
     @Override
-    @Transactional
     //Изменение события добавленного текущим пользователем privet api
     public EventFullDto updateEventByUser(UpdateEventUserRequest body, long userId, long eventId) {
+        return retry.execute(() -> updateByUser(body, userId, eventId));
+    }
+
+    private EventFullDto updateByUser(UpdateEventUserRequest body, long userId, long eventId) {
         userService.checkExistById(userId);
         final Event event = getEventForUser(userId, eventId);
 
@@ -207,12 +259,16 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    @Transactional
     public EventFullDto updateEventByAdmin(UpdateEventAdminRequest body, long eventId) {
+        return retry.execute(() -> updateByAdmin(body, eventId));
+    }
+
+    private EventFullDto updateByAdmin(UpdateEventAdminRequest body, long eventId) {
         final Event event = eventRepository.findById(eventId).orElseThrow(
                 () -> new NotFoundException(String.format(Constants.EVENT_WITH_ID_D_WAS_NOT_FOUND, eventId),
                         Constants.THE_REQUIRED_OBJECT_WAS_NOT_FOUND)
         );
+        final EventState previousState = event.getState();
 
         updateData(
                 event, body.getAnnotation(),
@@ -229,9 +285,26 @@ public class EventServiceImpl implements EventService {
         updateStatusByAdmin(body, event);
 
         final Event savedEvent = eventRepository.save(event);
+        searchIndex.update(savedEvent);
+        updateFriendFeed(savedEvent, previousState, body.getEventDate() != null);
         return EventMapper.toFullDto(savedEvent);
     }
 
+    /**
+     * Разослать событие в ленты подписчиков при публикации, перенести в лентах и в индексе "друзья идут"
+     * при изменении даты
+     */
+    private void updateFriendFeed(Event event, EventState previousState, boolean eventDateChanged) {
+        if (!PUBLISHED.equals(event.getState())) return;
+
+        if (!PUBLISHED.equals(previousState)) {
+            friendFeedRepository.addEvent(event.getId(), event.getInitiator().getId(), event.getEventDate());
+        } else if (eventDateChanged) {
+            friendFeedRepository.moveEvent(event.getId(), event.getEventDate());
+            friendParticipationRepository.moveEvent(event.getId(), event.getEventDate());
+        }
+    }
+
     @Override
     public Event findEventById(long eventId) {
         return eventRepository.findById(eventId)
@@ -245,28 +318,37 @@ public class EventServiceImpl implements EventService {
         return eventRepository.findAllById(eventIdList);
     }
 
-    private Map<String, Long> getViewStats(HttpServletRequest request, List<Event> events, boolean unique) {
-        final LocalDateTime start = events.stream()
-                .map(Event::getPublishedOn)
-                .min(LocalDateTime::compareTo)
-                .orElse(START);
-        final LocalDateTime end = LocalDateTime.now();
-        final List<Long> collect = events.stream()
-                .map(Event::getId)
+    /** Подставить просмотры событий за всё время (до публикации события просмотров нет), из кэша просмотров */
+    private List<EventShortDto> withViews(List<EventShortDto> events, HttpServletRequest request) {
+        final List<Long> ids = events.stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+        final ViewCounts viewCounts = statsService.getMap(request, ids, false);
+        return events.stream()
+                .map(event -> EventMapper.withViews(event, getView(request, viewCounts, event.getId()),
+                        viewCounts.isStale()))
                 .collect(Collectors.toList());
-        return statsService.getMap(request, collect, start, end, unique);
     }
 
-    private boolean needSortByViews(SortType sort) {
-        return sort != null && sort.equals(SortType.VIEWS);
+    /**
+     * Кандидаты для поиска по тексту из индекса в памяти
+     * @return id событий или null, если индекс не используется и текст ищется в БД
+     */
+    private List<Long> findCandidates(String text, List<Long> categories, Boolean paid) {
+        final List<String> terms = FullTextQuery.terms(text);
+        if (terms.isEmpty() || !searchIndex.isReady()) return null;
+
+        return searchIndex.search(terms, categories, paid).orElse(null);
     }
 
-    private List<Predicate> getPredicates(String text,
+    private List<Predicate> getPredicates(String query,
+                                          List<Long> candidates,
                                           List<Long> categories,
                                           Boolean paid,
                                           LocalDateTime rangeStart,
                                           LocalDateTime rangeEnd,
-                                          Boolean onlyAvailable) {
+                                          Boolean onlyAvailable,
+                                          GeoArea area) {
         List<Predicate> predicateList = new ArrayList<>();
 
         final EventFilter mainFilter = EventFilter.builder()
@@ -280,26 +362,44 @@ public class EventServiceImpl implements EventService {
         final Predicate mainPredicate = EventPredicate.getAndEventPredicate(mainFilter);
         predicateList.add(mainPredicate);
 
-        if (text != null && !text.isBlank()) {
-            predicateList.add(EventPredicate.getTextFilter(text));
+        if (candidates != null) {
+            predicateList.add(EventPredicate.getIdIn(candidates));
+        } else if (query != null) {
+            predicateList.add(EventPredicate.getTextFilter(query));
         }
 
         if (onlyAvailable != null && onlyAvailable) {
             predicateList.add(EventPredicate.getAvailable());
         }
+
+        if (area != null) {
+            predicateList.add(EventPredicate.getWithinArea(area));
+        }
         return predicateList;
     }
 
+    /**
+     * Порядок, который не выразить сортировкой по полю события:
+     * по расстоянию до центра круга, а без явной сортировки результаты поиска по тексту - по релевантности
+     * @return null, если достаточно сортировки страницы
+     */
+    private static OrderSpecifier<?> getOrder(SortType sort, String query, GeoArea area) {
+        if (sort == SortType.DISTANCE) return EventPredicate.getDistance(area).asc();
+        if (sort == null && query != null) return EventPredicate.getTextRank(query).desc();
+        return null;
+    }
+
     private PageRequest getPageRequest(SortType sort, Integer from, Integer size) {
-        return (sort == null)
+        return (sort == null || sort == SortType.DISTANCE)
                 ? PageRequest.of(from / size, size)
                 : getPageRequestWithSort(from, size, sort);
     }
 
+    /** Сортировка по просмотрам - по счетчику events.views, который синхронизирует {@link EventViewsSyncJob} */
     private PageRequest getPageRequestWithSort(Integer from, Integer size, SortType sortType) {
         return sortType.equals(SortType.VIEWS)
-                ? PageRequest.of(from / size, size)
-                : PageRequest.of(from / size, size).withSort(Sort.by(sortType.getName()));
+                ? PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id")))
+                : PageRequest.of(from / size, size).withSort(Sort.by(sortType.getName(), "id"));
     }
 
     /** Получение списка статусов */
@@ -310,9 +410,8 @@ public class EventServiceImpl implements EventService {
     }
 
     /** Получить просмотры события */
-    private static long getView(HttpServletRequest request, Map<String, Long> viewStats, Long eventId) {
-        final String uri = request.getRequestURI() + "/" + eventId;
-        return viewStats.getOrDefault(uri, 0L);
+    private static long getView(HttpServletRequest request, ViewCounts viewCounts, Long eventId) {
+        return viewCounts.get(request.getRequestURI() + "/" + eventId);
     }
 
     /** Получить событие пользователя */
@@ -439,9 +538,4 @@ public class EventServiceImpl implements EventService {
         }
     }
 
-    private List<EventShortDto> getSortedList(List<EventShortDto> eventShortDtoList) {
-        return eventShortDtoList.stream()
-                .sorted(Comparator.comparing(EventShortDto::getViews))
-                .collect(Collectors.toList());
-    }
 }
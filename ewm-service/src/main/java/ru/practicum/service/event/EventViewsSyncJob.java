@@ -0,0 +1,74 @@
+package ru.practicum.service.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.exception.ResponseException;
+import ru.practicum.repository.EventRepository;
+import ru.practicum.service.stats.StatsService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static ru.practicum.enums.EventState.PUBLISHED;
+
+/**
+ * Синхронизация счетчика просмотров опубликованных событий (events.views) с сервисом статистики.<br>
+ * - события обходятся пачками по id, для каждой пачки один запрос к сервису статистики<br>
+ * - пишутся только изменившиеся значения<br>
+ * - счетчик нужен для сортировки по просмотрам в БД (ORDER BY views DESC) и отстает не больше чем на интервал синхронизации
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "stats.views.sync.enabled", matchIfMissing = true)
+public class EventViewsSyncJob {
+    static final String EVENT_URI = "/events/";
+
+    private final EventRepository eventRepository;
+    private final StatsService statsService;
+    private final int batchSize;
+
+    public EventViewsSyncJob(EventRepository eventRepository, StatsService statsService,
+                             @Value("${stats.views.sync.batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.statsService = statsService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.views.sync.interval-ms:60000}")
+    public void run() {
+        try {
+            final int updated = syncViews();
+            if (updated > 0) log.debug("Views updated for {} events", updated);
+        } catch (ResponseException e) {
+            log.warn("Views synchronization failed: {}", e.getMessage());
+        }
+    }
+
+    /** @return количество событий, у которых изменилось количество просмотров */
+    int syncViews() {
+        final PageRequest page = PageRequest.of(0, batchSize);
+        int updated = 0;
+        long afterId = 0;
+        List<EventRepository.EventViews> events = eventRepository.findViewsByStateAndIdAfter(PUBLISHED, afterId, page);
+        while (!events.isEmpty()) {
+            final List<String> uris = events.stream()
+                    .map(event -> EVENT_URI + event.getId())
+                    .collect(Collectors.toList());
+            final Map<String, Long> views = statsService.getMap(uris, false);
+            for (EventRepository.EventViews event : events) {
+                final long count = views.getOrDefault(EVENT_URI + event.getId(), 0L);
+                if (count != event.getViews()) {
+                    updated += eventRepository.updateViews(event.getId(), count);
+                }
+            }
+            afterId = events.get(events.size() - 1).getId();
+            events = eventRepository.findViewsByStateAndIdAfter(PUBLISHED, afterId, page);
+        }
+        return updated;
+    }
+}
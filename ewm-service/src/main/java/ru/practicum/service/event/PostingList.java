@@ -0,0 +1,103 @@
+package ru.practicum.service.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Список id событий, в которых встречается слово, для {@link EventSearchIndex}: отсортированный массив int
+ * без повторов.<br>
+ * Занимает 4 байта на вхождение, поэтому редкие слова стоят несколько байт, а не битовую карту на все события
+ */
+final class PostingList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Добавить id; при построении индекса события идут по возрастанию id, и это добавление в конец */
+    void add(int id) {
+        int position = size;
+        if (size > 0 && ids[size - 1] >= id) {
+            position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) return;
+            position = -position - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        final int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) return;
+
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    /** Освободить запас емкости после построения индекса */
+    void trimToSize() {
+        if (ids.length != size) {
+            ids = size == 0 ? EMPTY : Arrays.copyOf(ids, size);
+        }
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /** Объединение списков (все слова с одним префиксом): отсортированный массив id без повторов */
+    static int[] union(Collection<PostingList> lists) {
+        if (lists.size() == 1) return lists.iterator().next().toArray();
+
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size;
+        }
+        final int[] all = new int[total];
+        int offset = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.ids, 0, all, offset, list.size);
+            offset += list.size;
+        }
+        Arrays.sort(all);
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (count == 0 || all[count - 1] != all[i]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    /** Пересечение отсортированных массивов слиянием */
+    static int[] intersect(int[] a, int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -3,22 +3,44 @@ package ru.practicum.service.location;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.practicum.dto.location.LocationDto;
-import ru.practicum.mapper.LocationMapper;
+import ru.practicum.exception.ValidateException;
 import ru.practicum.model.Location;
 import ru.practicum.repository.LocationRepository;
+import ru.practicum.service.ReferenceDataCache;
+import ru.practicum.utils.Geohash;
 
 @Service
 @RequiredArgsConstructor
 public class LocationServiceImpl implements LocationService {
     private final LocationRepository locationRepository;
+    private final ReferenceDataCache cache;
 
+    /**
+     * Найти или создать место: повторные координаты берутся из кэша без обращения к БД,
+     * новые - одним запросом upsert
+     */
     @Override
     public Location findLocation(LocationDto body) {
-        return locationRepository.findByLatAndLon(body.getLat(), body.getLon())
-                .orElseGet(() -> saveLocation(body));
+        if (body.getLat() == null || body.getLon() == null) {
+            throw new ValidateException("Location lat and lon must be specified.");
+        }
+        final float lat = body.getLat();
+        final float lon = body.getLon();
+        final String geohash = Geohash.encode(lat, lon, Geohash.MAX_PRECISION);
+        final long locationId = cache.getLocationId(lat, lon)
+                .orElseGet(() -> upsert(lat, lon, geohash));
+        return new Location(locationId, lat, lon, geohash);
     }
 
-    private Location saveLocation(LocationDto body) {
-        return locationRepository.save(LocationMapper.fromDto(body));
+    private long upsert(float lat, float lon, String geohash) {
+        Long locationId = locationRepository.upsert(lat, lon, geohash);
+        if (locationId == null) {
+            locationId = locationRepository.findByLatAndLon(lat, lon)
+                    .map(Location::getId)
+                    .orElseThrow(() -> new IllegalStateException(
+                            String.format("Location lat=%f, lon=%f was not saved", lat, lon)));
+        }
+        cache.putLocationId(lat, lon, locationId);
+        return locationId;
     }
 }
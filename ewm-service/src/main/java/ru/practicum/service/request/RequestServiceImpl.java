@@ -15,19 +15,19 @@ import ru.practicum.model.Event;
 import ru.practicum.model.Request;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.FriendParticipationRepository;
 import ru.practicum.repository.RequestRepository;
+import ru.practicum.service.OptimisticLockRetry;
 import ru.practicum.service.event.EventService;
 import ru.practicum.service.user.UserService;
 import ru.practicum.utils.Constants;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static java.lang.Boolean.FALSE;
 import static ru.practicum.enums.RequestStatus.CANCELED;
 import static ru.practicum.enums.RequestStatus.CONFIRMED;
 import static ru.practicum.enums.RequestStatus.PENDING;
@@ -39,9 +39,11 @@ public class RequestServiceImpl implements RequestService {
 
     private final RequestRepository requestRepository;
     private final EventRepository eventRepository;
+    private final FriendParticipationRepository friendParticipationRepository;
 
     private final UserService userService;
     private final EventService eventService;
+    private final OptimisticLockRetry retry;
 
     /**
      * - нельзя добавить повторный запрос (Ожидается код ошибки 409)<p>
@@ -91,9 +93,13 @@ public class RequestServiceImpl implements RequestService {
                 .build();
 
         final Request savedRequest = requestRepository.save(newRequest);
+//        место занимается последним запросом транзакции: блокировка строки события держится только до коммита,
+//        а при исчерпанном лимите откат транзакции удаляет и созданную заявку
+        if (newRequest.getStatus().equals(CONFIRMED) && eventRepository.incrementConfirmedRequests(eventId) == 0) {
+            throw new ConflictException("Event confirmed limit reached.", "Conflict exception");
+        }
         if (newRequest.getStatus().equals(CONFIRMED)) {
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-            eventRepository.save(event);
+            friendParticipationRepository.addParticipation(userId, eventId);
         }
 
         return RequestMapper.toDto(savedRequest);
@@ -101,6 +107,10 @@ public class RequestServiceImpl implements RequestService {
 
     @Override
     public ParticipationRequestDto cancelRequest(long userId, long requestId) {
+        return retry.execute(() -> cancel(userId, requestId));
+    }
+
+    private ParticipationRequestDto cancel(long userId, long requestId) {
         userService.checkExistById(userId);
 
         final Request request = requestRepository.findByIdAndRequesterId(requestId, userId)
@@ -108,6 +118,9 @@ public class RequestServiceImpl implements RequestService {
                         String.format("Request with id=%d for userId=%d was not found.", requestId, userId),
                         Constants.THE_REQUIRED_OBJECT_WAS_NOT_FOUND));
 
+        if (request.getStatus().equals(CONFIRMED) && !request.isPrivate()) {
+            friendParticipationRepository.removeParticipation(userId, request.getEvent().getId());
+        }
         request.setStatus(CANCELED);
         requestRepository.save(request);
 
@@ -116,6 +129,10 @@ public class RequestServiceImpl implements RequestService {
 
     @Override
     public List<ParticipationRequestDto> changeVisibilityEventParticipation(long userId, List<Long> ids, boolean hide) {
+        return retry.execute(() -> changeVisibility(userId, ids, hide));
+    }
+
+    private List<ParticipationRequestDto> changeVisibility(long userId, List<Long> ids, boolean hide) {
         userService.checkExistById(userId);
 
         final List<Request> requestList = requestRepository.findAllById(ids);
@@ -129,7 +146,17 @@ public class RequestServiceImpl implements RequestService {
         if (!allMatchStatus) {
             throw new ConflictException("Participation in events must be confirmed.");
         }
-        requestList.forEach(f -> f.setPrivate(hide));
+        // друзья пользователя видят только открытое участие: индекс меняется для заявок, у которых видимость изменилась
+        requestList.stream()
+                .filter(request -> request.isPrivate() != hide)
+                .forEach(request -> {
+                    if (hide) {
+                        friendParticipationRepository.removeParticipation(userId, request.getEvent().getId());
+                    } else {
+                        friendParticipationRepository.addParticipation(userId, request.getEvent().getId());
+                    }
+                    request.setPrivate(hide);
+                });
         requestRepository.saveAll(requestList);
         return requestList.stream()
                 .map(RequestMapper::toDto)
@@ -175,75 +202,92 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException(String.format("User(id=%d) is not the initiator of the event(id=%d).", userId, eventId));
         }
 
-        final List<Long> requestIds = body.getRequestIds();
+        final List<Long> requestIds = body.getRequestIds().stream()
+                .distinct()
+                .collect(Collectors.toList());
 
         final long participantLimit = event.getParticipantLimit();
-        int currentConfirmed = event.getConfirmedRequests();
-        final Boolean isRequestModeration = event.getRequestModeration();
-        if (participantLimit > 0 && participantLimit == currentConfirmed) {
+        if (participantLimit > 0 && participantLimit == event.getConfirmedRequests()) {
             // нельзя подтвердить заявку, если уже достигнут лимит по заявкам на данное событие
             // (Ожидается код ошибки 409)
             throw new ConflictException(
                     "The limit on confirmations for this event has already been reached.",
                     "Conflict confirmed exception");
         }
-        //находим заявки в режиме ожидания по списку id
-        final List<Request> requestList = requestRepository.findAllByIdInAndStatus(requestIds, PENDING);
+        //находим заявки события в режиме ожидания по списку id, без загрузки сущностей
+        final List<RequestRepository.RequestView> requestList =
+                requestRepository.findViewsByIdInAndEventIdAndStatus(requestIds, eventId, PENDING);
         if (requestList.size() != requestIds.size()) {
             // статус можно изменить только у заявок, находящихся в состоянии ожидания (Ожидается код ошибки 409)
             throw new ConflictException("Status change is only possible for requests with state='PENDING'");
         }
 
-        final List<ParticipationRequestDto> rejectedList = new ArrayList<>();
-        final List<ParticipationRequestDto> confirmedDto = new ArrayList<>();
-
-
         checkStatus(newStatus);
 
         if (REJECTED.equals(newStatus)) {
-            requestList.forEach(r -> r.setStatus(REJECTED));
-            rejectedList.addAll(requestList.stream()
-                    .map(RequestMapper::toDto)
-                    .collect(Collectors.toList()));
+            updateStatus(requestIds, REJECTED);
+            return new EventRequestStatusUpdateResult(Collections.emptyList(), toDtos(requestList, REJECTED));
         }
 
-        if (CONFIRMED.equals(newStatus)) {
-            // если для события лимит заявок равен 0 или отключена пре-модерация заявок,
-            // то подтверждение заявок не требуется
-            if ((participantLimit == 0) || FALSE.equals(isRequestModeration)) {
-                requestList.forEach(r -> r.setStatus(CONFIRMED));
-                final List<ParticipationRequestDto> confirmedList = requestList.stream()
-                        .map(RequestMapper::toDto)
-                        .collect(Collectors.toList());
-                requestRepository.saveAll(requestList);
-                return new EventRequestStatusUpdateResult(confirmedList, Collections.emptyList());
+        final int confirmedCount = confirmRequests(eventId, participantLimit, requestList);
+        return new EventRequestStatusUpdateResult(
+                toDtos(requestList.subList(0, confirmedCount), CONFIRMED),
+                toDtos(requestList.subList(confirmedCount, requestList.size()), REJECTED));
+    }
+
+    /**
+     * Подтвердить заявки по возрастанию id в пределах свободных мест, остальные отклонить.<br>
+     * Места занимаются без блокировки строки события: счетчик перечитывается и увеличивается условным UPDATE,
+     * пока он не совпадет с прочитанным значением
+     * @return количество подтвержденных заявок (первые в списке)
+     */
+    private int confirmRequests(long eventId, long participantLimit, List<RequestRepository.RequestView> requests) {
+        int confirmed;
+        int available;
+        do {
+            confirmed = eventRepository.findConfirmedRequestsById(eventId);
+            available = participantLimit == 0
+                    ? requests.size()
+                    : (int) Math.min(requests.size(), Math.max(participantLimit - confirmed, 0));
+            if (available == 0) {
+                throw new ConflictException(
+                        "The limit on confirmations for this event has already been reached.",
+                        "Conflict confirmed exception");
             }
+        } while (eventRepository.addConfirmedRequests(eventId, confirmed, available) == 0);
+
+        updateStatus(ids(requests.subList(0, available)), CONFIRMED);
+        requests.subList(0, available).stream()
+                .filter(request -> !request.getIsPrivate())
+                .forEach(request -> friendParticipationRepository.addParticipation(request.getRequesterId(), eventId));
+        if (participantLimit > 0 && confirmed + available >= participantLimit) {
             // - если при подтверждении данной заявки, лимит заявок для события исчерпан,
-            // то все неподтверждённые заявки необходимо отклонить
-
-            for (Request r : requestList) {
-                if (currentConfirmed < participantLimit) {
-                    r.setStatus(CONFIRMED);
-                    currentConfirmed++;
-                } else {
-                    r.setStatus(REJECTED);
-                }
-            }
+            // то все неподтверждённые заявки необходимо отклонить (в том числе не поместившиеся из списка)
+            requestRepository.updateStatusByEventId(eventId, PENDING, REJECTED);
+        }
+        return available;
+    }
+
+    private void updateStatus(List<Long> requestIds, RequestStatus newStatus) {
+        if (requestIds.isEmpty()) return;
 
-            event.setConfirmedRequests(currentConfirmed);
-            eventRepository.save(event);
-
-            confirmedDto.addAll(requestList.stream()
-                    .filter(RequestServiceImpl::isConfirmedRequest)
-                    .map(RequestMapper::toDto)
-                    .collect(Collectors.toList()));
-            rejectedList.addAll(requestList.stream()
-                    .filter(RequestServiceImpl::isRejectedRequest)
-                    .map(RequestMapper::toDto)
-                    .collect(Collectors.toList()));
+        if (requestRepository.updateStatus(requestIds, PENDING, newStatus) != requestIds.size()) {
+            // заявку успели обработать параллельно: транзакция откатывается целиком
+            throw new ConflictException("Status change is only possible for requests with state='PENDING'");
         }
-        requestRepository.saveAll(requestList);
-        return new EventRequestStatusUpdateResult(confirmedDto, rejectedList);
+    }
+
+    private static List<Long> ids(List<RequestRepository.RequestView> requests) {
+        return requests.stream()
+                .map(RequestRepository.RequestView::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static List<ParticipationRequestDto> toDtos(List<RequestRepository.RequestView> requests,
+                                                        RequestStatus status) {
+        return requests.stream()
+                .map(r -> RequestMapper.toDto(r, status))
+                .collect(Collectors.toList());
     }
 
     private void checkStatus(RequestStatus newStatus) {
@@ -253,14 +297,4 @@ public class RequestServiceImpl implements RequestService {
                     availableStats.stream().sorted().collect(Collectors.toList())));
         }
     }
-
-
-    private static boolean isConfirmedRequest(Request r) {
-        return CONFIRMED.equals(r.getStatus());
-    }
-
-    private static boolean isRejectedRequest(Request r) {
-        return REJECTED.equals(r.getStatus());
-    }
-
 }
@@ -0,0 +1,93 @@
+package ru.practicum.service.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Автоматический выключатель запросов к сервису статистики.<br>
+ * - CLOSED: запросы проходят; после failureThreshold ошибок подряд переходит в OPEN<br>
+ * - OPEN: запросы сразу отклоняются; через openMs пропускается один пробный запрос (HALF_OPEN)<br>
+ * - HALF_OPEN: пока идет пробный запрос, остальные отклоняются; успех - CLOSED, ошибка - снова OPEN
+ */
+@Slf4j
+@Component
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    @Autowired
+    public CircuitBreaker(@Value("${stats.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${stats.circuit-breaker.open-ms:10000}") long openMs) {
+        this(failureThreshold, openMs, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMs, LongSupplier clock) {
+        if (failureThreshold <= 0 || openMs <= 0) {
+            throw new IllegalArgumentException("Circuit breaker failure threshold and open time must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.clock = clock;
+    }
+
+    /**
+     * Можно ли выполнить запрос
+     * @return false, если запрос нужно сразу отклонить
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openNanos) return false;
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                log.info("Stats circuit breaker is half-open, probing stats service");
+                return true;
+            default:
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("Stats circuit breaker is closed");
+        }
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            log.warn("Stats circuit breaker is open after {} failures", failures);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,169 @@
+package ru.practicum.service.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.client.StatsClient;
+import ru.practicum.dto.EndpointHitDto;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Буфер просмотров для сервиса статистики.<br>
+ * - запросы пользователей только кладут просмотр в ограниченную очередь и не ждут сервер статистики<br>
+ * - фоновый поток отправляет просмотры пачками: как только набралось batchSize штук или прошло lingerMs<br>
+ * - при переполнении очереди просмотр отбрасывается согласно {@link OverflowPolicy}<br>
+ * - при остановке приложения оставшиеся просмотры отправляются
+ */
+@Slf4j
+@Component
+public class HitBuffer {
+    private final StatsClient statsClient;
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long shutdownTimeoutMs;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public HitBuffer(StatsClient statsClient,
+                     @Value("${stats.hits.capacity:10000}") int capacity,
+                     @Value("${stats.hits.batch-size:200}") int batchSize,
+                     @Value("${stats.hits.linger-ms:500}") long lingerMs,
+                     @Value("${stats.hits.shutdown-timeout-ms:5000}") long shutdownTimeoutMs,
+                     @Value("${stats.hits.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || batchSize <= 0 || lingerMs <= 0) {
+            throw new IllegalArgumentException("Hit buffer capacity, batch size and linger time must be positive");
+        }
+        this.statsClient = statsClient;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "stats-hit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Добавить просмотр в буфер без блокировки
+     * @return false, если просмотр был отброшен
+     */
+    public boolean offer(EndpointHitDto hit) {
+        if (queue.offer(hit)) return true;
+
+        if (OverflowPolicy.DROP_OLDEST.equals(overflowPolicy)) {
+            queue.poll();
+            dropped.incrementAndGet();
+            if (queue.offer(hit)) return true;
+        }
+        dropped.incrementAndGet();
+        log.warn("Hit buffer is full, hit was dropped: {}", hit);
+        return false;
+    }
+
+    /** Отправить все накопленные просмотры в текущем потоке */
+    public void flush() {
+        final List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send(new ArrayList<>(batch));
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.info("Hit buffer stopped: sent={}, dropped={}, failed={}", sent.get(), dropped.get(), failed.get());
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void run() {
+        final List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                final EndpointHitDto first = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    final EndpointHitDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                send(new ArrayList<>(batch));
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(new ArrayList<>(batch));
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        try {
+            statsClient.saveHits(batch);
+            sent.addAndGet(batch.size());
+        } catch (RestClientException e) {
+            failed.addAndGet(batch.size());
+            log.warn("Failed to save {} hits to stats service: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    public enum OverflowPolicy {
+        /** Отбросить новый просмотр */
+        DROP_NEWEST,
+        /** Вытеснить самый старый просмотр из буфера */
+        DROP_OLDEST
+    }
+}
@@ -4,15 +4,28 @@ import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface StatsService {
     void save(HttpServletRequest request);
 
     void save(HttpServletRequest request, List<Long> ids);
 
-    Map<String, Long> getMap(HttpServletRequest request, List<Long> collect, boolean unique);
+    /**
+     * Просмотры за всё время; если сервис статистики недоступен - последние известные значения (или 0) с признаком stale
+     */
+    ViewCounts getMap(HttpServletRequest request, List<Long> collect, boolean unique);
 
     Map<String, Long> getMap(HttpServletRequest request, List<Long> collect, LocalDateTime start, LocalDateTime end, boolean unique);
 
-    Map<String, Long> getMap(HttpServletRequest request, boolean unique);
+    ViewCounts getMap(HttpServletRequest request, boolean unique);
+
+    /** Просмотры за всё время без кэша (ошибка сервиса статистики - {@link ru.practicum.exception.ResponseException}) */
+    Map<String, Long> getMap(List<String> uris, boolean unique);
+
+    /**
+     * Просмотры uri запроса без блокировки потока: запрос к сервису статистики идет параллельно с работой вызывающего;
+     * future всегда завершается успешно (при недоступности сервиса - с признаком stale)
+     */
+    CompletableFuture<ViewCounts> getMapAsync(HttpServletRequest request, boolean unique);
 }
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import ru.practicum.client.AsyncStatsClient;
 import ru.practicum.client.StatsClient;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.dto.ViewStatsDto;
@@ -18,6 +19,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static ru.practicum.utils.Constants.END;
@@ -26,10 +29,19 @@ import static ru.practicum.utils.Constants.START;
 @Service
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     @Autowired
     private final StatsClient statsClient;
+    private final AsyncStatsClient asyncStatsClient;
+    private final HitBuffer hitBuffer;
+    private final ViewStatsCache viewStatsCache;
+    private final CircuitBreaker circuitBreaker;
     @Value(value = "${app.name}")
     private String appName;
+    @Value(value = "${stats.views.approximate-unique:false}")
+    private boolean approximateUnique;
+    @Value(value = "${stats.views.deadline-ms:300}")
+    private long deadlineMs;
 
     @Override
     public void save(HttpServletRequest request) {
@@ -41,10 +53,14 @@ public class StatsServiceImpl implements StatsService {
         ids.forEach(id -> saveHit(request.getRemoteAddr(), request.getRequestURI() + "/" + id));
     }
 
+    /** Просмотры за всё время берутся из {@link ViewStatsCache} */
     @Override
-    public Map<String, Long> getMap(HttpServletRequest request, List<Long> collect, boolean unique) {
-        final List<ViewStatsDto> viewStats = get(request, collect, START, END, unique);
-        return getGroupedMap(viewStats);
+    public ViewCounts getMap(HttpServletRequest request, List<Long> collect, boolean unique) {
+        final List<String> uris = collect.stream()
+                .map(id -> request.getRequestURI() + "/" + id)
+                .collect(Collectors.toList());
+        if (uris.isEmpty()) return new ViewCounts(new HashMap<>(), false);
+        return viewStatsCache.get(uris, unique, missing -> fetchViews(missing, unique));
     }
 
     @Override
@@ -54,9 +70,47 @@ public class StatsServiceImpl implements StatsService {
     }
 
     @Override
-    public Map<String, Long> getMap(HttpServletRequest request, boolean unique) {
-        final List<ViewStatsDto> viewStats = get(request, null, START, END, unique);
-        return getGroupedMap(viewStats);
+    public ViewCounts getMap(HttpServletRequest request, boolean unique) {
+        return viewStatsCache.get(List.of(request.getRequestURI()), unique, missing -> fetchViews(missing, unique));
+    }
+
+    @Override
+    public Map<String, Long> getMap(List<String> uris, boolean unique) {
+        if (uris.isEmpty()) return new HashMap<>();
+        return getGroupedMap(get(uris, START, END, unique));
+    }
+
+    @Override
+    public CompletableFuture<ViewCounts> getMapAsync(HttpServletRequest request, boolean unique) {
+        return viewStatsCache.getAsync(List.of(request.getRequestURI()), unique,
+                missing -> fetchViews(missing, unique));
+    }
+
+    /**
+     * Запрос просмотров за всё время к сервису статистики.<br>
+     * - пока выключатель разомкнут, запрос не отправляется<br>
+     * - ответ ждем не дольше deadlineMs, иначе запрос считается неудачным
+     */
+    private CompletableFuture<Map<String, Long>> fetchViews(List<String> uris, boolean unique) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new ResponseException("Stats service is unavailable."));
+        }
+        final CompletableFuture<List<ViewStatsDto>> future;
+        try {
+            future = asyncStatsClient.getStats(START, END, uris, unique, unique && approximateUnique);
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+                .handle((viewStats, e) -> {
+                    if (e != null) {
+                        circuitBreaker.onFailure();
+                        throw new ResponseException("Failed to get data from stats service.");
+                    }
+                    circuitBreaker.onSuccess();
+                    return getGroupedMap(filterByApp(viewStats));
+                });
     }
 
     private Map<String, Long> getGroupedMap(List<ViewStatsDto> viewStats) {
@@ -67,28 +121,31 @@ public class StatsServiceImpl implements StatsService {
 
     private List<ViewStatsDto> get(HttpServletRequest request, List<Long> ids, LocalDateTime start, LocalDateTime end,
                                    boolean unique) {
-        final ObjectMapper objectMapper = new ObjectMapper();
         final String requestURI = request.getRequestURI();
-        final List<Object> response = (ids != null)
-                ? getResponse(requestURI, ids, start, end, unique)
-                : getResponse(List.of(requestURI), start, end, unique);
+        final List<String> uris = (ids != null)
+                ? ids.stream().map(id -> requestURI + "/" + id).collect(Collectors.toList())
+                : List.of(requestURI);
+        return get(uris, start, end, unique);
+    }
+
+    private List<ViewStatsDto> get(List<String> uris, LocalDateTime start, LocalDateTime end, boolean unique) {
+        final List<Object> response = getResponse(uris, start, end, unique);
         return (response != null)
-                ? response.stream()
-                .map(object -> objectMapper.convertValue(object, ViewStatsDto.class))
-                .filter(v -> v.getApp().equals(appName)).collect(Collectors.toList())
+                ? filterByApp(response.stream()
+                .map(object -> OBJECT_MAPPER.convertValue(object, ViewStatsDto.class))
+                .collect(Collectors.toList()))
                 : Collections.emptyList();
     }
 
-
-    private List<Object> getResponse(String requestURI, List<Long> ids, LocalDateTime start, LocalDateTime end, boolean unique) {
-        final List<String> idsList = ids.stream()
-                .map(id -> requestURI + "/" + id)
+    private List<ViewStatsDto> filterByApp(List<ViewStatsDto> viewStats) {
+        return viewStats.stream()
+                .filter(v -> v.getApp().equals(appName))
                 .collect(Collectors.toList());
-        return getResponse(idsList, start, end, unique);
     }
 
     private List<Object> getResponse(List<String> idsList, LocalDateTime start, LocalDateTime end, boolean unique) {
-        final ResponseEntity<Object> response = statsClient.getStats(start, end, idsList, unique);
+        final ResponseEntity<Object> response = statsClient.getStats(start, end, idsList, unique,
+                unique && approximateUnique);
         if (response.getStatusCode() != HttpStatus.OK) {
             throw new ResponseException("Failed to get data from stats service.");
         }
@@ -102,9 +159,6 @@ public class StatsServiceImpl implements StatsService {
                 .uri(uri)
                 .timestamp(LocalDateTime.now())
                 .build();
-        final ResponseEntity<Object> response = statsClient.saveHit(dto);
-        if (response.getStatusCode() != HttpStatus.CREATED) {
-            throw new ResponseException("Failed to save data to stats service.");
-        }
+        hitBuffer.offer(dto);
     }
 }
@@ -0,0 +1,25 @@
+package ru.practicum.service.stats;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Количество просмотров по uri.<br>
+ * stale = true, если сервис статистики не ответил вовремя и значения взяты из последних известных (или 0)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ViewCounts {
+    private final Map<String, Long> views;
+    private final boolean stale;
+
+    public long get(String uri) {
+        return views.getOrDefault(uri, 0L);
+    }
+}
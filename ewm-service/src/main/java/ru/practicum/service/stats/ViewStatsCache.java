@@ -0,0 +1,156 @@
+package ru.practicum.service.stats;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Локальный кэш количества просмотров по ключу (uri, unique).<br>
+ * - запись живет ttl после загрузки, размер кэша ограничен maxSize записей<br>
+ * - отсутствующие uri загружаются одним запросом к сервису статистики;
+ * одновременные промахи по тем же uri ждут уже начатую загрузку, а не делают свою<br>
+ * - uri без просмотров тоже кэшируются (значение 0)<br>
+ * - если загрузка не удалась, возвращаются последние известные значения (или 0), помеченные как stale;
+ * такие записи живут staleTtl, чтобы не нагружать недоступный сервис, но и не задерживать восстановление<br>
+ * - статистика попаданий/промахов публикуется в метриках как кэш stats.views
+ */
+@Slf4j
+@Component
+public class ViewStatsCache {
+    private final AsyncCache<ViewKey, ViewCount> cache;
+    private final Cache<ViewKey, Long> lastKnown;
+
+    public ViewStatsCache(MeterRegistry meterRegistry,
+                          @Value("${stats.views.cache.ttl-ms:5000}") long ttlMs,
+                          @Value("${stats.views.cache.stale-ttl-ms:1000}") long staleTtlMs,
+                          @Value("${stats.views.cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfter(new ViewCountExpiry(TimeUnit.MILLISECONDS.toNanos(ttlMs),
+                        TimeUnit.MILLISECONDS.toNanos(staleTtlMs)))
+                .maximumSize(maxSize)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "stats.views");
+    }
+
+    /**
+     * Получить количество просмотров для списка uri (future всегда завершается успешно)
+     * @param uris список uri
+     * @param unique учитывать только уникальные просмотры
+     * @param loader загрузка просмотров отсутствующих в кэше uri (uri -> просмотры)
+     * @return просмотры для каждого uri из списка
+     */
+    public CompletableFuture<ViewCounts> getAsync(
+            List<String> uris, boolean unique, Function<List<String>, CompletableFuture<Map<String, Long>>> loader) {
+        final List<ViewKey> keys = new ArrayList<>();
+        uris.forEach(uri -> keys.add(new ViewKey(uri, unique)));
+        return cache.getAll(keys, (missing, executor) -> load(missing, loader))
+                .thenApply(counts -> {
+                    final Map<String, Long> views = new HashMap<>();
+                    boolean stale = false;
+                    for (Map.Entry<ViewKey, ViewCount> entry : counts.entrySet()) {
+                        views.put(entry.getKey().getUri(), entry.getValue().getViews());
+                        stale |= entry.getValue().isStale();
+                    }
+                    return new ViewCounts(views, stale);
+                });
+    }
+
+    /** То же, что {@link #getAsync}, с ожиданием результата */
+    public ViewCounts get(List<String> uris, boolean unique,
+                          Function<List<String>, CompletableFuture<Map<String, Long>>> loader) {
+        return getAsync(uris, unique, loader).join();
+    }
+
+    private CompletableFuture<Map<ViewKey, ViewCount>> load(
+            Iterable<? extends ViewKey> missing, Function<List<String>, CompletableFuture<Map<String, Long>>> loader) {
+        final List<ViewKey> keys = new ArrayList<>();
+        final List<String> uris = new ArrayList<>();
+        for (ViewKey key : missing) {
+            keys.add(key);
+            uris.add(key.getUri());
+        }
+        CompletableFuture<Map<String, Long>> future;
+        try {
+            future = loader.apply(uris);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((views, e) -> {
+            final Map<ViewKey, ViewCount> result = new HashMap<>();
+            if (e == null) {
+                for (ViewKey key : keys) {
+                    final long count = views.getOrDefault(key.getUri(), 0L);
+                    lastKnown.put(key, count);
+                    result.put(key, new ViewCount(count, false));
+                }
+            } else {
+                log.warn("Failed to load views for {} uris, last known values are used: {}", keys.size(),
+                        e.getMessage());
+                for (ViewKey key : keys) {
+                    final Long count = lastKnown.getIfPresent(key);
+                    result.put(key, new ViewCount(count == null ? 0L : count, true));
+                }
+            }
+            return result;
+        });
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static class ViewKey {
+        private final String uri;
+        private final boolean unique;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class ViewCount {
+        private final long views;
+        private final boolean stale;
+    }
+
+    @RequiredArgsConstructor
+    private static class ViewCountExpiry implements Expiry<ViewKey, ViewCount> {
+        private final long ttlNanos;
+        private final long staleTtlNanos;
+
+        @Override
+        public long expireAfterCreate(ViewKey key, ViewCount value, long currentTime) {
+            return value.isStale() ? staleTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(ViewKey key, ViewCount value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ViewKey key, ViewCount value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
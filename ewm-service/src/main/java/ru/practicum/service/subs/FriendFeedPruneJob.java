@@ -0,0 +1,30 @@
+package ru.practicum.service.subs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.repository.FriendFeedRepository;
+import ru.practicum.repository.FriendParticipationRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Очистка ленты событий друзей и индекса "друзья идут" от прошедших событий (в выдачу они уже не попадают)
+ * и от строк индекса, в которых не осталось друзей
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendFeedPruneJob {
+    private final FriendFeedRepository friendFeedRepository;
+    private final FriendParticipationRepository friendParticipationRepository;
+
+    @Scheduled(fixedDelayString = "${ewm.friend-feed.prune.interval-ms:3600000}")
+    public void run() {
+        final int deleted = friendFeedRepository.deleteByEventDateBefore(LocalDateTime.now());
+        if (deleted > 0) log.debug("Friend feed pruned: {} entries", deleted);
+        final int obsolete = friendParticipationRepository.deleteObsolete(LocalDateTime.now());
+        if (obsolete > 0) log.debug("Friend participation pruned: {} entries", obsolete);
+    }
+}
@@ -2,15 +2,31 @@ package ru.practicum.service.subs;
 
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.user.UserDto;
+import ru.practicum.utils.CursorPage;
 
 import java.util.List;
 
 public interface FriendService {
     List<EventShortDto> getParticipateEvents(long followerId, int from, int size);
 
+    /**
+     * События, в которых участвуют друзья, по курсору: по убыванию числа друзей, затем по дате события
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы (пустая строка - первая страница)
+     */
+    CursorPage<EventShortDto> getParticipateEvents(long followerId, String cursor, int size);
+
     List<UserDto> getFriends(long followerId);
 
     List<EventShortDto> getFriendEvents(long followerId, int from, int size);
 
+    /**
+     * Лента событий друзей по курсору, по возрастанию даты события
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы (пустая строка - первая страница)
+     */
+    CursorPage<EventShortDto> getFriendEvents(long followerId, String cursor, int size);
+
     List<UserDto> getFollowers(long userId);
+
+    /** Общие друзья двух пользователей */
+    List<UserDto> getMutualFriends(long userId, long otherId);
 }
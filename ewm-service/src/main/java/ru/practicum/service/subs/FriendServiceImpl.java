@@ -1,37 +1,54 @@
 package ru.practicum.service.subs;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.user.UserDto;
-import ru.practicum.enums.EventState;
-import ru.practicum.enums.RequestStatus;
-import ru.practicum.mapper.EventMapper;
+import ru.practicum.enums.SortType;
+import ru.practicum.exception.ValidateException;
 import ru.practicum.mapper.UserMapper;
-import ru.practicum.model.Event;
+import ru.practicum.model.QFriendship;
 import ru.practicum.model.QUser;
 import ru.practicum.model.User;
 import ru.practicum.service.user.UserService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
+import ru.practicum.utils.ParticipationCursor;
+import ru.practicum.utils.QPredicate;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static ru.practicum.enums.FriendshipState.APPROVED;
+import static ru.practicum.mapper.EventProjections.CATEGORY;
+import static ru.practicum.mapper.EventProjections.INITIATOR;
+import static ru.practicum.mapper.EventProjections.SHORT_DTO;
 import static ru.practicum.model.QEvent.event;
+import static ru.practicum.model.QFriendFeedEntry.friendFeedEntry;
+import static ru.practicum.model.QFriendParticipation.friendParticipation;
 import static ru.practicum.model.QFriendship.friendship;
-import static ru.practicum.model.QRequest.request;
+import static ru.practicum.model.QUser.user;
 
 @Service
-
 public class FriendServiceImpl implements FriendService {
     private final UserService userService;
+    private final FriendshipGraph friendshipGraph;
     private final JPAQueryFactory queryFactory;
 
     public FriendServiceImpl(UserService userService,
+                             FriendshipGraph friendshipGraph,
                              EntityManager em) {
         this.userService = userService;
+        this.friendshipGraph = friendshipGraph;
         this.queryFactory = new JPAQueryFactory(em);
     }
 
@@ -40,7 +57,9 @@ public class FriendServiceImpl implements FriendService {
     @Transactional(readOnly = true)
     public List<UserDto> getFriends(long userId) {
         userService.checkExistById(userId);
-        final List<User> fiends = getUserList(friendship.friend, friendship.follower, userId);
+        final List<User> fiends = friendshipGraph.isReady()
+                ? getUsersByIds(friendshipGraph.getFriends(userId))
+                : getUserList(friendship.friend, friendship.follower, userId);
         return UserMapper.toDto(fiends);
     }
 
@@ -48,49 +67,161 @@ public class FriendServiceImpl implements FriendService {
     @Transactional(readOnly = true)
     public List<UserDto> getFollowers(long userId) {
         userService.checkExistById(userId);
-        final List<User> fiends = getUserList(friendship.follower, friendship.friend, userId);
+        final List<User> fiends = friendshipGraph.isReady()
+                ? getUsersByIds(friendshipGraph.getFollowers(userId))
+                : getUserList(friendship.follower, friendship.friend, userId);
         return UserMapper.toDto(fiends);
     }
 
-    /** Получить список событий в которых примут участие друзья */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getMutualFriends(long userId, long otherId) {
+        userService.checkExistById(userId);
+        userService.checkExistById(otherId);
+        if (friendshipGraph.isReady()) {
+            return UserMapper.toDto(getUsersByIds(friendshipGraph.getMutualFriends(userId, otherId)));
+        }
+
+        final QFriendship other = new QFriendship("other");
+        final List<User> friends = queryFactory
+                .select(friendship.friend)
+                .from(friendship)
+                .where(friendship.follower.id.eq(userId)
+                        .and(friendship.state.eq(APPROVED))
+                        .and(friendship.friend.id.in(JPAExpressions
+                                .select(other.friend.id)
+                                .from(other)
+                                .where(other.follower.id.eq(otherId).and(other.state.eq(APPROVED))))))
+                .orderBy(friendship.friend.id.asc())
+                .fetch();
+        return UserMapper.toDto(friends);
+    }
+
+    /** Получить список событий в которых примут участие друзья, сначала события с большим числом друзей */
     @Override
     @Transactional(readOnly = true)
     public List<EventShortDto> getParticipateEvents(long followerId, int from, int size) {
         userService.checkExistById(followerId);
-        final List<Event> events =
-                queryFactory
-                        .selectDistinct(request.event)
-                        .from(request)
-                        .innerJoin(friendship).on(friendship.friend.eq(request.requester))
-                        .where(friendship.follower.id.eq(followerId)
-                                .and(request.isPrivate.isFalse())
-                                .and(request.status.eq(RequestStatus.CONFIRMED))
-                                .and(request.event.eventDate.after(LocalDateTime.now().plusHours(2))))
-                        .offset(from)
-                        .limit(size)
-                        .fetch();
-
-
-        return EventMapper.toDto(events);
+        return participationQuery(followerId, null)
+                .offset(from)
+                .limit(size)
+                .fetch()
+                .stream()
+                .map(t -> t.get(SHORT_DTO))
+                .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EventShortDto> getParticipateEvents(long followerId, String cursor, int size) {
+        userService.checkExistById(followerId);
+        final ParticipationCursor after = cursor.isEmpty() ? null : ParticipationCursor.decode(cursor);
+
+        final List<Tuple> rows = participationQuery(followerId, after)
+                .limit(size)
+                .fetch();
+        if (rows.isEmpty()) return new CursorPage<>(Collections.emptyList(), null);
+
+        final List<EventShortDto> events = rows.stream()
+                .map(t -> t.get(SHORT_DTO))
+                .collect(Collectors.toList());
+        final Tuple last = rows.get(rows.size() - 1);
+        final String nextCursor = (rows.size() == size)
+                ? new ParticipationCursor(last.get(friendParticipation.friendCount),
+                last.get(friendParticipation.eventDate), last.get(friendParticipation.eventId)).encode()
+                : null;
+        return new CursorPage<>(events, nextCursor);
+    }
+
+    /** Получить список событий опубликованных друзьями, из ленты подписчика */
     @Override
     @Transactional(readOnly = true)
     public List<EventShortDto> getFriendEvents(long followerId, int from, int size) {
         userService.checkExistById(followerId);
-        final List<Event> events =
-                queryFactory
-                        .selectDistinct(event)
-                        .from(event)
-                        .innerJoin(friendship).on(friendship.friend.eq(event.initiator))
-                        .where(friendship.follower.id.eq(followerId)
-                                .and(event.state.eq(EventState.PUBLISHED))
-                                .and(event.eventDate.after(LocalDateTime.now().plusHours(2))))
-                        .offset(from)
-                        .limit(size)
-                        .fetch();
-
-        return EventMapper.toDto(events);
+        return feedQuery(followerId, null)
+                .offset(from)
+                .limit(size)
+                .fetch();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EventShortDto> getFriendEvents(long followerId, String cursor, int size) {
+        userService.checkExistById(followerId);
+        final EventCursor after = cursor.isEmpty() ? null : EventCursor.decode(cursor);
+        if (after != null && after.getSort() != SortType.EVENT_DATE) {
+            throw new ValidateException(String.format("Cursor was issued for sort by %s", after.getSort()));
+        }
+
+        final List<EventShortDto> events = feedQuery(followerId, after)
+                .limit(size)
+                .fetch();
+        if (events.isEmpty()) return new CursorPage<>(Collections.emptyList(), null);
+
+        final String nextCursor = (events.size() == size)
+                ? EventCursor.of(SortType.EVENT_DATE, events.get(events.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(events, nextCursor);
+    }
+
+    /**
+     * Лента подписчика по возрастанию (eventDate, id): диапазон индекса (follower_id, event_date, event_id),
+     * события присоединяются по первичному ключу
+     */
+    private JPAQuery<EventShortDto> feedQuery(long followerId, EventCursor after) {
+        final Predicate predicate = QPredicate.builder()
+                .add(followerId, id -> friendFeedEntry.followerId.eq(id))
+                .add(LocalDateTime.now().plusHours(2), friendFeedEntry.eventDate::after)
+                .add(after, c -> friendFeedEntry.eventDate.gt(c.getEventDate())
+                        .or(friendFeedEntry.eventDate.eq(c.getEventDate()).and(friendFeedEntry.eventId.gt(c.getId()))))
+                .buildAnd();
+        return queryFactory
+                .select(SHORT_DTO)
+                .from(friendFeedEntry)
+                .innerJoin(event).on(event.id.eq(friendFeedEntry.eventId))
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .where(predicate)
+                .orderBy(friendFeedEntry.eventDate.asc(), friendFeedEntry.eventId.asc());
+    }
+
+    /**
+     * События из индекса "друзья идут" по (friendCount desc, eventDate, id): диапазон индекса
+     * (follower_id, friend_count desc, event_date, event_id), события присоединяются по первичному ключу
+     */
+    private JPAQuery<Tuple> participationQuery(long followerId, ParticipationCursor after) {
+        final Predicate predicate = QPredicate.builder()
+                .add(followerId, id -> friendParticipation.followerId.eq(id))
+                .add(0, friendParticipation.friendCount::gt)
+                .add(LocalDateTime.now().plusHours(2), friendParticipation.eventDate::after)
+                .add(after, c -> friendParticipation.friendCount.lt(c.getFriendCount())
+                        .or(friendParticipation.friendCount.eq(c.getFriendCount())
+                                .and(friendParticipation.eventDate.gt(c.getEventDate())))
+                        .or(friendParticipation.friendCount.eq(c.getFriendCount())
+                                .and(friendParticipation.eventDate.eq(c.getEventDate()))
+                                .and(friendParticipation.eventId.gt(c.getId()))))
+                .buildAnd();
+        return queryFactory
+                .select(SHORT_DTO, friendParticipation.friendCount, friendParticipation.eventDate,
+                        friendParticipation.eventId)
+                .from(friendParticipation)
+                .innerJoin(event).on(event.id.eq(friendParticipation.eventId))
+                .leftJoin(event.category, CATEGORY)
+                .leftJoin(event.initiator, INITIATOR)
+                .where(predicate)
+                .orderBy(friendParticipation.friendCount.desc(), friendParticipation.eventDate.asc(),
+                        friendParticipation.eventId.asc());
+    }
+
+    /** Пользователи по id из графа дружб, в том же порядке (по возрастанию id) */
+    private List<User> getUsersByIds(long[] ids) {
+        if (ids.length == 0) return Collections.emptyList();
+
+        return queryFactory
+                .selectFrom(user)
+                .where(user.id.in(Arrays.stream(ids).boxed().collect(Collectors.toList())))
+                .orderBy(user.id.asc())
+                .fetch();
     }
 
     private List<User> getUserList(QUser friend, QUser user, long userId) {
@@ -0,0 +1,303 @@
+package ru.practicum.service.subs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.repository.FriendshipRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static ru.practicum.enums.FriendshipState.APPROVED;
+
+/**
+ * Граф подтвержденных дружб в памяти (ewm.friend-graph.enabled).<br>
+ * - для каждого пользователя два отсортированных массива long: id друзей (на кого подписан) и id подписчиков<br>
+ * - "друг ли" - бинарный поиск, общие друзья - слияние двух отсортированных массивов<br>
+ * - строится при старте приложения пачками по id дружбы; пока граф строится, изменения копятся
+ * и применяются после построения, а на вопросы отвечает БД<br>
+ * - изменения дружбы применяются после коммита транзакции<br>
+ * - ребро занимает 16 байт (по long в каждом направлении) плюс массив и его заголовок на пользователя;
+ * размер графа публикуется в метриках ewm.friend.graph.edges и ewm.friend.graph.users
+ */
+@Slf4j
+@Component
+public class FriendshipGraph {
+    private static final long[] EMPTY = new long[0];
+
+    private final FriendshipRepository friendshipRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Adjacency> friends = new HashMap<>();
+    private Map<Long, Adjacency> followers = new HashMap<>();
+    private final List<Change> pending = new ArrayList<>();
+    private long edges;
+
+    private volatile boolean ready;
+
+    public FriendshipGraph(FriendshipRepository friendshipRepository, MeterRegistry meterRegistry,
+                           @Value("${ewm.friend-graph.enabled:true}") boolean enabled,
+                           @Value("${ewm.friend-graph.batch-size:1000}") int batchSize) {
+        this.friendshipRepository = friendshipRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        Gauge.builder("ewm.friend.graph.edges", this, FriendshipGraph::getEdgeCount).register(meterRegistry);
+        Gauge.builder("ewm.friend.graph.users", this, FriendshipGraph::getUserCount).register(meterRegistry);
+    }
+
+    /** Граф построен, и по нему можно отвечать */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) return;
+
+        final Map<Long, Adjacency> newFriends = new HashMap<>();
+        final Map<Long, Adjacency> newFollowers = new HashMap<>();
+        final PageRequest page = PageRequest.of(0, batchSize);
+        long afterId = 0;
+        List<FriendshipRepository.FriendshipEdge> batch =
+                friendshipRepository.findEdgesByStateAndIdAfter(APPROVED, afterId, page);
+        while (!batch.isEmpty()) {
+            for (FriendshipRepository.FriendshipEdge edge : batch) {
+                newFriends.computeIfAbsent(edge.getFollowerId(), id -> new Adjacency()).append(edge.getFriendId());
+                newFollowers.computeIfAbsent(edge.getFriendId(), id -> new Adjacency()).append(edge.getFollowerId());
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            batch = friendshipRepository.findEdgesByStateAndIdAfter(APPROVED, afterId, page);
+        }
+        newFollowers.values().forEach(Adjacency::sortDistinct);
+        final long edgeCount = newFriends.values().stream().mapToLong(Adjacency::sortDistinct).sum();
+
+        lock.writeLock().lock();
+        try {
+            edges = edgeCount;
+            friends = newFriends;
+            followers = newFollowers;
+            pending.forEach(this::apply);
+            pending.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Friendship graph is built: {} users, {} edges", getUserCount(), getEdgeCount());
+    }
+
+    /** id друзей пользователя (на кого он подписан), по возрастанию */
+    public long[] getFriends(long userId) {
+        return copy(friends, userId);
+    }
+
+    /** id подписчиков пользователя, по возрастанию */
+    public long[] getFollowers(long userId) {
+        return copy(followers, userId);
+    }
+
+    /** id общих друзей двух пользователей, по возрастанию */
+    public long[] getMutualFriends(long userId, long otherId) {
+        lock.readLock().lock();
+        try {
+            final Adjacency first = friends.get(userId);
+            final Adjacency second = friends.get(otherId);
+            if (first == null || second == null) return EMPTY;
+
+            final long[] result = new long[Math.min(first.size, second.size)];
+            int count = 0;
+            for (int i = 0, j = 0; i < first.size && j < second.size; ) {
+                if (first.ids[i] < second.ids[j]) {
+                    i++;
+                } else if (first.ids[i] > second.ids[j]) {
+                    j++;
+                } else {
+                    result[count++] = first.ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** followerId подписан на friendId, и дружба подтверждена */
+    public boolean isFriend(long followerId, long friendId) {
+        lock.readLock().lock();
+        try {
+            final Adjacency adjacency = friends.get(followerId);
+            return adjacency != null && adjacency.indexOf(friendId) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Дружба подтверждена: ребро добавляется после коммита текущей транзакции */
+    public void addFriendship(long followerId, long friendId) {
+        afterCommit(List.of(new Change(followerId, friendId, true)));
+    }
+
+    /** Заявки подписчиков к friendId подтверждены разом: ребра добавляются после коммита одной блокировкой */
+    public void addFollowers(long friendId, Collection<Long> followerIds) {
+        afterCommit(followerIds.stream()
+                .map(followerId -> new Change(followerId, friendId, true))
+                .collect(Collectors.toList()));
+    }
+
+    /** Дружба отклонена или удалена: ребро убирается после коммита текущей транзакции */
+    public void removeFriendship(long followerId, long friendId) {
+        afterCommit(List.of(new Change(followerId, friendId, false)));
+    }
+
+    public long getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return friends.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(List<Change> changes) {
+        if (!enabled || changes.isEmpty()) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(changes);
+            }
+        });
+    }
+
+    private void update(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                changes.forEach(this::apply);
+            } else {
+                pending.addAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Change change) {
+        if (change.isAdded) {
+            if (friends.computeIfAbsent(change.followerId, id -> new Adjacency()).insert(change.friendId)) edges++;
+            followers.computeIfAbsent(change.friendId, id -> new Adjacency()).insert(change.followerId);
+        } else {
+            if (remove(friends, change.followerId, change.friendId)) edges--;
+            remove(followers, change.friendId, change.followerId);
+        }
+    }
+
+    private long[] copy(Map<Long, Adjacency> graph, long userId) {
+        lock.readLock().lock();
+        try {
+            final Adjacency adjacency = graph.get(userId);
+            return adjacency == null ? EMPTY : Arrays.copyOf(adjacency.ids, adjacency.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean remove(Map<Long, Adjacency> graph, long userId, long id) {
+        final Adjacency adjacency = graph.get(userId);
+        if (adjacency == null || !adjacency.delete(id)) return false;
+
+        if (adjacency.size == 0) graph.remove(userId);
+        return true;
+    }
+
+    /** Список смежности: первые size элементов ids, по возрастанию без повторов */
+    private static final class Adjacency {
+        private long[] ids = EMPTY;
+        private int size;
+
+        /** Добавить в конец, без сортировки: только при построении графа */
+        private void append(long id) {
+            ensureCapacity();
+            ids[size++] = id;
+        }
+
+        /** Отсортировать и убрать повторы после append, лишняя емкость освобождается; @return размер */
+        private int sortDistinct() {
+            Arrays.sort(ids, 0, size);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (count == 0 || ids[count - 1] != ids[i]) ids[count++] = ids[i];
+            }
+            size = count;
+            ids = Arrays.copyOf(ids, size);
+            return size;
+        }
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        private boolean insert(long id) {
+            final int index = indexOf(id);
+            if (index >= 0) return false;
+
+            final int position = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+            return true;
+        }
+
+        private boolean delete(long id) {
+            final int index = indexOf(id);
+            if (index < 0) return false;
+
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Change {
+        private final long followerId;
+        private final long friendId;
+        private final boolean isAdded;
+    }
+}
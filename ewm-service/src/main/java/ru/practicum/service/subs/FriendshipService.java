@@ -1,7 +1,10 @@
 package ru.practicum.service.subs;
 
+import ru.practicum.dto.subs.FriendshipBulkUpdateResult;
 import ru.practicum.dto.subs.FriendshipShortDto;
 import ru.practicum.dto.subs.FriendshipDto;
+import ru.practicum.dto.user.UserDto;
+import ru.practicum.utils.CursorPage;
 
 import java.util.List;
 
@@ -13,9 +16,30 @@ public interface FriendshipService {
 
     List<FriendshipShortDto> rejectFriendship(long userId, List<Long> ids);
 
+    /** Подтвердить все заявки к пользователю, находящиеся в ожидании */
+    FriendshipBulkUpdateResult approveAllPending(long userId);
+
+    /**
+     * Изменить режим подписки на пользователя в одной транзакции с подтверждением заявок в ожидании
+     * @param approvePending при включении автоматического приема подтвердить и накопившиеся заявки
+     */
+    UserDto changeSubscribeMode(long userId, boolean isAutoSubscribe, boolean approvePending);
+
     void deleteFriendshipRequest(long followerId, long subsId);
 
-    List<FriendshipShortDto> getFriendshipRequests(long followerId, String filter);
+    List<FriendshipShortDto> getFriendshipRequests(long followerId, String filter, int from, int size);
+
+    /**
+     * Поданные заявки по курсору, от новых к старым
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы (пустая строка - первая страница)
+     */
+    CursorPage<FriendshipShortDto> getFriendshipRequests(long followerId, String filter, String cursor, int size);
+
+    List<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter, int from, int size);
 
-    List<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter);
+    /**
+     * Полученные заявки по курсору, от новых к старым
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы (пустая строка - первая страница)
+     */
+    CursorPage<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter, String cursor, int size);
 }
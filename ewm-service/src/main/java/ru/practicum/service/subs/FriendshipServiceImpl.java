@@ -2,10 +2,14 @@ package ru.practicum.service.subs;
 
 import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.subs.FriendshipBulkUpdateResult;
 import ru.practicum.dto.subs.FriendshipDto;
 import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.dto.user.UserDto;
 import ru.practicum.enums.FriendshipState;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
@@ -13,8 +17,12 @@ import ru.practicum.mapper.FriendshipMapper;
 import ru.practicum.model.Friendship;
 import ru.practicum.model.QUser;
 import ru.practicum.model.User;
+import ru.practicum.repository.FriendFeedRepository;
+import ru.practicum.repository.FriendParticipationRepository;
 import ru.practicum.repository.FriendshipRepository;
 import ru.practicum.service.user.UserService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.FriendshipCursor;
 import ru.practicum.utils.QPredicate;
 
 import java.time.LocalDateTime;
@@ -27,10 +35,14 @@ import static ru.practicum.enums.FriendshipState.PENDING;
 import static ru.practicum.enums.FriendshipState.REJECTED;
 import static ru.practicum.model.QFriendship.friendship;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FriendshipServiceImpl implements FriendshipService {
     private final FriendshipRepository friendshipRepository;
+    private final FriendFeedRepository friendFeedRepository;
+    private final FriendParticipationRepository friendParticipationRepository;
+    private final FriendshipGraph friendshipGraph;
 
     private final UserService userService;
 
@@ -57,6 +69,11 @@ public class FriendshipServiceImpl implements FriendshipService {
                 .createdOn(LocalDateTime.now())
                 .build();
         final Friendship friendship = friendshipRepository.save(friendshipRequest);
+        if (APPROVED.equals(friendship.getState())) {
+            friendFeedRepository.addFriendEvents(List.of(friendship.getId()), LocalDateTime.now());
+            friendParticipationRepository.addFriendParticipations(followerId, userId, LocalDateTime.now());
+            friendshipGraph.addFriendship(followerId, userId);
+        }
         return FriendshipMapper.toDto(friendship);
     }
 
@@ -75,11 +92,62 @@ public class FriendshipServiceImpl implements FriendshipService {
         confirmUser(userId, subList);
         confirmFriendshipRequest(subList, Set.of(PENDING));
 
+//        счетчики "друзья идут" увеличиваются только для заявок, которые подтвердил условный UPDATE этой транзакции:
+//        при параллельном подтверждении той же заявки второй UPDATE ждет коммита первого и не меняет строку
+        final LocalDateTime now = LocalDateTime.now();
+        subList.stream()
+                .filter(f -> friendshipRepository.updateStateById(f.getId(), APPROVED) == 1)
+                .forEach(f -> friendParticipationRepository.addFriendParticipations(
+                        f.getFollower().getId(), f.getFriend().getId(), now));
         subList.forEach(FriendshipServiceImpl::approveFriendship);
         final List<Friendship> saved = friendshipRepository.saveAll(subList);
+        friendFeedRepository.addFriendEvents(getIds(saved), now);
+        saved.forEach(f -> friendshipGraph.addFriendship(f.getFollower().getId(), f.getFriend().getId()));
         return saved.stream().map(FriendshipMapper::toShortDto).collect(Collectors.toList());
     }
 
+    /**
+     * Подтверждение всех заявок к пользователю в ожидании без загрузки сущностей: лента подписчиков
+     * и счетчики "друзья идут" заполняются вставками по всем заявкам сразу, заявки подтверждаются одним UPDATE.
+     * Заявки, поступившие после чтения списка, не затрагиваются; если прочитанные заявки успели измениться
+     * до UPDATE, транзакция откатывается, чтобы граф друзей не разошелся с БД
+     * @param userId Id пользователя, получившего запросы на дружбу
+     * @return количество подтвержденных заявок
+     */
+    @Override
+    @Transactional
+    public FriendshipBulkUpdateResult approveAllPending(long userId) {
+        userService.checkExistById(userId);
+        final List<FriendshipRepository.FriendshipEdge> edges =
+                friendshipRepository.findEdgesByFriendIdAndState(userId, PENDING);
+        if (edges.isEmpty()) return new FriendshipBulkUpdateResult(0);
+
+        final long maxId = edges.stream().mapToLong(FriendshipRepository.FriendshipEdge::getId).max().getAsLong();
+        final LocalDateTime now = LocalDateTime.now();
+//        лента и счетчики заполняются, пока заявки в БД еще в ожидании
+        friendFeedRepository.addPendingFollowerEvents(userId, maxId, now);
+        friendParticipationRepository.addPendingFollowerParticipations(userId, maxId, now);
+        final int approved = friendshipRepository.updateStateByFriendId(userId, PENDING, APPROVED, maxId);
+        if (approved != edges.size()) {
+            throw new ConflictException("Friendship requests were changed concurrently, try again.");
+        }
+        friendshipGraph.addFollowers(userId, edges.stream()
+                .map(FriendshipRepository.FriendshipEdge::getFollowerId)
+                .collect(Collectors.toList()));
+        return new FriendshipBulkUpdateResult(approved);
+    }
+
+    @Override
+    @Transactional
+    public UserDto changeSubscribeMode(long userId, boolean isAutoSubscribe, boolean approvePending) {
+        final UserDto user = userService.changeSubscribeMode(userId, isAutoSubscribe);
+        if (isAutoSubscribe && approvePending) {
+            final FriendshipBulkUpdateResult result = approveAllPending(userId);
+            log.debug("Approved {} pending friendship requests to user {}", result.getApprovedCount(), userId);
+        }
+        return user;
+    }
+
     /** Отклонение запроса на дружбу */
     @Override
     @Transactional
@@ -90,6 +158,15 @@ public class FriendshipServiceImpl implements FriendshipService {
         confirmUser(userId, subList);
         confirmFriendshipRequest(subList, Set.of(PENDING, APPROVED));
 
+//        события друга убираются из ленты, пока дружба в БД еще подтверждена
+        friendFeedRepository.removeFriendEvents(getIds(subList));
+        subList.stream()
+                .filter(f -> APPROVED.equals(f.getState()))
+                .forEach(f -> {
+                    friendParticipationRepository.removeFriendParticipations(
+                            f.getFollower().getId(), f.getFriend().getId());
+                    friendshipGraph.removeFriendship(f.getFollower().getId(), f.getFriend().getId());
+                });
         subList.forEach(FriendshipServiceImpl::rejectFriendship);
         final List<Friendship> saved = friendshipRepository.saveAll(subList);
         return saved.stream().map(FriendshipMapper::toShortDto).collect(Collectors.toList());
@@ -98,19 +175,38 @@ public class FriendshipServiceImpl implements FriendshipService {
     /** Получить фолловером списка запросов на дружбу */
     @Override
     @Transactional(readOnly = true)
-    public List<FriendshipShortDto> getFriendshipRequests(long userId, String filter) {
+    public List<FriendshipShortDto> getFriendshipRequests(long userId, String filter, int from, int size) {
         userService.checkExistById(userId);
         throwWhenWrongFilter(filter, Set.of("ALL", PENDING.name(), APPROVED.name(), REJECTED.name()));
-        return getRequestByFilter(filter, friendship.follower, userId);
+        return friendshipRepository.findShortDtos(getPredicate(filter, friendship.follower, userId),
+                PageRequest.of(from / size, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<FriendshipShortDto> getFriendshipRequests(long userId, String filter, String cursor, int size) {
+        userService.checkExistById(userId);
+        throwWhenWrongFilter(filter, Set.of("ALL", PENDING.name(), APPROVED.name(), REJECTED.name()));
+        return getPage(getPredicate(filter, friendship.follower, userId), cursor, size);
     }
 
     /** Получить пользователем списка поданных запросов на дружбу пользователем */
     @Override
     @Transactional(readOnly = true)
-    public List<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter) {
+    public List<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter, int from, int size) {
+        userService.checkExistById(userId);
+        throwWhenWrongFilter(filter, Set.of("ALL", PENDING.name(), APPROVED.name(), REJECTED.name()));
+        return friendshipRepository.findShortDtos(getPredicate(filter, friendship.friend, userId),
+                PageRequest.of(from / size, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<FriendshipShortDto> getIncomingFriendRequests(long userId, String filter, String cursor,
+                                                                    int size) {
         userService.checkExistById(userId);
         throwWhenWrongFilter(filter, Set.of("ALL", PENDING.name(), APPROVED.name(), REJECTED.name()));
-        return getRequestByFilter(filter, friendship.friend, userId);
+        return getPage(getPredicate(filter, friendship.friend, userId), cursor, size);
     }
 
     /** Отмена запроса на дружбу */
@@ -118,22 +214,33 @@ public class FriendshipServiceImpl implements FriendshipService {
     @Transactional
     public void deleteFriendshipRequest(long followerId, long subsId) {
         userService.checkExistById(followerId);
-        if (!friendshipRepository.existsByIdAndFollowerId(subsId, followerId)) {
-            throw new NotFoundException("Friendship request no exist.");
-        }
+        final Friendship friendship = friendshipRepository.findByIdAndFollowerId(subsId, followerId)
+                .orElseThrow(() -> new NotFoundException("Friendship request no exist."));
 
-        friendshipRepository.deleteByFollowerIdAndId(followerId, subsId);
+        friendFeedRepository.removeFriendEvents(List.of(subsId));
+        if (APPROVED.equals(friendship.getState())) {
+            friendParticipationRepository.removeFriendParticipations(followerId, friendship.getFriend().getId());
+            friendshipGraph.removeFriendship(followerId, friendship.getFriend().getId());
+        }
+        friendshipRepository.delete(friendship);
     }
 
-    private List<FriendshipShortDto> getRequestByFilter(String filter, QUser user, long userId) {
+    private static Predicate getPredicate(String filter, QUser user, long userId) {
         final List<Predicate> eq = ("ALL".equalsIgnoreCase(filter))
                 ? List.of(user.id.eq(userId))
                 : List.of(user.id.eq(userId), friendship.state.eq(FriendshipState.from(filter)));
 
-        final Predicate predicate = QPredicate.buildAnd(eq);
-        final List<Friendship> subs = (List<Friendship>) friendshipRepository.findAll(predicate);
+        return QPredicate.buildAnd(eq);
+    }
+
+    private CursorPage<FriendshipShortDto> getPage(Predicate predicate, String cursor, int size) {
+        final FriendshipCursor after = cursor.isEmpty() ? null : FriendshipCursor.decode(cursor);
+        final List<FriendshipShortDto> subs = friendshipRepository.findShortDtosAfter(predicate, after, size);
 
-        return subs.stream().map(FriendshipMapper::toShortDto).collect(Collectors.toList());
+        final String nextCursor = (subs.size() == size)
+                ? FriendshipCursor.of(subs.get(subs.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(subs, nextCursor);
     }
 
     private void throwWhenFriendshipListEmpty(List<Friendship> subList) {
@@ -157,7 +264,8 @@ public class FriendshipServiceImpl implements FriendshipService {
     }
 
     private void throwWhenFriendshipExist(long userId, long friendId) {
-        if (friendshipRepository.existsByFollowerIdAndFriendIdAndStateNot(userId, friendId, REJECTED)) {
+        if (friendshipGraph.isFriend(userId, friendId)
+                || friendshipRepository.existsByFollowerIdAndFriendIdAndStateNot(userId, friendId, REJECTED)) {
             throw new ConflictException("Already friends.");
         }
     }
@@ -169,6 +277,10 @@ public class FriendshipServiceImpl implements FriendshipService {
         }
     }
 
+    private static List<Long> getIds(List<Friendship> subs) {
+        return subs.stream().map(Friendship::getId).collect(Collectors.toList());
+    }
+
     private static void approveFriendship(Friendship f) {
         f.setState(APPROVED);
     }
@@ -13,6 +13,7 @@ import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
 import ru.practicum.repository.RequestRepository;
 import ru.practicum.repository.UserRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 
 import java.util.List;
@@ -27,6 +28,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final RequestRepository requestRepository;
+    private final ReferenceDataCache cache;
 
     @Override
     public UserDto registerUser(NewUserRequest body) {
@@ -66,11 +68,12 @@ public class UserServiceImpl implements UserService {
                     Constants.FOR_THE_REQUESTED_OPERATION_THE_CONDITIONS_ARE_NOT_MET);
         }
         userRepository.deleteById(userId);
+        cache.evictUser(userId);
     }
 
     @Override
     public void checkExistById(long userId) {
-        if (!userRepository.existsById(userId)) {
+        if (cache.getUser(userId, userRepository::findById).isEmpty()) {
             throw new NotFoundException(
                     String.format(USER_WITH_ID_D_WAS_NOT_FOUND, userId),
                     THE_REQUIRED_OBJECT_WAS_NOT_FOUND);
@@ -82,12 +85,13 @@ public class UserServiceImpl implements UserService {
         final User user = findUserById(userId);
         user.setAutoSubscribe(isAutoSubscribe);
         userRepository.save(user);
+        cache.evictUser(userId);
         return UserMapper.toDto(user);
     }
 
     @Override
     public User findUserById(long userId) {
-        return userRepository.findById(userId)
+        return cache.getUser(userId, userRepository::findById)
                 .orElseThrow(() -> new NotFoundException(
                         String.format(USER_WITH_ID_D_WAS_NOT_FOUND, userId),
                         THE_REQUIRED_OBJECT_WAS_NOT_FOUND));
@@ -19,6 +19,7 @@ public class Constants {
 
     public static final String FROM = "0";
     public static final String PAGE_SIZE = "10";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     public static final LocalDateTime START = LocalDateTime.of(1900, 1, 1, 0, 0, 0);
     public static final LocalDateTime END = LocalDateTime.of(2222, 12, 31, 23, 59, 59);
 }
\ No newline at end of file
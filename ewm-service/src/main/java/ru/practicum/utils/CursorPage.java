@@ -0,0 +1,14 @@
+package ru.practicum.utils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/** Страница выдачи по курсору: элементы и курсор следующей страницы (null - страница последняя) */
+@Getter
+@RequiredArgsConstructor
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+}
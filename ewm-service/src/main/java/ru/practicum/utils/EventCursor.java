@@ -0,0 +1,76 @@
+package ru.practicum.utils;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.enums.SortType;
+import ru.practicum.exception.ValidateException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной выдачи событий - ключ сортировки последнего события страницы:
+ * (eventDate, id) при сортировке по дате события или (views, id) при сортировке по просмотрам.<br>
+ * Клиенту отдается как непрозрачная строка (base64url)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventCursor {
+    private static final String SEPARATOR = "|";
+    private static final String EVENT_DATE = "D";
+    private static final String VIEWS = "V";
+
+    private final SortType sort;
+    private final LocalDateTime eventDate;
+    private final long views;
+    private final long id;
+
+    public static EventCursor ofEventDate(LocalDateTime eventDate, long id) {
+        return new EventCursor(SortType.EVENT_DATE, eventDate, 0, id);
+    }
+
+    public static EventCursor ofViews(long views, long id) {
+        return new EventCursor(SortType.VIEWS, null, views, id);
+    }
+
+    /**
+     * Курсор, указывающий на событие при заданной сортировке
+     * @param event событие из {@link ru.practicum.mapper.EventProjections#SHORT_DTO}: views - значение счетчика events.views
+     */
+    public static EventCursor of(SortType sort, EventShortDto event) {
+        return sort == SortType.VIEWS
+                ? ofViews(event.getViews(), event.getId())
+                : ofEventDate(event.getEventDate(), event.getId());
+    }
+
+    public String encode() {
+        final String value = sort == SortType.VIEWS
+                ? VIEWS + SEPARATOR + views + SEPARATOR + id
+                : EVENT_DATE + SEPARATOR + eventDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EventCursor decode(String cursor) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] parts = value.split("\\|");
+            if (parts.length == 3 && parts[0].equals(EVENT_DATE)) {
+                return ofEventDate(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+            if (parts.length == 3 && parts[0].equals(VIEWS)) {
+                return ofViews(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // некорректный курсор
+        }
+        throw new ValidateException(String.format("Invalid cursor: %s", cursor));
+    }
+}
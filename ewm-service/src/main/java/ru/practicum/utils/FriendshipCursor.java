@@ -0,0 +1,50 @@
+package ru.practicum.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.exception.ValidateException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор выдачи заявок на дружбу - ключ сортировки последней заявки страницы: (created, id).<br>
+ * Клиенту отдается как непрозрачная строка (base64url)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class FriendshipCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime created;
+    private final long id;
+
+    public static FriendshipCursor of(FriendshipShortDto friendship) {
+        return new FriendshipCursor(friendship.getCreated(), friendship.getId());
+    }
+
+    public String encode() {
+        final String value = created + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FriendshipCursor decode(String cursor) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] parts = value.split("\\|");
+            if (parts.length == 2) {
+                return new FriendshipCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // некорректный курсор
+        }
+        throw new ValidateException(String.format("Invalid cursor: %s", cursor));
+    }
+}
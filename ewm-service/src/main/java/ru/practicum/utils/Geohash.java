@@ -0,0 +1,125 @@
+package ru.practicum.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash - строка, кодирующая ячейку сетки на поверхности Земли.
+ * Точки одной ячейки имеют общий префикс, поэтому поиск по ячейке - это поиск по диапазону строк в B-tree индексе
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Geohash {
+    public static final int MAX_PRECISION = 12;
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    /**
+     * @param precision длина geohash: 1 - ячейка 5000x5000 км, 6 - 1.2x0.6 км, 12 - несколько сантиметров
+     */
+    public static String encode(double lat, double lon, int precision) {
+        final StringBuilder hash = new StringBuilder(precision);
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        boolean isLon = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (isLon) {
+                final double mid = (minLon + maxLon) / 2;
+                ch <<= 1;
+                if (lon >= mid) {
+                    ch |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                final double mid = (minLat + maxLat) / 2;
+                ch <<= 1;
+                if (lat >= mid) {
+                    ch |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            isLon = !isLon;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Ячейки, покрывающие круг: ячейка центра и ее соседи. Размер ячеек подбирается так,
+     * чтобы соседи покрывали круг целиком
+     * @return префиксы geohash; пусто, если круг слишком велик для покрытия ячейками
+     */
+    public static List<String> cover(double lat, double lon, double radiusKm) {
+        final double latDelta = latDelta(radiusKm);
+        final double lonDelta = lonDelta(lat, radiusKm);
+        int precision = MAX_PRECISION;
+        while (precision > 0 && (cellHeight(precision) < latDelta || cellWidth(precision) < lonDelta)) {
+            precision--;
+        }
+        if (precision == 0) return List.of();
+
+        final double height = cellHeight(precision);
+        final double width = cellWidth(precision);
+        final Set<String> cells = new LinkedHashSet<>();
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                final double cellLat = Math.max(-90, Math.min(90, lat + dy * height));
+                cells.add(encode(cellLat, normalizeLon(lon + dx * width), precision));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+
+    /** Половина высоты описанного вокруг круга прямоугольника, в градусах широты */
+    public static double latDelta(double radiusKm) {
+        return radiusKm / KM_PER_DEGREE;
+    }
+
+    /** Половина ширины описанного вокруг круга прямоугольника, в градусах долготы (180 - круг захватывает полюс) */
+    public static double lonDelta(double lat, double radiusKm) {
+        final double latDelta = latDelta(radiusKm);
+        if (Math.abs(lat) + latDelta >= 90) return 180;
+
+        return Math.min(180, latDelta / Math.cos(Math.toRadians(Math.abs(lat) + latDelta)));
+    }
+
+    /** Расстояние по поверхности Земли (формула гаверсинусов), км */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        final double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        final double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        final double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double cellWidth(int precision) {
+        return 360 / Math.pow(2, (5 * precision + 1) / 2);
+    }
+
+    private static double cellHeight(int precision) {
+        return 180 / Math.pow(2, 5 * precision / 2);
+    }
+
+    private static double normalizeLon(double lon) {
+        if (lon < -180) return lon + 360;
+        if (lon >= 180) return lon - 360;
+        return lon;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.exception.ValidateException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор выдачи "друзья идут" - ключ сортировки последнего события страницы: (friendCount, eventDate, id).<br>
+ * Клиенту отдается как непрозрачная строка (base64url)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class ParticipationCursor {
+    private static final String SEPARATOR = "|";
+
+    private final int friendCount;
+    private final LocalDateTime eventDate;
+    private final long id;
+
+    public String encode() {
+        final String value = friendCount + SEPARATOR + eventDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ParticipationCursor decode(String cursor) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] parts = value.split("\\|");
+            if (parts.length == 3) {
+                return new ParticipationCursor(Integer.parseInt(parts[0]), LocalDateTime.parse(parts[1]),
+                        Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // некорректный курсор
+        }
+        throw new ValidateException(String.format("Invalid cursor: %s", cursor));
+    }
+}
@@ -0,0 +1,17 @@
+-- Упрощенный полнотекстовый поиск для H2 (тесты): поиск по префиксам слов без стемминга
+ALTER TABLE events ADD COLUMN IF NOT EXISTS search_vector VARCHAR(10000)
+  GENERATED ALWAYS AS (LOWER(CONCAT_WS(' ', title, annotation, description)));
+
+CREATE ALIAS IF NOT EXISTS fts_match FOR 'ru.practicum.filter.H2FullTextFunctions.match';
+CREATE ALIAS IF NOT EXISTS fts_rank FOR 'ru.practicum.filter.H2FullTextFunctions.rank';
+
+CREATE ALIAS IF NOT EXISTS geo_distance_km FOR 'ru.practicum.filter.H2GeoFunctions.distanceKm';
+
+CREATE ALIAS IF NOT EXISTS upsert_location FOR 'ru.practicum.repository.H2LocationFunctions.upsertLocation';
+
+CREATE ALIAS IF NOT EXISTS add_friend_participation
+  FOR 'ru.practicum.repository.H2ParticipationFunctions.addFriendParticipation';
+CREATE ALIAS IF NOT EXISTS add_friend_participations
+  FOR 'ru.practicum.repository.H2ParticipationFunctions.addFriendParticipations';
+CREATE ALIAS IF NOT EXISTS add_pending_follower_participations
+  FOR 'ru.practicum.repository.H2ParticipationFunctions.addPendingFollowerParticipations';
@@ -0,0 +1,78 @@
+-- Полнотекстовый поиск событий. Конфигурация russian стеммит русские слова, а слова латиницей - английским стеммером
+ALTER TABLE events ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+  setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+  setweight(to_tsvector('russian', coalesce(annotation, '')), 'B') ||
+  setweight(to_tsvector('russian', coalesce(description, '')), 'C')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_events_search_vector ON events USING GIN (search_vector);
+
+-- Функции встраиваются планировщиком в запрос, поэтому условие fts_match использует GIN-индекс
+CREATE OR REPLACE FUNCTION fts_match(document tsvector, query text) RETURNS boolean
+  AS 'SELECT document @@ to_tsquery(''russian'', query)' LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION fts_rank(document tsvector, query text) RETURNS real
+  AS 'SELECT ts_rank(document, to_tsquery(''russian'', query))' LANGUAGE sql STABLE;
+
+-- Поиск по ячейкам geohash - диапазоны строк, поэтому нужно побайтовое сравнение
+ALTER TABLE locations ALTER COLUMN geohash TYPE VARCHAR(12) COLLATE "C";
+
+-- Расстояние по поверхности Земли (формула гаверсинусов), км
+CREATE OR REPLACE FUNCTION geo_distance_km(lat1 float8, lon1 float8, lat2 float8, lon2 float8) RETURNS float8
+  AS 'SELECT 2 * 6371.0088 * asin(least(1, sqrt(power(sin(radians(lat2 - lat1) / 2), 2)
+    + cos(radians(lat1)) * cos(radians(lat2)) * power(sin(radians(lon2 - lon1) / 2), 2))))'
+  LANGUAGE sql IMMUTABLE;
+
+-- Найти или создать место одним запросом. Если строку с теми же координатами параллельно вставила
+-- еще не видимая снимку транзакция, возвращается NULL и место нужно перечитать
+CREATE OR REPLACE FUNCTION upsert_location(p_lat real, p_lon real, p_geohash varchar) RETURNS bigint
+  AS 'WITH ins AS (
+        INSERT INTO locations (lat, lon, geohash) VALUES (p_lat, p_lon, p_geohash)
+        ON CONFLICT (lat, lon) DO NOTHING
+        RETURNING id)
+      SELECT id FROM ins
+      UNION ALL
+      SELECT id FROM locations WHERE lat = p_lat AND lon = p_lon
+      LIMIT 1'
+  LANGUAGE sql;
+
+-- Индекс "друзья идут": +1 всем подписчикам пользователя, чья заявка на событие подтверждена и открыта.
+-- ON CONFLICT DO UPDATE берет блокировку строки, поэтому одновременные увеличения не теряются
+CREATE OR REPLACE FUNCTION add_friend_participation(p_requester_id bigint, p_event_id bigint) RETURNS integer
+  AS 'WITH up AS (
+        INSERT INTO friend_participation (follower_id, event_id, event_date, friend_count)
+        SELECT DISTINCT f.follower_id, e.id, e.event_date, 1 FROM friendship f JOIN events e ON e.id = p_event_id
+        WHERE f.friend_id = p_requester_id AND f.state = ''APPROVED''
+        ON CONFLICT (follower_id, event_id)
+        DO UPDATE SET friend_count = friend_participation.friend_count + 1
+        RETURNING 1)
+      SELECT count(*)::integer FROM up'
+  LANGUAGE sql;
+
+-- +1 подписчику по подтвержденным открытым заявкам друга на события, которые начнутся позже p_after
+CREATE OR REPLACE FUNCTION add_friend_participations(p_follower_id bigint, p_friend_id bigint, p_after timestamp)
+  RETURNS integer
+  AS 'WITH up AS (
+        INSERT INTO friend_participation (follower_id, event_id, event_date, friend_count)
+        SELECT DISTINCT p_follower_id, e.id, e.event_date, 1 FROM requests r JOIN events e ON e.id = r.event_id
+        WHERE r.requester_id = p_friend_id AND r.status = ''CONFIRMED'' AND NOT r.private AND e.event_date > p_after
+        ON CONFLICT (follower_id, event_id)
+        DO UPDATE SET friend_count = friend_participation.friend_count + 1
+        RETURNING 1)
+      SELECT count(*)::integer FROM up'
+  LANGUAGE sql;
+
+-- +1 подписчикам с заявками в ожидании к p_friend_id (id не больше p_max_id) по его подтвержденным открытым заявкам
+-- на события, которые начнутся позже p_after: перед массовым подтверждением этих заявок
+CREATE OR REPLACE FUNCTION add_pending_follower_participations(p_friend_id bigint, p_max_id bigint,
+                                                               p_after timestamp) RETURNS integer
+  AS 'WITH up AS (
+        INSERT INTO friend_participation (follower_id, event_id, event_date, friend_count)
+        SELECT DISTINCT f.follower_id, e.id, e.event_date, 1 FROM friendship f
+        JOIN requests r ON r.requester_id = f.friend_id JOIN events e ON e.id = r.event_id
+        WHERE f.friend_id = p_friend_id AND f.state = ''PENDING'' AND f.id <= p_max_id
+          AND r.status = ''CONFIRMED'' AND NOT r.private AND e.event_date > p_after
+        ON CONFLICT (follower_id, event_id)
+        DO UPDATE SET friend_count = friend_participation.friend_count + 1
+        RETURNING 1)
+      SELECT count(*)::integer FROM up'
+  LANGUAGE sql;
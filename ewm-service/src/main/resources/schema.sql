@@ -1,3 +1,5 @@
+DROP TABLE IF EXISTS friend_participation;
+DROP TABLE IF EXISTS friend_feed;
 DROP TABLE IF EXISTS requests;
 DROP TABLE IF EXISTS compilation_events;
 DROP TABLE IF EXISTS events;
@@ -34,7 +36,9 @@ CREATE TABLE IF NOT EXISTS events (
   state VARCHAR,
   created_on TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-  published_on TIMESTAMP WITHOUT TIME ZONE
+  published_on TIMESTAMP WITHOUT TIME ZONE,
+  views BIGINT NOT NULL DEFAULT 0,
+  version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS compilation (
@@ -46,7 +50,9 @@ CREATE TABLE IF NOT EXISTS compilation (
 CREATE TABLE IF NOT EXISTS locations (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   lat FLOAT NOT NULL,
-  lon FLOAT NOT NULL
+  lon FLOAT NOT NULL,
+  geohash VARCHAR(12),
+  CONSTRAINT uq_locations_lat_lon UNIQUE (lat, lon)
 );
 
 CREATE TABLE compilation_events (
@@ -61,7 +67,8 @@ CREATE TABLE IF NOT EXISTS requests (
     event_id BIGINT REFERENCES events (id) ON DELETE CASCADE,
     requester_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    private BOOLEAN NOT NULL DEFAULT true
+    private BOOLEAN NOT NULL DEFAULT true,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS friendship (
@@ -72,10 +79,38 @@ CREATE TABLE IF NOT EXISTS friendship (
   created_on TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS friend_feed (
+  follower_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+  event_id BIGINT NOT NULL REFERENCES events (id) ON DELETE CASCADE,
+  event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  PRIMARY KEY (follower_id, event_id)
+);
+
+CREATE TABLE IF NOT EXISTS friend_participation (
+  follower_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+  event_id BIGINT NOT NULL REFERENCES events (id) ON DELETE CASCADE,
+  event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  friend_count INT NOT NULL,
+  PRIMARY KEY (follower_id, event_id)
+);
+
 ALTER TABLE events ADD FOREIGN KEY (category_id) REFERENCES categories (id);
 ALTER TABLE events ADD FOREIGN KEY (initiator_id) REFERENCES users (id);
 ALTER TABLE events ADD FOREIGN KEY (location_id) REFERENCES locations (id);
 
+CREATE INDEX IF NOT EXISTS idx_events_state_event_date ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS idx_events_state_views ON events (state, views DESC, id);
+CREATE INDEX IF NOT EXISTS idx_locations_geohash ON locations (geohash);
+CREATE INDEX IF NOT EXISTS idx_friend_feed_follower_event_date ON friend_feed (follower_id, event_date, event_id);
+CREATE INDEX IF NOT EXISTS idx_friend_feed_event ON friend_feed (event_id);
+CREATE INDEX IF NOT EXISTS idx_friend_feed_event_date ON friend_feed (event_date);
+CREATE INDEX IF NOT EXISTS idx_friend_participation_follower_count
+  ON friend_participation (follower_id, friend_count DESC, event_date, event_id);
+CREATE INDEX IF NOT EXISTS idx_friend_participation_event ON friend_participation (event_id);
+CREATE INDEX IF NOT EXISTS idx_friend_participation_event_date ON friend_participation (event_date);
+CREATE INDEX IF NOT EXISTS idx_friendship_follower_state_created ON friendship (follower_id, state, created_on, id);
+CREATE INDEX IF NOT EXISTS idx_friendship_friend_state_created ON friendship (friend_id, state, created_on, id);
+
 ALTER TABLE compilation_events ADD FOREIGN KEY (compilation_id) REFERENCES compilation (id);
 ALTER TABLE compilation_events ADD FOREIGN KEY (event_id) REFERENCES events (id);
 
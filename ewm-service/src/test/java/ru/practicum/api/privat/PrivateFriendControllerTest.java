@@ -12,17 +12,25 @@ import ru.practicum.dto.user.UserDto;
 import ru.practicum.mapper.EventMapper;
 import ru.practicum.model.Event;
 import ru.practicum.service.subs.FriendService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
+import ru.practicum.utils.ParticipationCursor;
 import ru.practicum.utils.TestInitDataUtil;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
 
 @WebMvcTest(controllers = PrivateFriendController.class)
 class PrivateFriendControllerTest {
@@ -68,6 +76,17 @@ class PrivateFriendControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getMutualFriends() throws Exception {
+        when(service.getMutualFriends(anyLong(), anyLong())).thenReturn(List.of(userDto));
+
+        mvc.perform(get("/users/{userId}/friends/{otherId}/mutual", 1, 2)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(service).getMutualFriends(1L, 2L);
+    }
+
     @Test
     void getParticipateEvents() throws Exception {
         when(service.getParticipateEvents(anyLong(), anyInt(), anyInt())).thenReturn(eventShortDtoList);
@@ -91,4 +110,36 @@ class PrivateFriendControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFriendEvents_Cursor() throws Exception {
+        final String nextCursor = EventCursor.ofEventDate(LocalDateTime.now(), 2L).encode();
+        when(service.getFriendEvents(anyLong(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(eventShortDtoList, nextCursor));
+
+        mvc.perform(get("/users/{userId}/friends/events", 1)
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR_HEADER, nextCursor));
+
+        verify(service).getFriendEvents(1L, "", 2);
+    }
+
+    @Test
+    void getParticipateEvents_Cursor() throws Exception {
+        final String nextCursor = new ParticipationCursor(2, LocalDateTime.now(), 2L).encode();
+        when(service.getParticipateEvents(anyLong(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(eventShortDtoList, nextCursor));
+
+        mvc.perform(get("/users/{userId}/friends/share", 1)
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR_HEADER, nextCursor));
+
+        verify(service).getParticipateEvents(1L, "", 2);
+    }
+}
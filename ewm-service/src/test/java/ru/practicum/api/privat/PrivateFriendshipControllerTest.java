@@ -7,24 +7,33 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.dto.subs.FriendshipBulkUpdateResult;
 import ru.practicum.dto.subs.FriendshipDto;
 import ru.practicum.dto.subs.FriendshipShortDto;
 import ru.practicum.dto.user.UserShortDto;
 import ru.practicum.service.subs.FriendshipService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.FriendshipCursor;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
 
 @WebMvcTest(controllers = PrivateFriendshipController.class)
 class PrivateFriendshipControllerTest {
@@ -94,7 +103,7 @@ class PrivateFriendshipControllerTest {
 
     @Test
     void getFriendshipRequests() throws Exception {
-        when(service.getFriendshipRequests(anyLong(), anyString())).thenReturn(List.of(friendshipShortDto));
+        when(service.getFriendshipRequests(anyLong(), anyString(), anyInt(), anyInt())).thenReturn(List.of(friendshipShortDto));
 
         mvc.perform(get("/users/{userId}/friendships/requests", 1)
                         .param("filter", "ALL")
@@ -106,7 +115,7 @@ class PrivateFriendshipControllerTest {
 
     @Test
     void getIncomingFriendRequests() throws Exception {
-        when(service.getIncomingFriendRequests(anyLong(), anyString())).thenReturn(List.of(friendshipShortDto));
+        when(service.getIncomingFriendRequests(anyLong(), anyString(), anyInt(), anyInt())).thenReturn(List.of(friendshipShortDto));
 
         mvc.perform(get("/users/{userId}/friendships/requests", 1)
                         .param("filter", "ALL")
@@ -115,4 +124,55 @@ class PrivateFriendshipControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFriendshipRequests_Page() throws Exception {
+        when(service.getFriendshipRequests(anyLong(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of(friendshipShortDto));
+
+        mvc.perform(get("/users/{userId}/friendships/requests", 1)
+                        .param("filter", "PENDING")
+                        .param("from", "20")
+                        .param("size", "10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(service).getFriendshipRequests(1L, "PENDING", 20, 10);
+    }
+
+    @Test
+    void getIncomingFriendRequests_Cursor() throws Exception {
+        final String nextCursor = new FriendshipCursor(LocalDateTime.now(), 2L).encode();
+        when(service.getIncomingFriendRequests(anyLong(), anyString(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(List.of(friendshipShortDto), nextCursor));
+
+        mvc.perform(get("/users/{userId}/friendships/followers", 1)
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR_HEADER, nextCursor));
+
+        verify(service).getIncomingFriendRequests(1L, "ALL", "", 1);
+    }
+
+    @Test
+    void getFriendshipRequests_throwException_whenSizeNotPositive() throws Exception {
+        mvc.perform(get("/users/{userId}/friendships/requests", 1)
+                        .param("size", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void approveAllPending() throws Exception {
+        when(service.approveAllPending(anyLong())).thenReturn(new FriendshipBulkUpdateResult(3));
+
+        mvc.perform(patch("/users/{userId}/friendships/approve-all", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.approvedCount").value(3));
+
+        verify(service).approveAllPending(1L);
+    }
+}
@@ -8,12 +8,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.dto.user.UserDto;
-import ru.practicum.service.user.UserService;
+import ru.practicum.service.subs.FriendshipService;
 
 import java.nio.charset.StandardCharsets;
 
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -21,7 +22,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(controllers = PrivateUserController.class)
 class PrivateUserControllerTest {
     @MockBean
-    private UserService userService;
+    private FriendshipService friendshipService;
     @Autowired
     private MockMvc mvc;
     private UserDto userDto;
@@ -39,7 +40,7 @@ class PrivateUserControllerTest {
 
     @Test
     void changeSubscribeMode() throws Exception {
-        when(userService.changeSubscribeMode(anyLong(), anyBoolean())).thenReturn(userDto);
+        when(friendshipService.changeSubscribeMode(anyLong(), anyBoolean(), anyBoolean())).thenReturn(userDto);
 
         mvc.perform(patch("/users/{userId}/subs", 1L)
                         .param("auto", "true")
@@ -47,5 +48,33 @@ class PrivateUserControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
+
+        verify(friendshipService).changeSubscribeMode(1L, true, false);
+    }
+
+    @Test
+    void changeSubscribeMode_ApprovePending() throws Exception {
+        when(friendshipService.changeSubscribeMode(anyLong(), anyBoolean(), anyBoolean())).thenReturn(userDto);
+
+        mvc.perform(patch("/users/{userId}/subs", 1L)
+                        .param("auto", "true")
+                        .param("approvePending", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(friendshipService).changeSubscribeMode(1L, true, true);
+    }
+
+    @Test
+    void changeSubscribeMode_AutoSubscribeDisabled() throws Exception {
+        when(friendshipService.changeSubscribeMode(anyLong(), anyBoolean(), anyBoolean())).thenReturn(userDto);
+
+        mvc.perform(patch("/users/{userId}/subs", 1L)
+                        .param("auto", "false")
+                        .param("approvePending", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(friendshipService).changeSubscribeMode(1L, false, true);
     }
 }
\ No newline at end of file
@@ -10,9 +10,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.enums.SortType;
+import ru.practicum.filter.GeoArea;
 import ru.practicum.mapper.EventMapper;
 import ru.practicum.model.Event;
 import ru.practicum.service.event.EventService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
 import ru.practicum.utils.TestInitDataUtil;
 
 import javax.servlet.http.HttpServletRequest;
@@ -26,9 +30,14 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.utils.Constants.NEXT_CURSOR_HEADER;
 
 @WebMvcTest(controllers = PublicEventController.class)
 class PublicEventControllerTest {
@@ -66,7 +75,7 @@ class PublicEventControllerTest {
 
     @Test
     void getPublishedEvents() throws Exception {
-        when(eventService.getPublishedEvents(anyString(), anyList(), anyBoolean(), any(), any(), anyBoolean(),
+        when(eventService.getPublishedEvents(anyString(), anyList(), anyBoolean(), any(), any(), anyBoolean(), isNull(),
                 any(), anyInt(), anyInt(), any())
         ).thenReturn(eventFullDtoList);
 
@@ -82,4 +91,65 @@ class PublicEventControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPublishedEvents_Cursor() throws Exception {
+        final EventShortDto last = eventFullDtoList.get(1);
+        final String cursor = EventCursor.ofEventDate(eventFullDtoList.get(0).getEventDate(), 1L).encode();
+        final String nextCursor = EventCursor.ofEventDate(last.getEventDate(), last.getId()).encode();
+        when(eventService.getPublishedEvents(any(), any(), any(), any(), any(), anyBoolean(), isNull(),
+                any(), anyString(), anyInt(), any())
+        ).thenReturn(new CursorPage<>(List.of(eventFullDtoList.get(0), last), nextCursor));
+
+        mvc.perform(get("/events")
+                        .param("cursor", cursor)
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR_HEADER, nextCursor));
+
+        verify(eventService).getPublishedEvents(any(), any(), any(), any(), any(), anyBoolean(), isNull(),
+                any(), eq(cursor), eq(2), any());
+    }
+
+    @Test
+    void getPublishedEvents_LastPage_NoCursor() throws Exception {
+        when(eventService.getPublishedEvents(any(), any(), any(), any(), any(), anyBoolean(), isNull(),
+                any(), anyString(), anyInt(), any())
+        ).thenReturn(new CursorPage<>(List.of(eventFullDtoList.get(0)), null));
+
+        mvc.perform(get("/events")
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getPublishedEvents_GeoArea() throws Exception {
+        when(eventService.getPublishedEvents(any(), any(), any(), any(), any(), anyBoolean(), any(GeoArea.class),
+                any(), anyInt(), anyInt(), any())
+        ).thenReturn(eventFullDtoList);
+
+        mvc.perform(get("/events")
+                        .param("lat", "55.75")
+                        .param("lon", "37.62")
+                        .param("radius", "5")
+                        .param("sort", "DISTANCE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(eventService).getPublishedEvents(any(), any(), any(), any(), any(), anyBoolean(),
+                eq(new GeoArea(55.75, 37.62, 5)), eq(SortType.DISTANCE), eq(0), eq(10), any());
+    }
+
+    @Test
+    void getPublishedEvents_GeoArea_throwException_whenRadiusMissing() throws Exception {
+        mvc.perform(get("/events")
+                        .param("lat", "55.75")
+                        .param("lon", "37.62")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
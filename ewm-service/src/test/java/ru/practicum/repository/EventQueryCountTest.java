@@ -0,0 +1,245 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.dto.event.EventFullDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.dto.user.UserDto;
+import ru.practicum.enums.EventState;
+import ru.practicum.enums.FriendshipState;
+import ru.practicum.enums.RequestStatus;
+import ru.practicum.enums.SortType;
+import ru.practicum.mapper.EventMapper;
+import ru.practicum.model.Event;
+import ru.practicum.model.Friendship;
+import ru.practicum.model.QEvent;
+import ru.practicum.model.Request;
+import ru.practicum.model.User;
+import ru.practicum.service.subs.FriendServiceImpl;
+import ru.practicum.service.subs.FriendshipGraph;
+import ru.practicum.service.user.UserService;
+import ru.practicum.utils.CursorPage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static ru.practicum.utils.TestInitDataUtil.getCategoryList;
+import static ru.practicum.utils.TestInitDataUtil.getEventList;
+import static ru.practicum.utils.TestInitDataUtil.getUserList;
+
+/**
+ * Количество SQL-запросов на чтение событий вместе с полями, которые читает EventMapper.
+ * Рост числа запросов означает, что вернулась проблема N+1
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EventQueryCountTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EventRepository repository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private FriendFeedRepository friendFeedRepository;
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+    @Autowired
+    private FriendParticipationRepository friendParticipationRepository;
+    private Statistics statistics;
+    private List<Event> eventList;
+    private List<User> userList;
+    private final Predicate published = QEvent.event.state.eq(EventState.PUBLISHED);
+
+    @BeforeEach
+    void setUp() {
+        userList = getUserList(userRepository);
+        eventList = getEventList(repository, locationRepository, getCategoryList(categoryRepository), userList);
+        eventList.forEach(e -> {
+            e.setState(EventState.PUBLISHED);
+            e.setEventDate(LocalDateTime.now().plusDays(1));
+        });
+        repository.saveAll(eventList);
+        final List<Long> friendshipIds = new ArrayList<>();
+        for (int i = 1; i < userList.size(); i++) {
+            friendshipIds.add(em.persistAndGetId(Friendship.builder()
+                    .follower(userList.get(0))
+                    .friend(userList.get(i))
+                    .state(FriendshipState.APPROVED)
+                    .createdOn(LocalDateTime.now())
+                    .build(), Long.class));
+            em.persist(Request.builder()
+                    .requester(userList.get(i))
+                    .event(eventList.get(i - 1))
+                    .created(LocalDateTime.now())
+                    .status(RequestStatus.CONFIRMED)
+                    .isPrivate(false)
+                    .build());
+        }
+        em.flush();
+        friendFeedRepository.addFriendEvents(friendshipIds, LocalDateTime.now());
+        for (int i = 1; i < userList.size(); i++) {
+            friendParticipationRepository.addFriendParticipations(userList.get(0).getId(), userList.get(i).getId(),
+                    LocalDateTime.now());
+        }
+        em.clear();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_Predicate() {
+        final int size = EventMapper.toDto(repository.findAll(published, PAGE).getContent()).size();
+
+        assertEquals(3, size);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAll() {
+        repository.findAll(PAGE).getContent().forEach(EventMapper::toFullDto);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllByInitiatorId() {
+        repository.findAllByInitiatorId(userList.get(0).getId(), PAGE).getContent().forEach(EventMapper::toFullDto);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdAndState() {
+        EventMapper.toFullDto(repository.findByIdAndState(eventList.get(0).getId(), EventState.PUBLISHED).orElseThrow());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /** Проекции читают DTO одним запросом и не загружают сущности в контекст персистентности */
+    @Test
+    void findShortDtos() {
+        assertEquals(3, repository.findShortDtos(published, PAGE).size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findShortDtosAfter() {
+        assertEquals(3, repository.findShortDtosAfter(published, SortType.EVENT_DATE, null, 10).size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findFullDtos() {
+        final List<EventFullDto> events = repository.findFullDtos(published, PAGE);
+
+        assertEquals(3, events.size());
+        events.forEach(e -> assertNotNull(e.getLocation()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    /** Чтение без графа сущностей: связи догружаются пачками, по запросу на связь, а не на событие */
+    @Test
+    void findAllById_BatchFetch() {
+        final List<Long> ids = eventList.stream().map(Event::getId).collect(Collectors.toList());
+        repository.findAllById(ids).forEach(EventMapper::toFullDto);
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getFriendEvents() {
+        final FriendServiceImpl service = new FriendServiceImpl(mock(UserService.class), mock(FriendshipGraph.class),
+                em.getEntityManager());
+
+        assertEquals(2, service.getFriendEvents(userList.get(0).getId(), 0, 10).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    /** С построенным графом дружб друзья читаются одним запросом по первичному ключу */
+    @Test
+    void getFriends_Graph() {
+        final FriendshipGraph graph = new FriendshipGraph(friendshipRepository, new SimpleMeterRegistry(), true, 10);
+        graph.build();
+        statistics.clear();
+        final FriendServiceImpl service = new FriendServiceImpl(mock(UserService.class), graph, em.getEntityManager());
+
+        final List<Long> friendIds = service.getFriends(userList.get(0).getId()).stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(userList.get(1).getId(), userList.get(2).getId()), friendIds);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getFriendEvents_Cursor() {
+        final FriendServiceImpl service = new FriendServiceImpl(mock(UserService.class), mock(FriendshipGraph.class),
+                em.getEntityManager());
+
+        final CursorPage<EventShortDto> page = service.getFriendEvents(userList.get(0).getId(), "", 1);
+        assertEquals(1, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        final CursorPage<EventShortDto> next = service.getFriendEvents(userList.get(0).getId(), page.getNextCursor(), 2);
+        assertEquals(1, next.getItems().size());
+        assertNotEquals(page.getItems().get(0).getId(), next.getItems().get(0).getId());
+        assertNull(next.getNextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getParticipateEvents() {
+        final FriendServiceImpl service = new FriendServiceImpl(mock(UserService.class), mock(FriendshipGraph.class),
+                em.getEntityManager());
+
+        assertEquals(2, service.getParticipateEvents(userList.get(0).getId(), 0, 10).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getParticipateEvents_Cursor() {
+        final FriendServiceImpl service = new FriendServiceImpl(mock(UserService.class), mock(FriendshipGraph.class),
+                em.getEntityManager());
+
+        final CursorPage<EventShortDto> page = service.getParticipateEvents(userList.get(0).getId(), "", 1);
+        assertEquals(1, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        final CursorPage<EventShortDto> next =
+                service.getParticipateEvents(userList.get(0).getId(), page.getNextCursor(), 2);
+        assertEquals(1, next.getItems().size());
+        assertNotEquals(page.getItems().get(0).getId(), next.getItems().get(0).getId());
+        assertNull(next.getNextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -1,18 +1,31 @@
 package ru.practicum.repository;
 
+import com.querydsl.core.types.Predicate;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.enums.EventState;
+import ru.practicum.enums.SortType;
+import ru.practicum.filter.EventPredicate;
+import ru.practicum.filter.FullTextQuery;
+import ru.practicum.filter.GeoArea;
 import ru.practicum.model.Category;
 import ru.practicum.model.Event;
+import ru.practicum.model.Location;
+import ru.practicum.model.QEvent;
 import ru.practicum.model.User;
+import ru.practicum.utils.EventCursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -32,6 +45,8 @@ class EventRepositoryTest {
     private CategoryRepository categoryRepository;
     @Autowired
     private LocationRepository locationRepository;
+    @Autowired
+    private TestEntityManager entityManager;
     private List<Event> eventList;
     private List<User> userList;
     private List<Category> categoryList;
@@ -82,4 +97,170 @@ class EventRepositoryTest {
         final Optional<Event> eventOptional = repository.findByIdAndState(id, EventState.PENDING);
         assertEquals(event, eventOptional.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findShortDtos_OrderByRank() {
+        eventList.get(0).setDescription("Джазовый фестиваль под открытым небом");
+        eventList.get(1).setTitle("Jazz night");
+        eventList.get(2).setAnnotation("Фестиваль фестивалей");
+        repository.saveAll(eventList);
+        final String query = FullTextQuery.of("ФЕСТ");
+
+        final List<EventShortDto> events = repository.findShortDtos(
+                EventPredicate.getTextFilter(query), EventPredicate.getTextRank(query).desc(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(eventList.get(2).getId(), eventList.get(0).getId()),
+                events.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findShortDtos_WithinArea_OrderByDistance() {
+        eventList.get(0).setLocation(locationRepository.save(new Location(null, 55.78f, 37.60f)));//~3 км от центра
+        eventList.get(1).setLocation(locationRepository.save(new Location(null, 59.94f, 30.31f)));//Санкт-Петербург
+        eventList.get(2).setLocation(locationRepository.save(new Location(null, 55.755f, 37.615f)));
+        repository.saveAll(eventList);
+        final GeoArea area = new GeoArea(55.7558, 37.6173, 10);
+
+        final List<EventShortDto> events = repository.findShortDtos(
+                EventPredicate.getWithinArea(area), EventPredicate.getDistance(area).asc(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(eventList.get(2).getId(), eventList.get(0).getId()),
+                events.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findById_SearchVectorNotLoaded() {
+        entityManager.flush();
+        entityManager.clear();
+
+        final Event event = repository.findById(eventList.get(0).getId()).orElseThrow();
+
+        assertFalse(Hibernate.isInitialized(event.getSearchDocument()));
+    }
+
+    @Test
+    void findShortDtos_TextFilter_AllTermsRequired() {
+        eventList.get(0).setDescription("Джазовый фестиваль под открытым небом");
+        eventList.get(1).setTitle("Jazz фестиваль");
+        repository.saveAll(eventList);
+
+        final List<EventShortDto> events = repository.findShortDtos(
+                EventPredicate.getTextFilter(FullTextQuery.of("джаз, фест!")), PageRequest.of(0, 10));
+
+        assertEquals(List.of(eventList.get(0).getId()),
+                events.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findShortDtosAfter() {
+        final LocalDateTime eventDate = LocalDateTime.of(2030, 1, 1, 10, 0);
+        eventList.forEach(e -> e.setEventDate(eventDate));
+        repository.saveAll(eventList);
+        final Predicate pending = QEvent.event.state.eq(EventState.PENDING);
+
+        final List<EventShortDto> first = repository.findShortDtosAfter(pending, null, null, 2);
+        final List<EventShortDto> second = repository.findShortDtosAfter(pending, null,
+                EventCursor.of(SortType.EVENT_DATE, first.get(first.size() - 1)), 2);
+
+        assertEquals(List.of(eventList.get(0).getId(), eventList.get(1).getId()),
+                first.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(eventList.get(2).getId()),
+                second.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findShortDtosAfter_SortByViews() {
+        repository.updateViews(eventList.get(0).getId(), 5);
+        repository.updateViews(eventList.get(1).getId(), 9);
+        repository.updateViews(eventList.get(2).getId(), 5);
+        final Predicate pending = QEvent.event.state.eq(EventState.PENDING);
+
+        final List<EventShortDto> first = repository.findShortDtosAfter(pending, SortType.VIEWS, null, 2);
+        final List<EventShortDto> second = repository.findShortDtosAfter(pending, SortType.VIEWS,
+                EventCursor.of(SortType.VIEWS, first.get(first.size() - 1)), 2);
+
+        assertEquals(List.of(eventList.get(1).getId(), eventList.get(0).getId()),
+                first.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(eventList.get(2).getId()),
+                second.stream().map(EventShortDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void incrementConfirmedRequests_StopsAtParticipantLimit() {
+        final Event event = eventList.get(0);
+        event.setParticipantLimit(2);
+        event.setConfirmedRequests(1);
+        repository.save(event);
+
+        assertEquals(1, repository.incrementConfirmedRequests(event.getId()));
+        assertEquals(0, repository.incrementConfirmedRequests(event.getId()));
+    }
+
+    @Test
+    void incrementConfirmedRequests_NoParticipantLimit() {
+        final Event event = eventList.get(0);
+        event.setParticipantLimit(0);
+        event.setConfirmedRequests(100);
+        repository.save(event);
+
+        assertEquals(1, repository.incrementConfirmedRequests(event.getId()));
+    }
+
+    @Test
+    void addConfirmedRequests_OnlyIfNotChanged() {
+        final Event event = eventList.get(0);
+        event.setConfirmedRequests(1);
+        repository.save(event);
+
+        assertEquals(0, repository.addConfirmedRequests(event.getId(), 0, 2));
+        assertEquals(1, repository.addConfirmedRequests(event.getId(), 1, 2));
+        assertEquals(3, repository.findConfirmedRequestsById(event.getId()));
+    }
+
+    @Test
+    void save_IncrementVersion_butNotOnCounterUpdates() {
+        final Event event = eventList.get(0);
+        final long version = event.getVersion();
+
+        repository.incrementConfirmedRequests(event.getId());
+        repository.updateViews(event.getId(), 10);
+        final Event loaded = repository.findById(event.getId()).get();
+        assertEquals(version, loaded.getVersion());
+
+        loaded.setTitle("New title");
+        assertEquals(version + 1, repository.saveAndFlush(loaded).getVersion());
+    }
+
+    @Test
+    void findViewsByStateAndIdAfter() {
+        eventList.get(1).setState(EventState.PUBLISHED);
+        eventList.get(2).setState(EventState.PUBLISHED);
+        repository.saveAll(eventList);
+        repository.updateViews(eventList.get(2).getId(), 3);
+
+        final List<EventRepository.EventViews> views = repository.findViewsByStateAndIdAfter(EventState.PUBLISHED,
+                eventList.get(1).getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, views.size());
+        assertEquals(eventList.get(2).getId(), views.get(0).getId());
+        assertEquals(3L, views.get(0).getViews());
+    }
+
+    @Test
+    void findTextByStateAndIdAfter() {
+        eventList.get(1).setState(EventState.PUBLISHED);
+        eventList.get(1).setPaid(true);
+        repository.saveAll(eventList);
+
+        final List<EventRepository.EventText> events = repository.findTextByStateAndIdAfter(EventState.PUBLISHED,
+                0, PageRequest.of(0, 10));
+
+        assertEquals(1, events.size());
+        assertEquals(eventList.get(1).getId(), events.get(0).getId());
+        assertEquals("Title2", events.get(0).getTitle());
+        assertEquals("Annotation2", events.get(0).getAnnotation());
+        assertEquals("Description2", events.get(0).getDescription());
+        assertEquals(categoryList.get(1).getId(), events.get(0).getCategoryId());
+        assertEquals(true, events.get(0).getPaid());
+    }
+}
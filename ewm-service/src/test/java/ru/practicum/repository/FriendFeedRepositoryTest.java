@@ -0,0 +1,154 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.enums.EventState;
+import ru.practicum.enums.FriendshipState;
+import ru.practicum.model.Event;
+import ru.practicum.model.FriendFeedEntry;
+import ru.practicum.model.Friendship;
+import ru.practicum.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.utils.TestInitDataUtil.getCategoryList;
+import static ru.practicum.utils.TestInitDataUtil.getEventList;
+import static ru.practicum.utils.TestInitDataUtil.getUserList;
+
+@DataJpaTest
+class FriendFeedRepositoryTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private FriendFeedRepository repository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    private List<User> users;
+    private List<Event> events;
+
+    @BeforeEach
+    void setUp() {
+        users = getUserList(userRepository);
+        events = getEventList(eventRepository, locationRepository, getCategoryList(categoryRepository), users);
+        events.forEach(e -> {
+            e.setState(EventState.PUBLISHED);
+            e.setEventDate(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
+        });
+        eventRepository.saveAll(events);
+    }
+
+    @Test
+    void addEvent_OnlyApprovedFollowers() {
+        final User friend = users.get(1);
+        addFriendship(users.get(0), friend, FriendshipState.APPROVED);
+        addFriendship(users.get(2), friend, FriendshipState.PENDING);
+        final Event event = events.get(1);
+
+        assertEquals(1, repository.addEvent(event.getId(), friend.getId(), event.getEventDate()));
+        assertEquals(0, repository.addEvent(event.getId(), friend.getId(), event.getEventDate()));
+        assertEquals(Set.of(feedEntry(users.get(0), event)), Set.copyOf(repository.findAll()));
+    }
+
+    @Test
+    void addFriendEvents_OnlyPublishedUpcoming() {
+        final long friendshipId = addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        final Event past = eventRepository.save(events.get(0).toBuilder()
+                .id(null)
+                .initiator(users.get(1))
+                .eventDate(LocalDateTime.now().minusDays(1))
+                .build());
+        eventRepository.save(past.toBuilder().id(null).state(EventState.PENDING)
+                .eventDate(LocalDateTime.now().plusDays(2)).build());
+
+        assertEquals(1, repository.addFriendEvents(List.of(friendshipId), LocalDateTime.now()));
+        assertEquals(0, repository.addFriendEvents(List.of(friendshipId), LocalDateTime.now()));
+        assertEquals(List.of(feedEntry(users.get(0), events.get(1))), repository.findAll());
+    }
+
+    @Test
+    void addPendingFollowerEvents() {
+        final User friend = users.get(1);
+        final long pending = addFriendship(users.get(0), friend, FriendshipState.PENDING);
+        addFriendship(users.get(2), friend, FriendshipState.PENDING);
+
+        assertEquals(1, repository.addPendingFollowerEvents(friend.getId(), pending, LocalDateTime.now()));
+        assertEquals(List.of(feedEntry(users.get(0), events.get(1))), repository.findAll());
+    }
+
+    @Test
+    void removeFriendEvents() {
+        final long approved = addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        final long other = addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        repository.addFriendEvents(List.of(approved, other), LocalDateTime.now());
+
+        assertEquals(1, repository.removeFriendEvents(List.of(approved)));
+        assertEquals(List.of(feedEntry(users.get(0), events.get(2))), repository.findAll());
+    }
+
+    @Test
+    void removeFriendEvents_KeepEntries_whenFriendshipRejected() {
+        final long approved = addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        final long rejected = addFriendship(users.get(0), users.get(1), FriendshipState.REJECTED);
+        repository.addFriendEvents(List.of(approved), LocalDateTime.now());
+
+        assertEquals(0, repository.removeFriendEvents(List.of(rejected)));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void moveEvent() {
+        addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        final Event event = events.get(1);
+        repository.addEvent(event.getId(), users.get(1).getId(), event.getEventDate());
+        final LocalDateTime newDate = event.getEventDate().plusDays(3);
+
+        assertEquals(1, repository.moveEvent(event.getId(), newDate));
+        em.clear();
+        assertEquals(newDate, repository.findAll().get(0).getEventDate());
+    }
+
+    @Test
+    void deleteByEventDateBefore() {
+        final long friendshipId = addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        final long otherId = addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        repository.addFriendEvents(List.of(friendshipId, otherId), LocalDateTime.now());
+        final Event event = events.get(1);
+        repository.moveEvent(event.getId(), LocalDateTime.now().minusHours(1));
+
+        assertEquals(1, repository.deleteByEventDateBefore(LocalDateTime.now()));
+        em.clear();
+        final Set<Long> eventIds = repository.findAll().stream()
+                .map(FriendFeedEntry::getEventId)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(events.get(2).getId()), eventIds);
+        assertTrue(repository.findById(new FriendFeedEntry.Key(users.get(0).getId(), event.getId())).isEmpty());
+    }
+
+    private long addFriendship(User follower, User friend, FriendshipState state) {
+        return em.persistAndGetId(Friendship.builder()
+                .follower(follower)
+                .friend(friend)
+                .state(state)
+                .createdOn(LocalDateTime.now())
+                .build(), Long.class);
+    }
+
+    private static FriendFeedEntry feedEntry(User follower, Event event) {
+        return new FriendFeedEntry(follower.getId(), event.getId(), event.getEventDate());
+    }
+}
@@ -0,0 +1,185 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.enums.EventState;
+import ru.practicum.enums.FriendshipState;
+import ru.practicum.enums.RequestStatus;
+import ru.practicum.model.Event;
+import ru.practicum.model.FriendParticipation;
+import ru.practicum.model.Friendship;
+import ru.practicum.model.Request;
+import ru.practicum.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.utils.TestInitDataUtil.getCategoryList;
+import static ru.practicum.utils.TestInitDataUtil.getEventList;
+import static ru.practicum.utils.TestInitDataUtil.getUserList;
+
+@DataJpaTest
+class FriendParticipationRepositoryTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private FriendParticipationRepository repository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    private List<User> users;
+    private List<Event> events;
+
+    @BeforeEach
+    void setUp() {
+        users = getUserList(userRepository);
+        events = getEventList(eventRepository, locationRepository, getCategoryList(categoryRepository), users);
+        events.forEach(e -> {
+            e.setState(EventState.PUBLISHED);
+            e.setEventDate(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
+        });
+        eventRepository.saveAll(events);
+    }
+
+    @Test
+    void addParticipation_CountFriends() {
+        final Event event = events.get(0);
+        addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        addFriendship(users.get(1), users.get(2), FriendshipState.PENDING);
+
+        assertEquals(1, repository.addParticipation(users.get(1).getId(), event.getId()));
+        assertEquals(1, repository.addParticipation(users.get(2).getId(), event.getId()));
+        em.clear();
+        assertEquals(List.of(participation(users.get(0), event, 2)), repository.findAll());
+    }
+
+    @Test
+    void removeParticipation() {
+        final Event event = events.get(0);
+        addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        repository.addParticipation(users.get(1).getId(), event.getId());
+        repository.addParticipation(users.get(2).getId(), event.getId());
+
+        assertEquals(1, repository.removeParticipation(users.get(1).getId(), event.getId()));
+        em.clear();
+        assertEquals(List.of(participation(users.get(0), event, 1)), repository.findAll());
+    }
+
+    @Test
+    void addFriendParticipations_OnlyConfirmedPublicUpcoming() {
+        final User friend = users.get(1);
+        addRequest(friend, events.get(0), RequestStatus.CONFIRMED, false);
+        addRequest(friend, events.get(2), RequestStatus.CONFIRMED, true);
+        addRequest(friend, events.get(1), RequestStatus.PENDING, false);
+        final Event past = eventRepository.save(events.get(0).toBuilder()
+                .id(null)
+                .eventDate(LocalDateTime.now().minusDays(1))
+                .build());
+        addRequest(friend, past, RequestStatus.CONFIRMED, false);
+        addFriendship(users.get(0), friend, FriendshipState.APPROVED);
+
+        assertEquals(1, repository.addFriendParticipations(users.get(0).getId(), friend.getId(), LocalDateTime.now()));
+        em.clear();
+        assertEquals(List.of(participation(users.get(0), events.get(0), 1)), repository.findAll());
+    }
+
+    @Test
+    void addPendingFollowerParticipations() {
+        final User friend = users.get(1);
+        addRequest(friend, events.get(0), RequestStatus.CONFIRMED, false);
+        addRequest(friend, events.get(2), RequestStatus.CONFIRMED, false);
+        addFriendship(users.get(2), users.get(0), FriendshipState.APPROVED);
+        repository.addParticipation(users.get(0).getId(), events.get(0).getId());
+        final long maxId = addFriendship(users.get(0), friend, FriendshipState.PENDING);
+        addFriendship(users.get(2), friend, FriendshipState.APPROVED);
+
+        assertEquals(2, repository.addPendingFollowerParticipations(friend.getId(), maxId, LocalDateTime.now()));
+        em.clear();
+        final Set<FriendParticipation> expected = Set.of(
+                participation(users.get(2), events.get(0), 1),
+                participation(users.get(0), events.get(0), 1),
+                participation(users.get(0), events.get(2), 1));
+        assertEquals(expected, Set.copyOf(repository.findAll()));
+    }
+
+    @Test
+    void removeFriendParticipations() {
+        final User friend = users.get(1);
+        addRequest(friend, events.get(0), RequestStatus.CONFIRMED, false);
+        addRequest(users.get(2), events.get(0), RequestStatus.CONFIRMED, false);
+        addFriendship(users.get(0), friend, FriendshipState.APPROVED);
+        addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        repository.addFriendParticipations(users.get(0).getId(), friend.getId(), LocalDateTime.now());
+        repository.addFriendParticipations(users.get(0).getId(), users.get(2).getId(), LocalDateTime.now());
+
+        assertEquals(1, repository.removeFriendParticipations(users.get(0).getId(), friend.getId()));
+        em.clear();
+        assertEquals(List.of(participation(users.get(0), events.get(0), 1)), repository.findAll());
+    }
+
+    @Test
+    void moveEvent() {
+        final Event event = events.get(0);
+        addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        repository.addParticipation(users.get(1).getId(), event.getId());
+        final LocalDateTime newDate = event.getEventDate().plusDays(3);
+
+        assertEquals(1, repository.moveEvent(event.getId(), newDate));
+        em.clear();
+        assertEquals(newDate, repository.findAll().get(0).getEventDate());
+    }
+
+    @Test
+    void deleteObsolete() {
+        addFriendship(users.get(0), users.get(1), FriendshipState.APPROVED);
+        addFriendship(users.get(0), users.get(2), FriendshipState.APPROVED);
+        repository.addParticipation(users.get(1).getId(), events.get(0).getId());
+        repository.addParticipation(users.get(1).getId(), events.get(1).getId());
+        repository.addParticipation(users.get(2).getId(), events.get(2).getId());
+        repository.moveEvent(events.get(0).getId(), LocalDateTime.now().minusHours(1));
+        repository.removeParticipation(users.get(2).getId(), events.get(2).getId());
+
+        assertEquals(2, repository.deleteObsolete(LocalDateTime.now()));
+        em.clear();
+        assertEquals(List.of(participation(users.get(0), events.get(1), 1)), repository.findAll());
+        assertTrue(repository.findById(new FriendParticipation.Key(users.get(0).getId(), events.get(0).getId()))
+                .isEmpty());
+    }
+
+    private long addFriendship(User follower, User friend, FriendshipState state) {
+        return em.persistAndGetId(Friendship.builder()
+                .follower(follower)
+                .friend(friend)
+                .state(state)
+                .createdOn(LocalDateTime.now())
+                .build(), Long.class);
+    }
+
+    private void addRequest(User requester, Event event, RequestStatus status, boolean isPrivate) {
+        em.persist(Request.builder()
+                .requester(requester)
+                .event(event)
+                .status(status)
+                .isPrivate(isPrivate)
+                .created(LocalDateTime.now())
+                .build());
+    }
+
+    private static FriendParticipation participation(User follower, Event event, int friendCount) {
+        return new FriendParticipation(follower.getId(), event.getId(), event.getEventDate(), friendCount);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.enums.FriendshipState;
+import ru.practicum.model.Friendship;
+import ru.practicum.model.User;
+import ru.practicum.utils.FriendshipCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static ru.practicum.model.QFriendship.friendship;
+import static ru.practicum.utils.TestInitDataUtil.getUserList;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FriendshipRepositoryTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2023, 6, 1, 10, 0);
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private FriendshipRepository repository;
+    @Autowired
+    private UserRepository userRepository;
+    private List<User> users;
+    private List<Long> ids;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        users = getUserList(userRepository);
+        final User friend = users.get(0);
+        ids = List.of(
+                addFriendship(users.get(1), friend, FriendshipState.PENDING, CREATED),
+                addFriendship(users.get(2), friend, FriendshipState.PENDING, CREATED),
+                addFriendship(users.get(1), friend, FriendshipState.REJECTED, CREATED.minusDays(1)),
+                addFriendship(users.get(2), friend, FriendshipState.APPROVED, CREATED.plusDays(1)));
+        em.flush();
+        em.clear();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findShortDtos_NewestFirst() {
+        final List<FriendshipShortDto> dtos =
+                repository.findShortDtos(friendship.friend.id.eq(users.get(0).getId()), PageRequest.of(1, 2));
+
+        assertEquals(List.of(ids.get(0), ids.get(2)), getIds(dtos));
+        assertEquals(users.get(0).getId(), dtos.get(0).getFriend().getId());
+        assertEquals(users.get(0).getName(), dtos.get(0).getFriend().getName());
+        assertEquals(CREATED, dtos.get(0).getCreated());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findShortDtosAfter() {
+        final FriendshipCursor cursor = new FriendshipCursor(CREATED, ids.get(1));
+        final List<FriendshipShortDto> dtos = repository.findShortDtosAfter(
+                friendship.friend.id.eq(users.get(0).getId()).and(friendship.state.eq(FriendshipState.PENDING)),
+                cursor, 10);
+
+        assertEquals(List.of(ids.get(0)), getIds(dtos));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findShortDtosAfter_FirstPage() {
+        final List<FriendshipShortDto> dtos =
+                repository.findShortDtosAfter(friendship.follower.id.eq(users.get(2).getId()), null, 1);
+
+        assertEquals(List.of(ids.get(3)), getIds(dtos));
+    }
+
+    @Test
+    void updateStateByFriendId() {
+        final long later = addFriendship(users.get(2), users.get(0), FriendshipState.PENDING, CREATED);
+
+        assertEquals(2, repository.updateStateByFriendId(users.get(0).getId(), FriendshipState.PENDING,
+                FriendshipState.APPROVED, ids.get(3)));
+        em.clear();
+        assertEquals(FriendshipState.APPROVED, repository.findById(ids.get(0)).orElseThrow().getState());
+        assertEquals(FriendshipState.APPROVED, repository.findById(ids.get(1)).orElseThrow().getState());
+        assertEquals(FriendshipState.REJECTED, repository.findById(ids.get(2)).orElseThrow().getState());
+        assertEquals(FriendshipState.PENDING, repository.findById(later).orElseThrow().getState());
+    }
+
+    @Test
+    void updateStateById_OnlyFirstChangeCounted() {
+        assertEquals(1, repository.updateStateById(ids.get(0), FriendshipState.APPROVED));
+        assertEquals(0, repository.updateStateById(ids.get(0), FriendshipState.APPROVED));
+        assertEquals(0, repository.updateStateById(ids.get(3), FriendshipState.APPROVED));
+        em.clear();
+        assertEquals(FriendshipState.APPROVED, repository.findById(ids.get(0)).orElseThrow().getState());
+    }
+
+    @Test
+    void findEdgesByFriendIdAndState() {
+        final List<Long> followerIds = repository.findEdgesByFriendIdAndState(users.get(0).getId(),
+                        FriendshipState.PENDING).stream()
+                .map(FriendshipRepository.FriendshipEdge::getFollowerId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(users.get(1).getId(), users.get(2).getId()), followerIds);
+    }
+
+    private long addFriendship(User follower, User friend, FriendshipState state, LocalDateTime createdOn) {
+        return em.persistAndGetId(Friendship.builder()
+                .follower(follower)
+                .friend(friend)
+                .state(state)
+                .createdOn(createdOn)
+                .build(), Long.class);
+    }
+
+    private static List<Long> getIds(List<FriendshipShortDto> dtos) {
+        return dtos.stream().map(FriendshipShortDto::getId).collect(Collectors.toList());
+    }
+}
@@ -4,11 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.model.Location;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
 class LocationRepositoryTest {
@@ -29,4 +31,25 @@ class LocationRepositoryTest {
 
         assertEquals(location, locationOptional.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    void upsert_ExistingLocation() {
+        assertEquals(location.getId(), repository.upsert(lat, lon, location.getGeohash()));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void upsert_NewLocation() {
+        final Long id = repository.upsert(55.75F, 37.62F, "ucfv0");
+
+        assertEquals(id, repository.upsert(55.75F, 37.62F, "ucfv0"));
+        assertEquals(id, repository.findByLatAndLon(55.75F, 37.62F).get().getId());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void save_throwException_whenDuplicateCoordinates() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.saveAndFlush(Location.builder().lat(lat).lon(lon).build()));
+    }
+}
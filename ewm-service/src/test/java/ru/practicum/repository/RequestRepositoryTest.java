@@ -14,6 +14,7 @@ import ru.practicum.model.User;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -66,6 +67,46 @@ class RequestRepositoryTest {
         assertEquals(List.of(requestList.get(1)), actualRequests);
     }
 
+    @Test
+    void findViewsByIdInAndEventIdAndStatus() {
+        final Request request = requestList.get(0);
+        final List<Long> ids = List.of(request.getId(), requestList.get(1).getId(), requestList.get(2).getId());
+
+        final List<RequestRepository.RequestView> views = repository.findViewsByIdInAndEventIdAndStatus(ids,
+                events.get(1).getId(), RequestStatus.PENDING);
+
+        assertEquals(1, views.size());
+        assertEquals(request.getId(), views.get(0).getId());
+        assertEquals(request.getEvent().getId(), views.get(0).getEventId());
+        assertEquals(request.getRequester().getId(), views.get(0).getRequesterId());
+        assertFalse(views.get(0).getIsPrivate());
+    }
+
+    @Test
+    void updateStatus_OnlyFromStatus() {
+        final Long id1 = requestList.get(0).getId();
+        final Long id2 = requestList.get(1).getId();
+
+        final int updated = repository.updateStatus(List.of(id1, id2), RequestStatus.PENDING, RequestStatus.REJECTED);
+
+        assertEquals(1, updated);
+        assertEquals(List.of(id1), repository.findViewsByIdInAndEventIdAndStatus(List.of(id1),
+                        events.get(1).getId(), RequestStatus.REJECTED).stream()
+                .map(RequestRepository.RequestView::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void updateStatusByEventId() {
+        final long eventId = events.get(2).getId();
+
+        final int updated = repository.updateStatusByEventId(eventId, RequestStatus.PENDING, RequestStatus.REJECTED);
+
+        assertEquals(1, updated);
+        assertEquals(0, repository.updateStatusByEventId(events.get(0).getId(),
+                RequestStatus.PENDING, RequestStatus.REJECTED));
+    }
+
     @Test
     void findAllByInitiatorIdAndEventId() {
         final Long userId = users.get(1).getId();
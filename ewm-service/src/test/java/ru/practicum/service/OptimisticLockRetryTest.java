@@ -0,0 +1,67 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.practicum.exception.ConflictException;
+import ru.practicum.exception.NotFoundException;
+import ru.practicum.model.Event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimisticLockRetryTest {
+    private AtomicInteger attempts;
+    private OptimisticLockRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        attempts = new AtomicInteger();
+        retry = new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 3, 1, 2);
+    }
+
+    @Test
+    void execute_RetryUntilSuccess() {
+        final String result = retry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) throw conflict();
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_throwConflict_whenAttemptsExhausted() {
+        final ConflictException exception = assertThrows(ConflictException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw conflict();
+        }));
+
+        assertEquals("The object was modified concurrently, try again.", exception.getMessage());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_NoRetry_whenOtherException() {
+        assertThrows(NotFoundException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new NotFoundException("Event with id=1 was not found");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void constructor_throwException_whenNoAttempts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 0, 1, 2));
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException(Event.class, 1L);
+    }
+}
@@ -1,10 +1,12 @@
 package ru.practicum.service.category;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.dto.category.CategoryDto;
@@ -14,6 +16,7 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.model.Category;
 import ru.practicum.repository.CategoryRepository;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 import ru.practicum.utils.TestInitDataUtil;
 
@@ -37,6 +40,8 @@ class AdminCategoryServiceImplTest {
     private CategoryRepository repository;
     @Mock
     private EventRepository eventRepository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private CategoryServiceImpl categoryService;
     private NewCategoryDto body;
@@ -1,20 +1,26 @@
 package ru.practicum.service.category;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.dto.category.CategoryDto;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.model.Category;
 import ru.practicum.repository.CategoryRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,6 +29,8 @@ import static org.mockito.Mockito.when;
 class CategoryServiceImplTest {
     @Mock
     private CategoryRepository repository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private CategoryServiceImpl categoryService;
     private final long catId = 1L;
@@ -48,4 +56,19 @@ class CategoryServiceImplTest {
 
         verify(repository, times(1)).findById(catId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCategory_EvictCategory() {
+        final Category category = new Category(catId, "Category");
+        when(repository.findById(anyLong())).thenReturn(Optional.of(category));
+        when(repository.existsByIdNotAndName(anyLong(), anyString())).thenReturn(false);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        categoryService.findCategoryById(catId);
+        categoryService.updateCategory(new CategoryDto(catId, "New category"), catId);
+        when(repository.findById(anyLong())).thenReturn(Optional.of(new Category(catId, "New category")));
+
+        assertEquals("New category", categoryService.findCategoryById(catId).getName());
+        verify(repository, times(2)).findById(catId);
+    }
+}
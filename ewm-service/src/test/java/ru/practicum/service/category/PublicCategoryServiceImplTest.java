@@ -1,10 +1,12 @@
 package ru.practicum.service.category;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -13,6 +15,7 @@ import ru.practicum.exception.NotFoundException;
 import ru.practicum.mapper.CategoryMapper;
 import ru.practicum.model.Category;
 import ru.practicum.repository.CategoryRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 import ru.practicum.utils.TestInitDataUtil;
 
@@ -30,6 +33,8 @@ import static org.mockito.Mockito.when;
 class PublicCategoryServiceImplTest {
     @Mock
     private CategoryRepository repository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private CategoryServiceImpl categoryService;
     private List<Category> categoryList;
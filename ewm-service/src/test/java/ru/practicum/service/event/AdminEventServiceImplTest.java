@@ -8,9 +8,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.NewEventDto;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
@@ -27,6 +28,9 @@ import ru.practicum.model.Event;
 import ru.practicum.model.Location;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.FriendFeedRepository;
+import ru.practicum.repository.FriendParticipationRepository;
+import ru.practicum.service.OptimisticLockRetry;
 import ru.practicum.service.category.CategoryService;
 import ru.practicum.service.location.LocationService;
 import ru.practicum.utils.Constants;
@@ -43,6 +47,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -66,9 +71,18 @@ class AdminEventServiceImplTest {
     @Mock
     private EventRepository repository;
     @Mock
+    private FriendFeedRepository friendFeedRepository;
+    @Mock
+    private FriendParticipationRepository friendParticipationRepository;
+    @Mock
     private CategoryService categoryService;
     @Mock
     private LocationService locationService;
+    @Mock
+    private EventSearchIndex searchIndex;
+    @Spy
+    private final OptimisticLockRetry retry =
+            new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 1, 0, 0);
     @InjectMocks
     private EventServiceImpl adminService;
 
@@ -104,6 +118,7 @@ class AdminEventServiceImplTest {
 
         eventPending = EventMapper.fromDto(newEventDto, user, category, location, EventState.PENDING, createdOn);
         eventPublished = eventPending.toBuilder()
+                .id(eventId)
                 .state(EventState.PUBLISHED)
                 .publishedOn(LocalDateTime.now().plusMonths(2).minusHours(1))
                 .build();
@@ -120,8 +135,8 @@ class AdminEventServiceImplTest {
         final LocalDateTime rangeEnd = (endStr != null) ? LocalDateTime.parse(endStr, FORMATTER) : null;
         final List<String> states = List.of(EventState.PENDING.name(), EventState.PUBLISHED.name());
 
-        when(repository.findAll(any(Predicate.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(eventList));
+        when(repository.findFullDtos(any(Predicate.class), any(PageRequest.class)))
+                .thenReturn(eventFullDtos);
 
         final List<EventFullDto> actualList = adminService.getEventsByAdmin(userIdList, states, catIdList, rangeStart, rangeEnd, from, size);
 
@@ -130,7 +145,7 @@ class AdminEventServiceImplTest {
 
     @Test
     void getEventsByAdmin_withoutQuery() {
-        when(repository.findAll(any(PageRequest.class))).thenReturn(new PageImpl<>(eventList));
+        when(repository.findFullDtos(isNull(), any(PageRequest.class))).thenReturn(eventFullDtos);
 
         final List<EventFullDto> actualList = adminService
                 .getEventsByAdmin(null, null, null, null, null, from, size);
@@ -238,6 +253,9 @@ class AdminEventServiceImplTest {
 
         verify(repository, times(1)).findById(eventId);
         verify(repository, times(1)).save(updatedEvent);
+        verify(searchIndex, times(1)).update(updatedEvent);
+        verify(friendFeedRepository, times(PUBLISHED.equals(newEventState) ? 1 : 0))
+                .addEvent(updatedEvent.getId(), updatedEvent.getInitiator().getId(), updatedEvent.getEventDate());
     }
 
     @ParameterizedTest
@@ -303,6 +321,8 @@ class AdminEventServiceImplTest {
 
         final EventFullDto actualEvent = adminService.updateEventByAdmin(newBody, eventId);
         assertEquals(fullDto, actualEvent);
+        verify(friendFeedRepository).moveEvent(updatedEvent.getId(), updatedEvent.getEventDate());
+        verify(friendFeedRepository, never()).addEvent(anyLong(), anyLong(), any());
     }
 
     @Test
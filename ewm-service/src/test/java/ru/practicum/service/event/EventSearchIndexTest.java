@@ -0,0 +1,202 @@
+package ru.practicum.service.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.enums.EventState;
+import ru.practicum.model.Category;
+import ru.practicum.model.Event;
+import ru.practicum.repository.EventRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventSearchIndexTest {
+    @Mock
+    private EventRepository eventRepository;
+    private EventSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EventSearchIndex(eventRepository, EventSearchIndex.Mode.INDEX, 2, 10);
+    }
+
+    @Test
+    void build_ReadsPublishedEventsInBatches() {
+        when(eventRepository.findTextByStateAndIdAfter(eq(EventState.PUBLISHED), anyLong(), any()))
+                .thenReturn(List.of(text(1L, "Джаз на крыше", 1L, false), text(2L, "Jazz night", 2L, true)))
+                .thenReturn(List.of(text(3L, "Фестиваль джаза", 2L, false)))
+                .thenReturn(List.of());
+
+        index.build();
+
+        assertTrue(index.isReady());
+        verify(eventRepository).findTextByStateAndIdAfter(eq(EventState.PUBLISHED), eq(2L), any());
+        verify(eventRepository).findTextByStateAndIdAfter(eq(EventState.PUBLISHED), eq(3L), any());
+    }
+
+    @Test
+    void search_ByPrefixCategoryAndPaid() {
+        build(text(1L, "Джаз на крыше", 1L, false),
+                text(2L, "Jazz night", 2L, true),
+                text(3L, "Фестиваль джаза", 2L, false));
+
+        assertEquals(Optional.of(List.of(1L, 3L)), index.search(List.of("джаз"), null, null));
+        assertEquals(Optional.of(List.of(3L)), index.search(List.of("джаз", "фест"), null, null));
+        assertEquals(Optional.of(List.of(3L)), index.search(List.of("джаз"), List.of(2L), null));
+        assertEquals(Optional.of(List.of(2L)), index.search(List.of("jazz"), List.of(2L), true));
+        assertEquals(Optional.of(List.of()), index.search(List.of("jazz"), null, false));
+        assertEquals(Optional.of(List.of()), index.search(List.of("рок"), null, null));
+    }
+
+    @Test
+    void search_TooManyCandidates() {
+        index = new EventSearchIndex(eventRepository, EventSearchIndex.Mode.INDEX, 2, 1);
+        build(text(1L, "Джаз на крыше", 1L, false), text(3L, "Фестиваль джаза", 2L, false));
+
+        assertEquals(Optional.empty(), index.search(List.of("джаз"), null, null));
+    }
+
+    @Test
+    void update_AddsPublishedAndRemovesOtherEvents() {
+        build(text(1L, "Джаз на крыше", 1L, false));
+        final Event event = Event.builder()
+                .id(5L)
+                .title("Джазовый вечер")
+                .category(new Category(1L, "Музыка"))
+                .paid(true)
+                .state(EventState.PUBLISHED)
+                .build();
+
+        index.update(event);
+        assertEquals(Optional.of(List.of(1L, 5L)), index.search(List.of("джаз"), List.of(1L), null));
+
+        index.update(event.toBuilder().state(EventState.CANCELED).build());
+        assertEquals(Optional.of(List.of(1L)), index.search(List.of("джаз"), null, null));
+        assertEquals(Optional.of(List.of()), index.search(List.of("вечер"), null, null));
+    }
+
+    @Test
+    void update_ChangedTextAndCategory_OldPostingsRemoved() {
+        build(text(1L, "Джаз на крыше", 1L, false), text(2L, "Джаз в парке", 1L, false));
+
+        index.update(event(1L, "Рок на крыше", EventState.PUBLISHED).toBuilder()
+                .category(new Category(2L, "Рок"))
+                .build());
+
+        assertEquals(Optional.of(List.of(2L)), index.search(List.of("джаз"), null, null));
+        assertEquals(Optional.of(List.of(1L)), index.search(List.of("крыш"), List.of(2L), null));
+        assertEquals(Optional.of(List.of()), index.search(List.of("крыш"), List.of(1L), null));
+    }
+
+    @Test
+    void build_AppliesUpdatesPublishedDuringBuild() {
+        final Event published = event(5L, "Джазовый вечер", EventState.PUBLISHED);
+        when(eventRepository.findTextByStateAndIdAfter(eq(EventState.PUBLISHED), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    index.update(published);
+                    index.update(event(3L, "Фестиваль джаза", EventState.CANCELED));
+                    assertFalse(index.isReady());
+                    return List.of(text(1L, "Джаз на крыше", 1L, false));
+                })
+                .thenReturn(List.of(text(3L, "Фестиваль джаза", 1L, false)))
+                .thenReturn(List.of());
+
+        index.build();
+
+        assertTrue(index.isReady());
+        assertEquals(Optional.of(List.of(1L, 5L)), index.search(List.of("джаз"), null, null));
+    }
+
+    @Test
+    void update_AppliedAfterCommit() {
+        build(text(1L, "Джаз на крыше", 1L, false));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.update(event(5L, "Джазовый вечер", EventState.PUBLISHED));
+            assertEquals(Optional.of(List.of(1L)), index.search(List.of("джаз"), null, null));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(Optional.of(List.of(1L, 5L)), index.search(List.of("джаз"), null, null));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void build_DatabaseMode_IndexNotUsed() {
+        index = new EventSearchIndex(eventRepository, EventSearchIndex.Mode.DATABASE, 2, 10);
+
+        index.build();
+
+        assertFalse(index.isReady());
+        verify(eventRepository, never()).findTextByStateAndIdAfter(any(), anyLong(), any());
+    }
+
+    private void build(EventRepository.EventText... events) {
+        when(eventRepository.findTextByStateAndIdAfter(eq(EventState.PUBLISHED), anyLong(), any()))
+                .thenReturn(List.of(events))
+                .thenReturn(List.of());
+        index.build();
+    }
+
+    private static Event event(Long id, String title, EventState state) {
+        return Event.builder()
+                .id(id)
+                .title(title)
+                .category(new Category(1L, "Музыка"))
+                .paid(false)
+                .state(state)
+                .build();
+    }
+
+    private static EventRepository.EventText text(Long id, String title, Long categoryId, Boolean paid) {
+        return new EventRepository.EventText() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAnnotation() {
+                return null;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Boolean getPaid() {
+                return paid;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.service.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.exception.ResponseException;
+import ru.practicum.repository.EventRepository;
+import ru.practicum.service.stats.StatsService;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.practicum.enums.EventState.PUBLISHED;
+
+@ExtendWith(MockitoExtension.class)
+class EventViewsSyncJobTest {
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private StatsService statsService;
+    private EventViewsSyncJob job;
+    private final PageRequest page = PageRequest.of(0, 2);
+
+    @BeforeEach
+    void setUp() {
+        job = new EventViewsSyncJob(eventRepository, statsService, 2);
+    }
+
+    @Test
+    void syncViews_UpdateOnlyChanged() {
+        when(eventRepository.findViewsByStateAndIdAfter(PUBLISHED, 0, page))
+                .thenReturn(List.of(views(1L, 3), views(2L, 0)));
+        when(eventRepository.findViewsByStateAndIdAfter(PUBLISHED, 2, page))
+                .thenReturn(List.of(views(5L, 4)));
+        when(eventRepository.findViewsByStateAndIdAfter(PUBLISHED, 5, page))
+                .thenReturn(List.of());
+        when(statsService.getMap(List.of("/events/1", "/events/2"), false))
+                .thenReturn(Map.of("/events/1", 3L, "/events/2", 6L));
+        when(statsService.getMap(List.of("/events/5"), false))
+                .thenReturn(Map.of());
+        when(eventRepository.updateViews(anyLong(), anyLong())).thenReturn(1);
+
+        assertEquals(2, job.syncViews());
+
+        verify(eventRepository, never()).updateViews(eq(1L), anyLong());
+        verify(eventRepository).updateViews(2L, 6L);
+        verify(eventRepository).updateViews(5L, 0L);
+    }
+
+    @Test
+    void run_StatsServerUnavailable() {
+        when(eventRepository.findViewsByStateAndIdAfter(PUBLISHED, 0, page))
+                .thenReturn(List.of(views(1L, 3)));
+        when(statsService.getMap(anyList(), anyBoolean()))
+                .thenThrow(new ResponseException("Failed to get data from stats service."));
+
+        job.run();
+
+        verify(eventRepository, never()).updateViews(anyLong(), anyLong());
+    }
+
+    private static EventRepository.EventViews views(Long id, long views) {
+        return new EventRepository.EventViews() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public long getViews() {
+                return views;
+            }
+        };
+    }
+}
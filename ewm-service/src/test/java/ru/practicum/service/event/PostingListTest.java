@@ -0,0 +1,56 @@
+package ru.practicum.service.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+
+    @Test
+    void add_KeepsSortedWithoutDuplicates() {
+        final PostingList list = of(5, 1, 9, 5, 3, 12);
+
+        assertArrayEquals(new int[]{1, 3, 5, 9, 12}, list.toArray());
+        assertEquals(5, list.size());
+    }
+
+    @Test
+    void remove() {
+        final PostingList list = of(1, 3, 5);
+
+        list.remove(3);
+        list.remove(4);
+        assertArrayEquals(new int[]{1, 5}, list.toArray());
+
+        list.remove(1);
+        list.remove(5);
+        list.trimToSize();
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void union() {
+        assertArrayEquals(new int[]{1, 2, 3, 5, 8},
+                PostingList.union(List.of(of(1, 5), of(2, 3, 5), of(8))));
+        assertArrayEquals(new int[]{4, 7}, PostingList.union(List.of(of(4, 7))));
+        assertArrayEquals(new int[0], PostingList.union(List.of()));
+    }
+
+    @Test
+    void intersect() {
+        assertArrayEquals(new int[]{3, 8}, PostingList.intersect(new int[]{1, 3, 5, 8}, new int[]{2, 3, 8, 10}));
+        assertArrayEquals(new int[0], PostingList.intersect(new int[]{1, 3}, new int[]{2, 4}));
+    }
+
+    private static PostingList of(int... ids) {
+        final PostingList list = new PostingList();
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
@@ -7,9 +7,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.event.NewEventDto;
@@ -26,6 +28,7 @@ import ru.practicum.model.Event;
 import ru.practicum.model.Location;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.service.OptimisticLockRetry;
 import ru.practicum.service.category.CategoryService;
 import ru.practicum.service.location.LocationService;
 import ru.practicum.service.user.UserService;
@@ -65,6 +68,9 @@ class PrivateEventServiceImplTest {
     private CategoryService categoryService;
     @Mock
     private LocationService locationService;
+    @Spy
+    private final OptimisticLockRetry retry =
+            new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 1, 0, 0);
     @InjectMocks
     private EventServiceImpl service;
 
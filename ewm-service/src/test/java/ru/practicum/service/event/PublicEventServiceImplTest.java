@@ -1,27 +1,35 @@
 package ru.practicum.service.event;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.enums.EventState;
 import ru.practicum.enums.SortType;
 import ru.practicum.exception.NotFoundException;
+import ru.practicum.exception.ValidateException;
+import ru.practicum.filter.EventPredicate;
+import ru.practicum.filter.GeoArea;
 import ru.practicum.mapper.EventMapper;
 import ru.practicum.model.Category;
 import ru.practicum.model.Event;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
 import ru.practicum.service.stats.StatsService;
+import ru.practicum.service.stats.ViewCounts;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.EventCursor;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
@@ -30,14 +38,20 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -56,6 +70,8 @@ class PublicEventServiceImplTest {
     private StatsService statsService;
     @Mock
     private HttpServletRequest httpServletRequest;
+    @Mock
+    private EventSearchIndex searchIndex;
     @InjectMocks
     private EventServiceImpl service;
 
@@ -97,13 +113,30 @@ class PublicEventServiceImplTest {
         when(httpServletRequest.getRequestURI()).thenReturn("/events" + publishedEvents.getId());
         when(repository.findByIdAndState(anyLong(), any(EventState.class))).thenReturn(Optional.of(publishedEvents));
         doNothing().when(statsService).save(httpServletRequest);
-        when(statsService.getMap(any(HttpServletRequest.class), anyBoolean())).thenReturn(mapViewStats);
+        when(statsService.getMapAsync(any(HttpServletRequest.class), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(new ViewCounts(mapViewStats, false)));
 
         final EventFullDto actualEvent = service.getPublishedEvent(eventId, httpServletRequest);
         assertEquals(EventMapper.toFullDto(publishedEvents, 0), actualEvent);
 
         verify(repository, times(1)).findByIdAndState(eventId, EventState.PUBLISHED);
-        verify(statsService, times(1)).getMap(httpServletRequest, true);
+        verify(statsService, times(1)).getMapAsync(httpServletRequest, true);
+    }
+
+    @Test
+    void getPublishedEvent_StatsServerUnavailable_ViewsStale() {
+        final Event publishedEvents = eventList.get(0).toBuilder().state(EventState.PUBLISHED).build();
+
+        when(httpServletRequest.getRequestURI()).thenReturn("/events/" + publishedEvents.getId());
+        when(repository.findByIdAndState(anyLong(), any(EventState.class))).thenReturn(Optional.of(publishedEvents));
+        doNothing().when(statsService).save(httpServletRequest);
+        when(statsService.getMapAsync(any(HttpServletRequest.class), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new ViewCounts(Map.of("/events/" + publishedEvents.getId(), 3L), true)));
+
+        final EventFullDto actualEvent = service.getPublishedEvent(eventId, httpServletRequest);
+        assertEquals(3L, actualEvent.getViews());
+        assertEquals(Boolean.TRUE, actualEvent.getViewsStale());
     }
 
     @Test
@@ -138,18 +171,18 @@ class PublicEventServiceImplTest {
         collect.get(3).setViews(2L);
         if (sort != null) {
             if (sort.equals("EVENT_DATE")) collect.sort(Comparator.comparing(EventShortDto::getEventDate));
-            if (sort.equals("VIEWS")) collect.sort(Comparator.comparing(EventShortDto::getViews));
+//            при сортировке по просмотрам порядок задает БД (events.views), страница не пересортировывается
         }
 
         when(httpServletRequest.getRequestURI()).thenReturn("/events");
-        when(repository.findAll(any(Predicate.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(publishedEventList));
+        when(repository.findShortDtos(any(Predicate.class), any(PageRequest.class)))
+                .thenReturn(EventMapper.toDto(publishedEventList));
         doNothing().when(statsService).save(any(HttpServletRequest.class));
-        when(statsService.getMap(any(HttpServletRequest.class), anyList(), any(), any(), anyBoolean()))
-                .thenReturn(mapViewStats);
+        when(statsService.getMap(any(HttpServletRequest.class), anyList(), anyBoolean()))
+                .thenReturn(new ViewCounts(mapViewStats, false));
 
         final List<EventShortDto> alist = service.getPublishedEvents(
-                text, catIdList, true, rangeStart, rangeEnd, onlyAvailable, SortType.from(sort),
+                text, catIdList, true, rangeStart, rangeEnd, onlyAvailable, null, SortType.from(sort),
                 from, size, httpServletRequest);
 
         assertEquals(collect, alist);
@@ -171,29 +204,147 @@ class PublicEventServiceImplTest {
         collect.get(3).setViews(2L);
 
         when(httpServletRequest.getRequestURI()).thenReturn("/events");
-        when(repository.findAll(any(Predicate.class), any(PageRequest.class)))
-                .thenReturn(new PageImpl<>(publishedEventList));
+        when(repository.findShortDtos(any(Predicate.class), any(PageRequest.class)))
+                .thenReturn(EventMapper.toDto(publishedEventList));
         doNothing().when(statsService).save(any());
-        when(statsService.getMap(any(HttpServletRequest.class), any(), any(), any(), anyBoolean()))
-                .thenReturn(mapViewStats);
+        when(statsService.getMap(any(HttpServletRequest.class), anyList(), anyBoolean()))
+                .thenReturn(new ViewCounts(mapViewStats, false));
 
 
         final List<EventShortDto> alist = service.getPublishedEvents(null, null, null,
-                null, null, false, null, from, size, httpServletRequest);
+                null, null, false, null, null, from, size, httpServletRequest);
         assertEquals(collect, alist);
     }
 
     @Test
     void getPublishedEvents_whenReturnEmptyList() {
-        when(repository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(new PageImpl<>(Collections.emptyList()));
+        when(repository.findShortDtos(any(Predicate.class), any(PageRequest.class))).thenReturn(Collections.emptyList());
 
         final List<EventShortDto> alist = service.getPublishedEvents(
                 null, null, null, null,
-                null, false, null, from, size, httpServletRequest);
+                null, false, null, null, from, size, httpServletRequest);
 
         assertEquals(Collections.emptyList(), alist);
 
         verify(statsService, times(1)).save(httpServletRequest);
         verify(statsService, never()).getMap(httpServletRequest, ids, false);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPublishedEvents_TextWithoutSort_OrderedByRank() {
+        final ArgumentCaptor<OrderSpecifier<?>> order = ArgumentCaptor.forClass(OrderSpecifier.class);
+        when(repository.findShortDtos(any(Predicate.class), order.capture(), any(PageRequest.class)))
+                .thenReturn(Collections.emptyList());
+
+        service.getPublishedEvents("Джаз  фестиваль", null, null, null, null, false, null, null, from, size,
+                httpServletRequest);
+
+        assertEquals(EventPredicate.getTextRank("джаз:* & фестиваль:*").desc(), order.getValue());
+        verify(repository).findShortDtos(any(Predicate.class), any(OrderSpecifier.class), eq(PageRequest.of(0, size)));
+        verify(repository, never()).findShortDtos(any(), any());
+    }
+
+    @Test
+    void getPublishedEvents_SortByDistance() {
+        final GeoArea area = new GeoArea(55.75, 37.62, 5);
+        final ArgumentCaptor<OrderSpecifier<?>> order = ArgumentCaptor.forClass(OrderSpecifier.class);
+        final ArgumentCaptor<Predicate> predicate = ArgumentCaptor.forClass(Predicate.class);
+        when(repository.findShortDtos(predicate.capture(), order.capture(), any(PageRequest.class)))
+                .thenReturn(Collections.emptyList());
+
+        service.getPublishedEvents(null, null, null, null, null, false, area, SortType.DISTANCE, from, size,
+                httpServletRequest);
+
+        assertEquals(EventPredicate.getDistance(area).asc(), order.getValue());
+        assertTrue(predicate.getValue().toString().contains("geo_distance_km"), predicate.getValue().toString());
+    }
+
+    @Test
+    void getPublishedEvents_SortByDistance_throwException_whenNoArea() {
+        final ValidateException exception = assertThrows(ValidateException.class,
+                () -> service.getPublishedEvents(null, null, null, null, null, false, null, SortType.DISTANCE,
+                        from, size, httpServletRequest));
+        assertEquals("Sort by DISTANCE requires 'lat', 'lon' and 'radius'", exception.getMessage());
+    }
+
+    @Test
+    void getPublishedEvents_SearchIndex_NoCandidates() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(List.of("джаз"), catIdList, true)).thenReturn(Optional.of(List.of()));
+
+        final List<EventShortDto> alist = service.getPublishedEvents("Джаз", catIdList, true, null, null, false, null,
+                SortType.EVENT_DATE, from, size, httpServletRequest);
+
+        assertEquals(Collections.emptyList(), alist);
+        verify(statsService, times(1)).save(httpServletRequest);
+        verify(repository, never()).findShortDtos(any(), any());
+    }
+
+    @Test
+    void getPublishedEvents_SearchIndex_FilterByCandidates() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(List.of("джаз"), null, null)).thenReturn(Optional.of(List.of(2L, 4L)));
+        final ArgumentCaptor<Predicate> predicate = ArgumentCaptor.forClass(Predicate.class);
+        when(repository.findShortDtos(predicate.capture(), any(PageRequest.class))).thenReturn(Collections.emptyList());
+
+        service.getPublishedEvents("Джаз", null, null, null, null, false, null, SortType.EVENT_DATE, from, size,
+                httpServletRequest);
+
+        final String sql = predicate.getValue().toString();
+        assertTrue(sql.contains("event.id in [2, 4]"), sql);
+        assertFalse(sql.contains("fts_match"), sql);
+    }
+
+    @Test
+    void getPublishedEvents_SortByViews_OrderedInDb() {
+        final ArgumentCaptor<PageRequest> page = ArgumentCaptor.forClass(PageRequest.class);
+        when(repository.findShortDtos(any(Predicate.class), page.capture())).thenReturn(Collections.emptyList());
+
+        service.getPublishedEvents(null, null, null, null, null, false, null, SortType.VIEWS, 20, size, httpServletRequest);
+
+        assertEquals(PageRequest.of(2, size, Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id"))),
+                page.getValue());
+    }
+
+    @Test
+    void getPublishedEvents_Cursor() {
+        final List<Event> publishedEventList = eventList.stream()
+                .filter(f -> f.getState().equals(EventState.PUBLISHED))
+                .limit(2)
+                .collect(Collectors.toList());
+        final EventShortDto last = EventMapper.toShortDto(publishedEventList.get(1)).toBuilder().views(7L).build();
+        final EventCursor cursor = EventCursor.ofViews(9L, 1L);
+
+        when(httpServletRequest.getRequestURI()).thenReturn("/events");
+        when(repository.findShortDtosAfter(any(Predicate.class), any(SortType.class), any(EventCursor.class), anyInt()))
+                .thenReturn(List.of(EventMapper.toShortDto(publishedEventList.get(0)), last));
+        when(statsService.getMap(any(HttpServletRequest.class), anyList(), anyBoolean()))
+                .thenReturn(new ViewCounts(mapViewStats, false));
+
+        final CursorPage<EventShortDto> page = service.getPublishedEvents(null, null, null, null, null, false, null,
+                SortType.VIEWS, cursor.encode(), 2, httpServletRequest);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(EventCursor.ofViews(7L, last.getId()).encode(), page.getNextCursor());
+        verify(repository).findShortDtosAfter(any(Predicate.class), eq(SortType.VIEWS), eq(cursor), eq(2));
+    }
+
+    @Test
+    void getPublishedEvents_Cursor_throwException_whenSortChanged() {
+        final String cursor = EventCursor.ofEventDate(LocalDateTime.now(), 1L).encode();
+
+        final ValidateException exception = assertThrows(ValidateException.class,
+                () -> service.getPublishedEvents(null, null, null, null, null, false, null,
+                        SortType.VIEWS, cursor, size, httpServletRequest));
+        assertEquals("Cursor was issued for sort by EVENT_DATE", exception.getMessage());
+        verify(repository, never()).findShortDtosAfter(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getPublishedEvents_Cursor_throwException_whenInvalidCursor() {
+        assertThrows(ValidateException.class,
+                () -> service.getPublishedEvents(null, null, null, null, null, false, null,
+                        null, "not a cursor", size, httpServletRequest));
+        verify(repository, never()).findShortDtosAfter(any(), any(), any(), anyInt());
+    }
+}
@@ -1,21 +1,26 @@
 package ru.practicum.service.location;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.dto.location.LocationDto;
-import ru.practicum.mapper.LocationMapper;
+import ru.practicum.exception.ValidateException;
 import ru.practicum.model.Location;
 import ru.practicum.repository.LocationRepository;
+import ru.practicum.service.ReferenceDataCache;
+import ru.practicum.utils.Geohash;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,6 +30,8 @@ import static org.mockito.Mockito.when;
 class LocationServiceTest {
     @Mock
     private LocationRepository repository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private LocationServiceImpl locationService;
     private LocationDto locationDto;
@@ -35,30 +42,46 @@ class LocationServiceTest {
     @BeforeEach
     void setUp() {
         locationDto = new LocationDto(lat, lon);
-        expectedLocation = new Location(1L, lat, lon);
+        expectedLocation = new Location(1L, lat, lon, Geohash.encode(lat, lon, Geohash.MAX_PRECISION));
     }
 
     @Test
     void findLocation() {
-        when(repository.findByLatAndLon(anyFloat(), anyFloat())).thenReturn(Optional.of(expectedLocation));
+        when(repository.upsert(anyFloat(), anyFloat(), anyString())).thenReturn(1L);
 
         final Location actualLocation = locationService.findLocation(locationDto);
         assertEquals(expectedLocation, actualLocation);
 
-        verify(repository, times(1)).findByLatAndLon(lat, lon);
-        verify(repository, never()).save(expectedLocation);
+        verify(repository, times(1)).upsert(lat, lon, expectedLocation.getGeohash());
+        verify(repository, never()).findByLatAndLon(lat, lon);
     }
 
     @Test
-    void findLocation_whenLocationNotExist() {
-        when(repository.findByLatAndLon(anyFloat(), anyFloat())).thenReturn(Optional.empty());
-        when(repository.save(any())).thenReturn(expectedLocation);
+    void findLocation_FromCache() {
+        when(repository.upsert(anyFloat(), anyFloat(), anyString())).thenReturn(1L);
+
+        locationService.findLocation(locationDto);
+        final Location actualLocation = locationService.findLocation(locationDto);
+        assertEquals(expectedLocation, actualLocation);
+
+        verify(repository, times(1)).upsert(lat, lon, expectedLocation.getGeohash());
+    }
+
+    @Test
+    void findLocation_whenInsertedConcurrently() {
+        when(repository.upsert(anyFloat(), anyFloat(), anyString())).thenReturn(null);
+        when(repository.findByLatAndLon(anyFloat(), anyFloat())).thenReturn(Optional.of(expectedLocation));
 
         final Location actualLocation = locationService.findLocation(locationDto);
         assertEquals(expectedLocation, actualLocation);
 
         verify(repository, times(1)).findByLatAndLon(lat, lon);
-        verify(repository, times(1)).save(LocationMapper.fromDto(locationDto));
     }
 
-}
\ No newline at end of file
+    @Test
+    void findLocation_throwException_whenLatIsNull() {
+        assertThrows(ValidateException.class, () -> locationService.findLocation(new LocationDto(null, lon)));
+
+        verify(repository, never()).upsert(anyFloat(), anyFloat(), anyString());
+    }
+}
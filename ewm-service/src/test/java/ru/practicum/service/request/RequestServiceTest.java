@@ -8,7 +8,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 import ru.practicum.dto.request.EventRequestStatusUpdateRequest;
 import ru.practicum.dto.request.EventRequestStatusUpdateResult;
 import ru.practicum.dto.request.ParticipationRequestDto;
@@ -19,12 +21,13 @@ import ru.practicum.model.Event;
 import ru.practicum.model.Request;
 import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.FriendParticipationRepository;
 import ru.practicum.repository.RequestRepository;
+import ru.practicum.service.OptimisticLockRetry;
 import ru.practicum.service.event.EventService;
 import ru.practicum.service.user.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -32,6 +35,7 @@ import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -55,9 +59,14 @@ class RequestServiceTest {
     @Mock
     private EventRepository eventRepository;
     @Mock
+    private FriendParticipationRepository friendParticipationRepository;
+    @Mock
     private UserService userService;
     @Mock
     private EventService eventService;
+    @Spy
+    private final OptimisticLockRetry retry =
+            new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 1, 0, 0);
     @InjectMocks
     private RequestServiceImpl service;
     private final long eventId = 1L;
@@ -110,6 +119,37 @@ class RequestServiceTest {
                 .build();
     }
 
+    private static List<RequestRepository.RequestView> toViews(List<Request> requests) {
+        return requests.stream()
+                .map(r -> new RequestRepository.RequestView() {
+                    @Override
+                    public Long getId() {
+                        return r.getId();
+                    }
+
+                    @Override
+                    public Long getEventId() {
+                        return r.getEvent().getId();
+                    }
+
+                    @Override
+                    public Long getRequesterId() {
+                        return r.getRequester().getId();
+                    }
+
+                    @Override
+                    public LocalDateTime getCreated() {
+                        return r.getCreated();
+                    }
+
+                    @Override
+                    public boolean getIsPrivate() {
+                        return r.isPrivate();
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
     @Test
     void addParticipationRequest() {
         request = makeRequest();
@@ -162,6 +202,7 @@ class RequestServiceTest {
         when(eventService.findEventById(anyLong())).thenReturn(currentEvent);
         when(userService.findUserById(anyLong())).thenReturn(user);
         when(repository.save(any())).thenReturn(newRequest);
+        when(eventRepository.incrementConfirmedRequests(anyLong())).thenReturn(1);
 
         final ParticipationRequestDto actualRequest = service.addParticipationRequest(requesterId, eventId);
         assertEquals(RequestMapper.toDto(newRequest), actualRequest);
@@ -169,6 +210,8 @@ class RequestServiceTest {
         verify(repository, times(1)).existsByEventIdAndRequesterId(eventId, requesterId);
         verify(eventService, times(1)).findEventById(eventId);
         verify(userService, times(1)).findUserById(requesterId);
+        verify(eventRepository, times(1)).incrementConfirmedRequests(eventId);
+        verify(friendParticipationRepository, times(1)).addParticipation(requesterId, eventId);
     }
 
     @Test
@@ -188,6 +231,7 @@ class RequestServiceTest {
         when(eventService.findEventById(anyLong())).thenReturn(currentEvent);
         when(userService.findUserById(anyLong())).thenReturn(user);
         when(repository.save(any())).thenReturn(newRequest);
+        when(eventRepository.incrementConfirmedRequests(anyLong())).thenReturn(1);
 
         final ParticipationRequestDto actualRequest = service.addParticipationRequest(requesterId, eventId);
         assertEquals(RequestMapper.toDto(newRequest), actualRequest);
@@ -195,6 +239,7 @@ class RequestServiceTest {
         verify(repository, times(1)).existsByEventIdAndRequesterId(eventId, requesterId);
         verify(eventService, times(1)).findEventById(eventId);
         verify(userService, times(1)).findUserById(requesterId);
+        verify(eventRepository, times(1)).incrementConfirmedRequests(eventId);
     }
 
     @Test
@@ -289,6 +334,25 @@ class RequestServiceTest {
         verify(repository, never()).save(request);
     }
 
+    @Test
+    @DisplayName("addParticipationRequest - последнее место заняла параллельная заявка")
+    void addParticipationRequest_ParticipantLimitReachedConcurrently() {
+        final Event currentEvent = eventList.get(3);
+        final Long eventId = currentEvent.getId();
+        final Long requesterId = userList.get(2).getId();
+        when(repository.existsByEventIdAndRequesterId(anyLong(), anyLong())).thenReturn(false);
+        when(eventService.findEventById(anyLong())).thenReturn(currentEvent);
+        when(userService.findUserById(anyLong())).thenReturn(user);
+        when(eventRepository.incrementConfirmedRequests(anyLong())).thenReturn(0);
+
+        final ConflictException exception = assertThrows(ConflictException.class,
+                () -> service.addParticipationRequest(requesterId, eventId));
+
+        assertEquals("Event confirmed limit reached.", exception.getMessage());
+        verify(eventRepository, times(1)).incrementConfirmedRequests(eventId);
+        verify(eventRepository, never()).save(any());
+    }
+
     @Test
     void addParticipationRequest_UserNotExist() {
         when(repository.existsByEventIdAndRequesterId(anyLong(), anyLong())).thenReturn(false);
@@ -347,12 +411,18 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(1L);
         when(eventService.findEventById(anyLong())).thenReturn(event);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestList);
-        when(eventRepository.save(any())).thenReturn(event);
-        when(repository.saveAll(any())).thenReturn(requestList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(2);
+        when(eventRepository.addConfirmedRequests(anyLong(), anyInt(), anyInt())).thenReturn(1);
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
 
         final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 1L, eventId);
         assertEquals(expectedRequest, updatedRequest);
+
+        verify(repository, times(1)).findViewsByIdInAndEventIdAndStatus(List.of(1L), eventId, PENDING);
+        verify(eventRepository, times(1)).addConfirmedRequests(eventId, 2, 1);
+        verify(repository, times(1)).updateStatus(List.of(1L), PENDING, CONFIRMED);
+        verify(repository, never()).updateStatusByEventId(anyLong(), any(), any());
     }
 
     @Test
@@ -373,12 +443,86 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(1L);
         when(eventService.findEventById(anyLong())).thenReturn(event);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestListById);
-        when(eventRepository.save(any())).thenReturn(event);
-        when(repository.saveAll(any())).thenReturn(requestListById);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any()))
+                .thenReturn(toViews(requestListById));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(0);
+        when(eventRepository.addConfirmedRequests(anyLong(), anyInt(), anyInt())).thenReturn(1);
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
 
         final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 1L, eventId);
         assertEquals(expectedRequest, updatedRequest);
+
+        verify(eventRepository, times(1)).addConfirmedRequests(eventId, 0, 1);
+        verify(repository, times(1)).updateStatus(List.of(1L), PENDING, CONFIRMED);
+        // лимит исчерпан: отклоняются не поместившаяся заявка и все остальные заявки события в ожидании
+        verify(repository, times(1)).updateStatusByEventId(eventId, PENDING, REJECTED);
+    }
+
+    @Test
+    @DisplayName("changeRequestStatus - счетчик подтвержденных заявок изменился параллельно")
+    void changeRequestStatus_setCONFIRMED_whenConfirmedRequestsChangedConcurrently() {
+        final EventRequestStatusUpdateRequest updateRequest = EventRequestStatusUpdateRequest.builder()
+                .requestIds(List.of(1L, 2L))
+                .status(CONFIRMED)
+                .build();
+
+        doNothing().when(userService).checkExistById(1L);
+        when(eventService.findEventById(anyLong())).thenReturn(event);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any()))
+                .thenReturn(toViews(List.of(request1, request2)));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(2, 4);
+        when(eventRepository.addConfirmedRequests(anyLong(), anyInt(), anyInt())).thenReturn(0, 1);
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
+
+        final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 1L, eventId);
+        assertEquals(List.of(1L), updatedRequest.getConfirmedRequests().stream()
+                .map(ParticipationRequestDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2L), updatedRequest.getRejectedRequests().stream()
+                .map(ParticipationRequestDto::getId).collect(Collectors.toList()));
+
+        verify(eventRepository, times(1)).addConfirmedRequests(eventId, 2, 2);
+        verify(eventRepository, times(1)).addConfirmedRequests(eventId, 4, 1);
+        verify(repository, times(1)).updateStatusByEventId(eventId, PENDING, REJECTED);
+    }
+
+    @Test
+    @DisplayName("changeRequestStatus - последнее место заняли параллельно")
+    void changeRequestStatus_throwException_whenLimitReachedConcurrently() {
+        final EventRequestStatusUpdateRequest updateRequest = EventRequestStatusUpdateRequest.builder()
+                .requestIds(List.of(1L))
+                .status(CONFIRMED)
+                .build();
+
+        doNothing().when(userService).checkExistById(1L);
+        when(eventService.findEventById(anyLong())).thenReturn(event);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(5);
+
+        final ConflictException exception = assertThrows(ConflictException.class,
+                () -> service.changeRequestStatus(updateRequest, 1L, eventId));
+        assertEquals("The limit on confirmations for this event has already been reached.",
+                exception.getMessage());
+
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt(), anyInt());
+        verify(repository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("changeRequestStatus - заявку успели обработать параллельно")
+    void changeRequestStatus_throwException_whenRequestChangedConcurrently() {
+        final EventRequestStatusUpdateRequest updateRequest = EventRequestStatusUpdateRequest.builder()
+                .requestIds(List.of(2L))
+                .status(REJECTED)
+                .build();
+
+        doNothing().when(userService).checkExistById(1L);
+        when(eventService.findEventById(anyLong())).thenReturn(event);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(regectList));
+        when(repository.updateStatus(any(), any(), any())).thenReturn(0);
+
+        final ConflictException exception = assertThrows(ConflictException.class,
+                () -> service.changeRequestStatus(updateRequest, 1L, eventId));
+        assertEquals("Status change is only possible for requests with state='PENDING'", exception.getMessage());
     }
 
     @Test
@@ -390,15 +534,15 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(1L);
         when(eventService.findEventById(anyLong())).thenReturn(event);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
 
         final ConflictException exception = assertThrows(ConflictException.class,
                 () -> service.changeRequestStatus(updateRequest, 1L, eventId));
         assertEquals("Wrong status. Status should be one of: [CONFIRMED, REJECTED]",
                 exception.getMessage());
 
-        verify(eventRepository, never()).save(event);
-        verify(repository, never()).saveAll(requestList);
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt(), anyInt());
+        verify(repository, never()).updateStatus(any(), any(), any());
     }
 
     @Test
@@ -432,13 +576,14 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(1L);
         when(eventService.findEventById(anyLong())).thenReturn(event);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(regectList);
-        when(repository.saveAll(any())).thenReturn(regectList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(regectList));
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
 
         final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 1L, eventId);
         assertEquals(expectedRequest, updatedRequest);
 
-        verify(eventRepository, never()).save(new Event());
+        verify(repository, times(1)).updateStatus(List.of(1L), PENDING, REJECTED);
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt(), anyInt());
     }
 
     @Test
@@ -475,13 +620,17 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(2L);
         when(eventService.findEventById(anyLong())).thenReturn(currentEvent);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestList);
-        when(repository.saveAll(any())).thenReturn(requestList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(2);
+        when(eventRepository.addConfirmedRequests(anyLong(), anyInt(), anyInt())).thenReturn(1);
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
 
         final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 2L, 1L);
         assertEquals(expectedRequest, updatedRequest);
 
-        verify(eventRepository, never()).save(new Event());
+        verify(eventRepository, times(1)).addConfirmedRequests(1L, 2, 1);
+        verify(repository, never()).updateStatusByEventId(anyLong(), any(), any());
+        verify(friendParticipationRepository, times(1)).addParticipation(user.getId(), event.getId());
     }
 
     @Test
@@ -501,13 +650,15 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(1L);
         when(eventService.findEventById(anyLong())).thenReturn(currentEvent);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestList);
-        when(repository.saveAll(any())).thenReturn(requestList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
+        when(eventRepository.findConfirmedRequestsById(anyLong())).thenReturn(2);
+        when(eventRepository.addConfirmedRequests(anyLong(), anyInt(), anyInt())).thenReturn(1);
+        when(repository.updateStatus(any(), any(), any())).thenReturn(1);
 
         final EventRequestStatusUpdateResult updatedRequest = service.changeRequestStatus(updateRequest, 1L, 1L);
         assertEquals(expectedRequest, updatedRequest);
 
-        verify(eventRepository, never()).save(new Event());
+        verify(repository, times(1)).updateStatus(List.of(1L), PENDING, CONFIRMED);
     }
 
     @Test
@@ -525,9 +676,8 @@ class RequestServiceTest {
                 () -> service.changeRequestStatus(updateRequest, userId2, eventId));
         assertEquals(String.format(EVENT_WITH_ID_D_WAS_NOT_FOUND, eventId), exception.getMessage());
 
-        verify(repository, never()).findAllByIdInAndStatus(List.of(), PENDING);
-        verify(eventRepository, never()).save(event);
-        verify(repository, never()).saveAll(Collections.emptyList());
+        verify(repository, never()).findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any());
+        verify(repository, never()).updateStatus(any(), any(), any());
     }
 
     @Test
@@ -539,7 +689,7 @@ class RequestServiceTest {
 
         doNothing().when(userService).checkExistById(anyLong());
         when(eventService.findEventById(anyLong())).thenReturn(event);
-        when(repository.findAllByIdInAndStatus(any(), any())).thenReturn(requestList);
+        when(repository.findViewsByIdInAndEventIdAndStatus(any(), anyLong(), any())).thenReturn(toViews(requestList));
 
         final ConflictException exception = assertThrows(ConflictException.class,
                 () -> service.changeRequestStatus(updateRequest, 1L, eventId));
@@ -547,9 +697,9 @@ class RequestServiceTest {
 
         verify(userService, times(1)).checkExistById(1L);
         verify(eventService, times(1)).findEventById(eventId);
-        verify(repository, times(1)).findAllByIdInAndStatus(List.of(1L, 3L), PENDING);
-        verify(eventRepository, never()).save(event);
-        verify(repository, never()).saveAll(Collections.emptyList());
+        verify(repository, times(1)).findViewsByIdInAndEventIdAndStatus(List.of(1L, 3L), eventId, PENDING);
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt(), anyInt());
+        verify(repository, never()).updateStatus(any(), any(), any());
     }
 
     @Test
@@ -587,6 +737,19 @@ class RequestServiceTest {
 
         final long requestId = 1L;
         service.cancelRequest(userId2, requestId);
+
+        verify(friendParticipationRepository, never()).removeParticipation(anyLong(), anyLong());
+    }
+
+    @Test
+    void cancelRequest_RemoveParticipation_whenConfirmed() {
+        request = makeRequest().toBuilder().status(CONFIRMED).build();
+        doNothing().when(userService).checkExistById(userId2);
+        when(repository.findByIdAndRequesterId(anyLong(), anyLong())).thenReturn(Optional.of(request));
+
+        service.cancelRequest(userId2, 1L);
+
+        verify(friendParticipationRepository, times(1)).removeParticipation(userId2, request.getEvent().getId());
     }
 
     @Test
@@ -635,4 +798,18 @@ class RequestServiceTest {
         final List<ParticipationRequestDto> actual = service.changeVisibilityEventParticipation(userId, List.of(1L, 2L), isPrivet);
         assertEquals(dtoExpected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    void changeVisibilityEventParticipation_UpdateParticipation_whenVisibilityChanged() {
+        final Request hidden = request1.toBuilder().status(CONFIRMED).isPrivate(true).build();
+        final Request shown = request2.toBuilder().status(CONFIRMED).build();
+
+        doNothing().when(userService).checkExistById(anyLong());
+        when(repository.findAllById(any())).thenReturn(List.of(hidden, shown));
+
+        service.changeVisibilityEventParticipation(user.getId(), List.of(1L, 2L), true);
+
+        verify(friendParticipationRepository, times(1)).removeParticipation(user.getId(), event.getId());
+        verify(friendParticipationRepository, never()).addParticipation(anyLong(), anyLong());
+    }
+}
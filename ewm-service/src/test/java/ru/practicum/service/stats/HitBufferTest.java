@@ -0,0 +1,127 @@
+package ru.practicum.service.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.client.StatsClient;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.practicum.service.stats.HitBuffer.OverflowPolicy.DROP_NEWEST;
+import static ru.practicum.service.stats.HitBuffer.OverflowPolicy.DROP_OLDEST;
+
+@ExtendWith(MockitoExtension.class)
+class HitBufferTest {
+    @Mock
+    private StatsClient statsClient;
+    private EndpointHitDto hit1;
+    private EndpointHitDto hit2;
+    private EndpointHitDto hit3;
+
+    @BeforeEach
+    void setUp() {
+        hit1 = getHit("/events/1");
+        hit2 = getHit("/events/2");
+        hit3 = getHit("/events/3");
+    }
+
+    @Test
+    void offer_DropNewest() {
+        final HitBuffer buffer = new HitBuffer(statsClient, 2, 10, 100, 100, DROP_NEWEST);
+
+        assertTrue(buffer.offer(hit1));
+        assertTrue(buffer.offer(hit2));
+        assertFalse(buffer.offer(hit3));
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getDropped());
+
+        buffer.flush();
+        verify(statsClient, times(1)).saveHits(List.of(hit1, hit2));
+    }
+
+    @Test
+    void offer_DropOldest() {
+        final HitBuffer buffer = new HitBuffer(statsClient, 2, 10, 100, 100, DROP_OLDEST);
+
+        assertTrue(buffer.offer(hit1));
+        assertTrue(buffer.offer(hit2));
+        assertTrue(buffer.offer(hit3));
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getDropped());
+
+        buffer.flush();
+        verify(statsClient, times(1)).saveHits(List.of(hit2, hit3));
+    }
+
+    @Test
+    void flush_StatsServerUnavailable() {
+        final HitBuffer buffer = new HitBuffer(statsClient, 10, 10, 100, 100, DROP_OLDEST);
+        when(statsClient.saveHits(any())).thenThrow(new ResourceAccessException("Connection refused"));
+
+        buffer.offer(hit1);
+        buffer.offer(hit2);
+        buffer.flush();
+
+        verify(statsClient, times(1)).saveHits(any());
+        assertEquals(2, buffer.getFailed());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void start_SendInBackground() {
+        final HitBuffer buffer = new HitBuffer(statsClient, 10, 2, 50, 1000, DROP_OLDEST);
+        buffer.start();
+        try {
+            buffer.offer(hit1);
+            buffer.offer(hit2);
+            buffer.offer(hit3);
+
+            verify(statsClient, timeout(2000)).saveHits(List.of(hit1, hit2));
+            verify(statsClient, timeout(2000)).saveHits(List.of(hit3));
+        } finally {
+            buffer.shutdown();
+        }
+        assertEquals(3, buffer.getSent());
+    }
+
+    @Test
+    void shutdown_FlushRemaining() {
+        final HitBuffer buffer = new HitBuffer(statsClient, 10, 10, 100, 100, DROP_OLDEST);
+        buffer.offer(hit1);
+        buffer.offer(hit2);
+
+        buffer.shutdown();
+
+        verify(statsClient, times(1)).saveHits(List.of(hit1, hit2));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void create_WrongParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HitBuffer(statsClient, 0, 10, 100, 100, DROP_OLDEST));
+    }
+
+    private static EndpointHitDto getHit(String uri) {
+        return EndpointHitDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("127.0.0.1")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,31 +1,36 @@
 package ru.practicum.service.stats;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.client.AsyncStatsClient;
 import ru.practicum.client.StatsClient;
 import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.exception.ResponseException;
 
 import javax.servlet.http.HttpServletRequest;
-import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,7 +41,15 @@ class StatsServiceTest {
     @Mock
     private StatsClient statsClient;
     @Mock
+    private AsyncStatsClient asyncStatsClient;
+    @Mock
+    private HitBuffer hitBuffer;
+    @Mock
     private HttpServletRequest request;
+    @Spy
+    private ViewStatsCache viewStatsCache = new ViewStatsCache(new SimpleMeterRegistry(), 5000, 1000, 100);
+    @Spy
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(2, 10_000);
     @InjectMocks
     private StatsServiceImpl service;
     private ViewStatsDto viewStatsDto1;
@@ -48,6 +61,7 @@ class StatsServiceTest {
     void setUp() {
         final String appName = "main-service";
         ReflectionTestUtils.setField(service, "appName", appName);
+        ReflectionTestUtils.setField(service, "deadlineMs", 1000L);
 
         viewStatsDto1 = ViewStatsDto.builder().app(appName).uri(uri).hits(1).build();
         viewStatsDto2 = ViewStatsDto.builder().app(appName).uri("/events/2").hits(1).build();
@@ -55,69 +69,65 @@ class StatsServiceTest {
 
     @Test
     void save() {
-        final ResponseEntity<Object> response = ResponseEntity.created(URI.create(ip)).build();
-
         when(request.getRequestURI()).thenReturn(uri);
         when(request.getRemoteAddr()).thenReturn(ip);
-        when(statsClient.saveHit(any())).thenReturn(response);
+        when(hitBuffer.offer(any())).thenReturn(true);
 
         service.save(request);
         verify(request, times(1)).getRequestURI();
         verify(request, times(1)).getRemoteAddr();
+        verify(hitBuffer, times(1)).offer(any());
     }
 
     @Test
     void save_List() {
-        final ResponseEntity<Object> response = ResponseEntity.created(URI.create(ip)).build();
-
         when(request.getRequestURI()).thenReturn("/events");
         when(request.getRemoteAddr()).thenReturn(ip);
-        when(statsClient.saveHit(any())).thenReturn(response);
+        when(hitBuffer.offer(any())).thenReturn(true);
 
         service.save(request, List.of(1L, 2L));
 
         verify(request, atLeast(1)).getRequestURI();
         verify(request, atLeast(1)).getRemoteAddr();
+        verify(hitBuffer, times(2)).offer(any());
     }
 
     @Test
-    void save_BadRequest() {
-        final ResponseEntity<Object> response = ResponseEntity.badRequest().build();
-
+    void save_NotWaitStatsServer() {
         when(request.getRequestURI()).thenReturn(uri);
         when(request.getRemoteAddr()).thenReturn(ip);
-        when(statsClient.saveHit(any())).thenReturn(response);
+        when(hitBuffer.offer(any())).thenReturn(false);
 
-        final ResponseException exception = assertThrows(ResponseException.class, () -> service.save(request));
-        assertEquals("Failed to save data to stats service.", exception.getMessage());
+        service.save(request);
+        verify(statsClient, never()).saveHit(any());
     }
 
     @Test
     void getMap() {
-        final ResponseEntity<Object> response = ResponseEntity.ok(List.of(viewStatsDto1));
-        final Map<String, Long> expected = Map.of("/events/1", 1L);
+        final ViewCounts expected = new ViewCounts(Map.of("/events/1", 1L), false);
 
         when(request.getRemoteAddr()).thenReturn(ip);
         when(request.getRequestURI()).thenReturn(uri);
-        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean())).thenReturn(response);
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(viewStatsDto1)));
 
-        final Map<String, Long> actualViewStatsDto = service.getMap(request, true);
+        final ViewCounts actualViewStatsDto = service.getMap(request, true);
         assertEquals(expected, actualViewStatsDto);
     }
 
     @Test
     void getMap2() {
-        final ResponseEntity<Object> response = ResponseEntity.ok(List.of(viewStatsDto1, viewStatsDto2));
-        final Map<String, Long> expected = Map.of(
+        final ViewCounts expected = new ViewCounts(Map.of(
                 "/events/1", 1L,
                 "/events/2", 1L
-        );
+        ), false);
 
         when(request.getRemoteAddr()).thenReturn(ip);
-        when(request.getRequestURI()).thenReturn(uri);
-        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean())).thenReturn(response);
+        when(request.getRequestURI()).thenReturn("/events");
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(viewStatsDto1, viewStatsDto2)));
 
-        final Map<String, Long> actualViewStatsDto = service.getMap(request, List.of(1L, 2L), true);
+        final ViewCounts actualViewStatsDto = service.getMap(request, List.of(1L, 2L), true);
         assertEquals(expected, actualViewStatsDto);
     }
 
@@ -131,7 +141,7 @@ class StatsServiceTest {
 
         when(request.getRemoteAddr()).thenReturn(ip);
         when(request.getRequestURI()).thenReturn(uri);
-        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean())).thenReturn(response);
+        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean())).thenReturn(response);
 
         final LocalDateTime start = LocalDateTime.MIN;
         final LocalDateTime end = LocalDateTime.MAX;
@@ -140,15 +150,64 @@ class StatsServiceTest {
     }
 
     @Test
-    void get_BadRequest() {
+    void getMap3_BadRequest() {
         final ResponseEntity<Object> response = ResponseEntity.badRequest().build();
 
         when(request.getRemoteAddr()).thenReturn(ip);
         when(request.getRequestURI()).thenReturn(uri);
-        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean())).thenReturn(response);
+        when(statsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean())).thenReturn(response);
 
         final ResponseException exception = assertThrows(ResponseException.class,
-                () -> service.getMap(request, true));
+                () -> service.getMap(request, List.of(1L), LocalDateTime.MIN, LocalDateTime.MAX, true));
         assertEquals("Failed to get data from stats service.", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMapAsync() {
+        when(request.getRequestURI()).thenReturn(uri);
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(viewStatsDto1)));
+
+        final ViewCounts actual = service.getMapAsync(request, true).join();
+        assertEquals(new ViewCounts(Map.of("/events/1", 1L), false), actual);
+        verify(circuitBreaker).onSuccess();
+    }
+
+    @Test
+    void getMapAsync_StatsServerUnavailable() {
+        when(request.getRequestURI()).thenReturn(uri);
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("Connection refused")));
+
+        final ViewCounts actual = service.getMapAsync(request, true).join();
+        assertEquals(new ViewCounts(Map.of("/events/1", 0L), true), actual);
+        verify(circuitBreaker).onFailure();
+    }
+
+    @Test
+    void getMapAsync_DeadlineExceeded() {
+        ReflectionTestUtils.setField(service, "deadlineMs", 50L);
+        when(request.getRequestURI()).thenReturn(uri);
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(new CompletableFuture<>());
+
+        final ViewCounts actual = service.getMapAsync(request, true).join();
+        assertEquals(new ViewCounts(Map.of("/events/1", 0L), true), actual);
+        verify(circuitBreaker).onFailure();
+    }
+
+    @Test
+    void getMapAsync_CircuitOpen_NotCallStatsServer() {
+        when(request.getRequestURI()).thenReturn("/events/1", "/events/2", "/events/3");
+        when(asyncStatsClient.getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean()))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("Connection refused")));
+
+        service.getMapAsync(request, true).join();
+        service.getMapAsync(request, true).join();
+        final ViewCounts actual = service.getMapAsync(request, true).join();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(new ViewCounts(Map.of("/events/3", 0L), true), actual);
+        verify(asyncStatsClient, times(2)).getStats(any(), any(), ArgumentMatchers.anyList(), anyBoolean(), anyBoolean());
+    }
+}
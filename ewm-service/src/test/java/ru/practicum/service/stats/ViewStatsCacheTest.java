@@ -0,0 +1,125 @@
+package ru.practicum.service.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exception.ResponseException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewStatsCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ViewStatsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ViewStatsCache(meterRegistry, 60_000, 60_000, 100);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_LoadOnlyMissing() {
+        final ViewCounts first = cache.get(List.of("/events/1"), false, uris -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Map.of("/events/1", 3L));
+        });
+        final ViewCounts second = cache.get(List.of("/events/1", "/events/2"), false, uris -> {
+            loads.incrementAndGet();
+            assertEquals(List.of("/events/2"), uris);
+            return CompletableFuture.completedFuture(Map.of());
+        });
+
+        assertEquals(new ViewCounts(Map.of("/events/1", 3L), false), first);
+        assertEquals(new ViewCounts(Map.of("/events/1", 3L, "/events/2", 0L), false), second);
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "stats.views").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_UniqueIsSeparateKey() {
+        cache.get(List.of("/events/1"), false, uris -> CompletableFuture.completedFuture(Map.of("/events/1", 5L)));
+        final ViewCounts unique = cache.get(List.of("/events/1"), true,
+                uris -> CompletableFuture.completedFuture(Map.of("/events/1", 2L)));
+
+        assertEquals(2L, unique.get("/events/1"));
+    }
+
+    @Test
+    void get_ConcurrentMissesLoadOnce() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<ViewCounts> first = CompletableFuture.supplyAsync(() ->
+                cache.get(List.of("/events/1"), false, uris -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return CompletableFuture.completedFuture(Map.of("/events/1", 7L));
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        final CompletableFuture<ViewCounts> second = CompletableFuture.supplyAsync(() ->
+                cache.get(List.of("/events/1"), false, uris -> {
+                    loads.incrementAndGet();
+                    return CompletableFuture.completedFuture(Map.of("/events/1", 0L));
+                }));
+        release.countDown();
+
+        assertEquals(7L, first.get(5, TimeUnit.SECONDS).get("/events/1"));
+        assertEquals(7L, second.get(5, TimeUnit.SECONDS).get("/events/1"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_LoaderFailed_ZeroIsStale() {
+        final ViewCounts views = cache.get(List.of("/events/1"), false, uris -> {
+            throw new ResponseException("Failed to get data from stats service.");
+        });
+
+        assertEquals(new ViewCounts(Map.of("/events/1", 0L), true), views);
+    }
+
+    @Test
+    void get_LoaderFailed_LastKnownIsStale() {
+        cache = new ViewStatsCache(meterRegistry, 0, 60_000, 100);
+        cache.get(List.of("/events/1"), false, uris -> CompletableFuture.completedFuture(Map.of("/events/1", 4L)));
+
+        final ViewCounts views = cache.get(List.of("/events/1", "/events/2"), false, uris -> {
+            loads.incrementAndGet();
+            return CompletableFuture.failedFuture(new ResponseException("Failed to get data from stats service."));
+        });
+
+        assertEquals(new ViewCounts(Map.of("/events/1", 4L, "/events/2", 0L), true), views);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_StaleExpiresSooner() throws Exception {
+        cache = new ViewStatsCache(meterRegistry, 60_000, 50, 100);
+        cache.get(List.of("/events/1"), false,
+                uris -> CompletableFuture.failedFuture(new ResponseException("Failed to get data from stats service.")));
+        Thread.sleep(100);
+
+        final ViewCounts views = cache.get(List.of("/events/1"), false,
+                uris -> CompletableFuture.completedFuture(Map.of("/events/1", 2L)));
+        assertEquals(new ViewCounts(Map.of("/events/1", 2L), false), views);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.service.subs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.repository.FriendshipRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static ru.practicum.enums.FriendshipState.APPROVED;
+
+@ExtendWith(MockitoExtension.class)
+class FriendshipGraphTest {
+    @Mock
+    private FriendshipRepository friendshipRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        graph = new FriendshipGraph(friendshipRepository, meterRegistry, true, 2);
+    }
+
+    @Test
+    void build_ReadsApprovedFriendshipsInBatches() {
+        when(friendshipRepository.findEdgesByStateAndIdAfter(eq(APPROVED), anyLong(), any()))
+                .thenReturn(List.of(edge(1L, 1L, 2L), edge(2L, 1L, 3L)))
+                .thenReturn(List.of(edge(5L, 2L, 3L)))
+                .thenReturn(List.of());
+
+        graph.build();
+
+        assertTrue(graph.isReady());
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(3.0, meterRegistry.get("ewm.friend.graph.edges").gauge().value());
+        verify(friendshipRepository).findEdgesByStateAndIdAfter(eq(APPROVED), eq(2L), any());
+        verify(friendshipRepository).findEdgesByStateAndIdAfter(eq(APPROVED), eq(5L), any());
+    }
+
+    @Test
+    void getFriendsAndFollowers() {
+        build(edge(1L, 1L, 4L), edge(2L, 1L, 2L), edge(3L, 3L, 2L), edge(4L, 1L, 2L));
+
+        assertArrayEquals(new long[]{2L, 4L}, graph.getFriends(1L));
+        assertArrayEquals(new long[]{1L, 3L}, graph.getFollowers(2L));
+        assertArrayEquals(new long[0], graph.getFriends(2L));
+        assertEquals(3, graph.getEdgeCount());
+    }
+
+    @Test
+    void getMutualFriends() {
+        build(edge(1L, 1L, 2L), edge(2L, 1L, 3L), edge(3L, 1L, 5L),
+                edge(4L, 4L, 3L), edge(5L, 4L, 5L), edge(6L, 4L, 6L));
+
+        assertArrayEquals(new long[]{3L, 5L}, graph.getMutualFriends(1L, 4L));
+        assertArrayEquals(new long[0], graph.getMutualFriends(1L, 7L));
+    }
+
+    @Test
+    void isFriend_Directed() {
+        build(edge(1L, 1L, 2L));
+
+        assertTrue(graph.isFriend(1L, 2L));
+        assertFalse(graph.isFriend(2L, 1L));
+    }
+
+    @Test
+    void addAndRemoveFriendship() {
+        build(edge(1L, 1L, 3L));
+
+        graph.addFriendship(1L, 2L);
+        graph.addFriendship(1L, 2L);
+        assertArrayEquals(new long[]{2L, 3L}, graph.getFriends(1L));
+        assertArrayEquals(new long[]{1L}, graph.getFollowers(2L));
+        assertEquals(2, graph.getEdgeCount());
+
+        graph.removeFriendship(1L, 3L);
+        graph.removeFriendship(1L, 4L);
+        assertArrayEquals(new long[]{2L}, graph.getFriends(1L));
+        assertArrayEquals(new long[0], graph.getFollowers(3L));
+        assertEquals(1, graph.getEdgeCount());
+    }
+
+    @Test
+    void addFollowers() {
+        build(edge(1L, 1L, 5L));
+
+        graph.addFollowers(5L, List.of(2L, 3L, 1L));
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, graph.getFollowers(5L));
+        assertArrayEquals(new long[]{5L}, graph.getFriends(3L));
+        assertEquals(3, graph.getEdgeCount());
+    }
+
+    /** Изменения, пришедшие во время построения, применяются после загрузки */
+    @Test
+    void build_ApplyChangesMadeBeforeReady() {
+        graph.addFriendship(1L, 2L);
+        graph.removeFriendship(1L, 3L);
+        assertFalse(graph.isReady());
+
+        build(edge(1L, 1L, 3L));
+
+        assertArrayEquals(new long[]{2L}, graph.getFriends(1L));
+        assertEquals(1, graph.getEdgeCount());
+    }
+
+    @Test
+    void build_Disabled() {
+        final FriendshipGraph disabled = new FriendshipGraph(friendshipRepository, meterRegistry, false, 2);
+
+        disabled.build();
+        disabled.addFriendship(1L, 2L);
+
+        assertFalse(disabled.isReady());
+        assertEquals(0, disabled.getEdgeCount());
+        verifyNoInteractions(friendshipRepository);
+    }
+
+    private void build(FriendshipRepository.FriendshipEdge... edges) {
+        when(friendshipRepository.findEdgesByStateAndIdAfter(eq(APPROVED), anyLong(), any()))
+                .thenReturn(List.of(edges))
+                .thenReturn(List.of());
+        graph.build();
+    }
+
+    private static FriendshipRepository.FriendshipEdge edge(long id, long followerId, long friendId) {
+        return new FriendshipRepository.FriendshipEdge() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public long getFollowerId() {
+                return followerId;
+            }
+
+            @Override
+            public long getFriendId() {
+                return friendId;
+            }
+        };
+    }
+}
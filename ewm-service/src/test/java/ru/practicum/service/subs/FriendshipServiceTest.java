@@ -6,28 +6,45 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.dto.subs.FriendshipBulkUpdateResult;
 import ru.practicum.dto.subs.FriendshipDto;
 import ru.practicum.dto.subs.FriendshipShortDto;
+import ru.practicum.dto.user.UserDto;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.mapper.FriendshipMapper;
 import ru.practicum.model.Friendship;
 import ru.practicum.model.User;
+import ru.practicum.repository.FriendFeedRepository;
+import ru.practicum.repository.FriendParticipationRepository;
 import ru.practicum.repository.FriendshipRepository;
 import ru.practicum.service.user.UserService;
+import ru.practicum.utils.CursorPage;
+import ru.practicum.utils.FriendshipCursor;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static ru.practicum.enums.FriendshipState.APPROVED;
 import static ru.practicum.enums.FriendshipState.PENDING;
@@ -38,14 +55,17 @@ class FriendshipServiceTest {
     @Mock
     private FriendshipRepository friendshipRepository;
     @Mock
+    private FriendFeedRepository friendFeedRepository;
+    @Mock
+    private FriendParticipationRepository friendParticipationRepository;
+    @Mock
+    private FriendshipGraph friendshipGraph;
+    @Mock
     private UserService userService;
     @InjectMocks
     private FriendshipServiceImpl service;
     private List<FriendshipShortDto> allDto;
-    private List<Friendship> all;
-    private List<Friendship> pending;
     private List<FriendshipShortDto> pendingDto;
-    private List<Friendship> reject;
     private List<FriendshipShortDto> rejectDto;
     private List<Friendship> approved;
     private List<FriendshipShortDto> approvedDto;
@@ -55,17 +75,16 @@ class FriendshipServiceTest {
         final User user1 = new User(1L, "User1", "user1@m.ru", false);
         final User follower1 = new User(2L, "Follower1", "follower1@m.ru", false);
         final User follower2 = new User(3L, "Follower2", "follower2@m.ru", false);
-        final Friendship f1 = Friendship.builder().id(2L).friend(user1).follower(follower1).state(PENDING).build();
+        final Friendship f1 = Friendship.builder().id(2L).friend(user1).follower(follower1).state(PENDING)
+                .createdOn(LocalDateTime.of(2023, 6, 1, 10, 0)).build();
         final FriendshipShortDto fS1 = FriendshipMapper.toShortDto(f1);
-        final Friendship f2 = Friendship.builder().id(3L).friend(user1).follower(follower2).state(PENDING).build();
+        final Friendship f2 = Friendship.builder().id(3L).friend(user1).follower(follower2).state(PENDING)
+                .createdOn(LocalDateTime.of(2023, 6, 1, 9, 0)).build();
         final FriendshipShortDto fS2 = FriendshipMapper.toShortDto(f2);
         final Friendship f3 = Friendship.builder().id(4L).friend(user1).follower(follower1).state(REJECTED).build();
         final FriendshipShortDto fS3 = FriendshipMapper.toShortDto(f3);
         final Friendship f4 = Friendship.builder().id(5L).friend(user1).follower(follower2).state(APPROVED).build();
         final FriendshipShortDto fS4 = FriendshipMapper.toShortDto(f4);
-        all = List.of(f1, f2);
-        pending = List.of(f1, f2);
-        reject = List.of(f3);
         approved = List.of(f4);
         allDto = List.of(fS1, fS2);
         pendingDto = List.of(fS1, fS2);
@@ -79,6 +98,7 @@ class FriendshipServiceTest {
         final User follower = new User(1L, "User1", "user1@m.ru", false);
         final User friend = new User(2L, "User2", "user2@m.ru", isAutoSubscribe);
         final Friendship friendshipRequest = Friendship.builder()
+                .id(1L)
                 .follower(follower)
                 .friend(friend)
                 .state(friend.isAutoSubscribe() ? APPROVED : PENDING)
@@ -92,6 +112,22 @@ class FriendshipServiceTest {
         final FriendshipDto friendshipDto = service.requestFriendship(1L, 2L);
 
         assertEquals(FriendshipMapper.toDto(friendshipRequest), friendshipDto);
+        verify(friendFeedRepository, times(isAutoSubscribe ? 1 : 0)).addFriendEvents(eq(List.of(1L)), any());
+        verify(friendshipGraph, times(isAutoSubscribe ? 1 : 0)).addFriendship(1L, 2L);
+        verify(friendParticipationRepository, times(isAutoSubscribe ? 1 : 0))
+                .addFriendParticipations(eq(1L), eq(2L), any());
+    }
+
+    @Test
+    void requestFriendship_throwException_whenAlreadyFriends() {
+        when(userService.findUserById(anyLong())).thenReturn(new User(1L, "User1", "user1@m.ru", false));
+        when(friendshipGraph.isFriend(1L, 2L)).thenReturn(true);
+
+        final ConflictException exception = assertThrows(ConflictException.class,
+                () -> service.requestFriendship(1L, 2L));
+
+        assertEquals("Already friends.", exception.getMessage());
+        verify(friendshipRepository, never()).existsByFollowerIdAndFriendIdAndStateNot(anyLong(), anyLong(), any());
     }
 
     @Test
@@ -115,10 +151,37 @@ class FriendshipServiceTest {
         final List<Friendship> saved = List.of(aF1, af2);
 
         when(friendshipRepository.findAllById(any())).thenReturn(friendships);
+        when(friendshipRepository.updateStateById(anyLong(), eq(APPROVED))).thenReturn(1);
         when(friendshipRepository.saveAll(any())).thenReturn(saved);
 
         final List<FriendshipShortDto> friendshipShortDtos = service.approveFriendship(1L, List.of(2L, 3L));
         assertEquals(FriendshipMapper.toShortDto(saved), friendshipShortDtos);
+        verify(friendFeedRepository).addFriendEvents(eq(List.of(2L, 3L)), any());
+        verify(friendshipGraph).addFriendship(2L, 1L);
+        verify(friendshipGraph).addFriendship(3L, 1L);
+        verify(friendParticipationRepository).addFriendParticipations(eq(2L), eq(1L), any());
+        verify(friendParticipationRepository).addFriendParticipations(eq(3L), eq(1L), any());
+    }
+
+    @Test
+    void approveFriendship_ApprovedConcurrently_NotCountedTwice() {
+        final User user1 = new User(1L, "User1", "user1@m.ru", false);
+        final User follower1 = new User(2L, "Follower1", "follower1@m.ru", false);
+        final User follower2 = new User(3L, "Follower2", "follower2@m.ru", false);
+        final Friendship f1 = Friendship.builder().id(2L).friend(user1).follower(follower1).state(PENDING).build();
+        final Friendship f2 = Friendship.builder().id(3L).friend(user1).follower(follower2).state(PENDING).build();
+        final List<Friendship> saved = List.of(f1.toBuilder().state(APPROVED).build(),
+                f2.toBuilder().state(APPROVED).build());
+
+        when(friendshipRepository.findAllById(any())).thenReturn(List.of(f1, f2));
+        when(friendshipRepository.updateStateById(2L, APPROVED)).thenReturn(1);
+        when(friendshipRepository.updateStateById(3L, APPROVED)).thenReturn(0);
+        when(friendshipRepository.saveAll(any())).thenReturn(saved);
+
+        service.approveFriendship(1L, List.of(2L, 3L));
+
+        verify(friendParticipationRepository).addFriendParticipations(eq(2L), eq(1L), any());
+        verify(friendParticipationRepository, never()).addFriendParticipations(eq(3L), anyLong(), any());
     }
 
     @Test
@@ -139,6 +202,66 @@ class FriendshipServiceTest {
         assertEquals("Request friendship not found.", exception.getMessage());
     }
 
+    @Test
+    void approveAllPending() {
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findEdgesByFriendIdAndState(1L, PENDING))
+                .thenReturn(List.of(edge(7L, 2L, 1L), edge(4L, 3L, 1L)));
+        when(friendshipRepository.updateStateByFriendId(1L, PENDING, APPROVED, 7L)).thenReturn(2);
+
+        final FriendshipBulkUpdateResult result = service.approveAllPending(1L);
+
+        assertEquals(2, result.getApprovedCount());
+        final InOrder inOrder = inOrder(friendFeedRepository, friendParticipationRepository, friendshipRepository);
+        inOrder.verify(friendFeedRepository).addPendingFollowerEvents(eq(1L), eq(7L), any());
+        inOrder.verify(friendParticipationRepository).addPendingFollowerParticipations(eq(1L), eq(7L), any());
+        inOrder.verify(friendshipRepository).updateStateByFriendId(1L, PENDING, APPROVED, 7L);
+        verify(friendshipGraph).addFollowers(1L, List.of(2L, 3L));
+        verify(friendshipRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void approveAllPending_ChangedConcurrently_Conflict() {
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findEdgesByFriendIdAndState(1L, PENDING))
+                .thenReturn(List.of(edge(7L, 2L, 1L), edge(4L, 3L, 1L)));
+        when(friendshipRepository.updateStateByFriendId(1L, PENDING, APPROVED, 7L)).thenReturn(1);
+
+        assertThrows(ConflictException.class, () -> service.approveAllPending(1L));
+        verify(friendshipGraph, never()).addFollowers(anyLong(), any());
+    }
+
+    @Test
+    void approveAllPending_NothingPending() {
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findEdgesByFriendIdAndState(1L, PENDING)).thenReturn(List.of());
+
+        assertEquals(0, service.approveAllPending(1L).getApprovedCount());
+        verify(friendshipRepository, never()).updateStateByFriendId(anyLong(), any(), any(), anyLong());
+        verify(friendFeedRepository, never()).addPendingFollowerEvents(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void changeSubscribeMode_ApprovePending() {
+        final UserDto userDto = UserDto.builder().id(1L).isAutoSubscribe(true).build();
+        when(userService.changeSubscribeMode(1L, true)).thenReturn(userDto);
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findEdgesByFriendIdAndState(1L, PENDING)).thenReturn(List.of(edge(4L, 3L, 1L)));
+        when(friendshipRepository.updateStateByFriendId(1L, PENDING, APPROVED, 4L)).thenReturn(1);
+
+        assertEquals(userDto, service.changeSubscribeMode(1L, true, true));
+        verify(friendshipGraph).addFollowers(1L, List.of(3L));
+    }
+
+    @Test
+    void changeSubscribeMode_NotApprovePending_whenAutoSubscribeDisabled() {
+        final UserDto userDto = UserDto.builder().id(1L).isAutoSubscribe(false).build();
+        when(userService.changeSubscribeMode(1L, false)).thenReturn(userDto);
+
+        assertEquals(userDto, service.changeSubscribeMode(1L, false, true));
+        verify(friendshipRepository, never()).findEdgesByFriendIdAndState(anyLong(), any());
+    }
+
     @Test
     void rejectFriendship() {
         final User user1 = new User(1L, "User1", "user1@m.ru", false);
@@ -156,20 +279,47 @@ class FriendshipServiceTest {
 
         final List<FriendshipShortDto> friendshipShortDtos = service.rejectFriendship(1L, List.of(2L, 3L));
         assertEquals(FriendshipMapper.toShortDto(saved), friendshipShortDtos);
+        verify(friendFeedRepository).removeFriendEvents(List.of(2L, 3L));
+        verify(friendshipGraph, never()).removeFriendship(anyLong(), anyLong());
+        verify(friendParticipationRepository, never()).removeFriendParticipations(anyLong(), anyLong());
+    }
+
+    @Test
+    void rejectFriendship_RemoveApprovedFromGraph() {
+        final User user1 = new User(1L, "User1", "user1@m.ru", false);
+        final User follower1 = new User(2L, "Follower1", "follower1@m.ru", false);
+        final Friendship approvedFriendship = Friendship.builder().id(5L).friend(user1).follower(follower1)
+                .state(APPROVED).build();
+        final Friendship rejected = approvedFriendship.toBuilder().state(REJECTED).build();
+
+        when(friendshipRepository.findAllById(any())).thenReturn(List.of(approvedFriendship));
+        when(friendshipRepository.saveAll(any())).thenReturn(List.of(rejected));
+
+        service.rejectFriendship(1L, List.of(5L));
+
+        verify(friendshipGraph).removeFriendship(2L, 1L);
+        verify(friendParticipationRepository).removeFriendParticipations(2L, 1L);
     }
 
     @Test
     void deleteFriendshipRequest() {
+        final Friendship friendship = approved.get(0);
         doNothing().when(userService).checkExistById(anyLong());
-        when(friendshipRepository.existsByIdAndFollowerId(anyLong(), anyLong())).thenReturn(true);
+        when(friendshipRepository.findByIdAndFollowerId(anyLong(), anyLong())).thenReturn(Optional.of(friendship));
 
-        service.deleteFriendshipRequest(1L, 2L);
+        service.deleteFriendshipRequest(3L, 5L);
+
+        final InOrder inOrder = inOrder(friendFeedRepository, friendshipRepository);
+        inOrder.verify(friendFeedRepository).removeFriendEvents(List.of(5L));
+        inOrder.verify(friendshipRepository).delete(friendship);
+        verify(friendshipGraph).removeFriendship(3L, 1L);
+        verify(friendParticipationRepository).removeFriendParticipations(3L, 1L);
     }
 
     @Test
     void deleteFriendshipRequest_throwException() {
         doNothing().when(userService).checkExistById(anyLong());
-        when(friendshipRepository.existsByIdAndFollowerId(anyLong(), anyLong())).thenReturn(false);
+        when(friendshipRepository.findByIdAndFollowerId(anyLong(), anyLong())).thenReturn(Optional.empty());
 
         final NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> service.deleteFriendshipRequest(1L, 2L));
@@ -180,12 +330,11 @@ class FriendshipServiceTest {
     @ParameterizedTest
     @ValueSource(strings = {"ALL", "PENDING", "APPROVED", "REJECTED"})
     void getFriendshipRequests(String filter) {
-        final List<Friendship> expected = getExpected(filter);
         final List<FriendshipShortDto> expectedDto = getExpectedByFylter(filter);
         doNothing().when(userService).checkExistById(anyLong());
-        when(friendshipRepository.findAll(any(Predicate.class))).thenReturn(expected);
+        when(friendshipRepository.findShortDtos(any(Predicate.class), any())).thenReturn(expectedDto);
 
-        final List<FriendshipShortDto> actual = service.getFriendshipRequests(1L, filter);
+        final List<FriendshipShortDto> actual = service.getFriendshipRequests(1L, filter, 0, 10);
         assertEquals(expectedDto, actual);
     }
 
@@ -194,7 +343,7 @@ class FriendshipServiceTest {
         doNothing().when(userService).checkExistById(anyLong());
 
         final ConflictException exception = assertThrows(ConflictException.class,
-                () -> service.getFriendshipRequests(1L, "filter"));
+                () -> service.getFriendshipRequests(1L, "filter", 0, 10));
         assertEquals("Wrong filter. Filter should be one of: [ALL, APPROVED, PENDING, REJECTED]", exception.getMessage());
     }
 
@@ -202,27 +351,42 @@ class FriendshipServiceTest {
     @ParameterizedTest
     @ValueSource(strings = {"ALL", "PENDING", "APPROVED", "REJECTED"})
     void getIncomingFriendRequests(String filter) {
-        final List<Friendship> expected = getExpected(filter);
         final List<FriendshipShortDto> expectedDto = getExpectedByFylter(filter);
         doNothing().when(userService).checkExistById(anyLong());
-        when(friendshipRepository.findAll(any(Predicate.class))).thenReturn(expected);
+        when(friendshipRepository.findShortDtos(any(Predicate.class), any())).thenReturn(expectedDto);
 
-        final List<FriendshipShortDto> actual = service.getIncomingFriendRequests(1L, filter);
+        final List<FriendshipShortDto> actual = service.getIncomingFriendRequests(1L, filter, 0, 10);
         assertEquals(expectedDto, actual);
+        verify(friendshipRepository).findShortDtos(any(Predicate.class), eq(PageRequest.of(0, 10)));
     }
 
-    private List<Friendship> getExpected(String filter) {
-        switch (filter) {
-            case "ALL":
-                return all;
-            case "PENDING":
-                return pending;
-            case "APPROVED":
-                return approved;
-            case "REJECTED":
-                return reject;
-        }
-        return Collections.emptyList();
+    @Test
+    void getFriendshipRequests_Cursor() {
+        final FriendshipShortDto last = allDto.get(1);
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findShortDtosAfter(any(Predicate.class), any(), anyInt()))
+                .thenReturn(allDto.subList(0, 2));
+
+        final CursorPage<FriendshipShortDto> page = service.getFriendshipRequests(1L, "ALL", "", 2);
+
+        assertEquals(allDto.subList(0, 2), page.getItems());
+        assertEquals(FriendshipCursor.of(last).encode(), page.getNextCursor());
+        verify(friendshipRepository).findShortDtosAfter(any(Predicate.class), isNull(), eq(2));
+    }
+
+    @Test
+    void getIncomingFriendRequests_CursorLastPage() {
+        final FriendshipCursor cursor = FriendshipCursor.of(allDto.get(0));
+        doNothing().when(userService).checkExistById(anyLong());
+        when(friendshipRepository.findShortDtosAfter(any(Predicate.class), any(), anyInt()))
+                .thenReturn(allDto.subList(1, 2));
+
+        final CursorPage<FriendshipShortDto> page =
+                service.getIncomingFriendRequests(1L, "PENDING", cursor.encode(), 2);
+
+        assertEquals(allDto.subList(1, 2), page.getItems());
+        assertNull(page.getNextCursor());
+        verify(friendshipRepository).findShortDtosAfter(any(Predicate.class), eq(cursor), eq(2));
     }
 
     private List<FriendshipShortDto> getExpectedByFylter(String filter) {
@@ -238,4 +402,23 @@ class FriendshipServiceTest {
         }
         return Collections.emptyList();
     }
-}
\ No newline at end of file
+
+    private static FriendshipRepository.FriendshipEdge edge(long id, long followerId, long friendId) {
+        return new FriendshipRepository.FriendshipEdge() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public long getFollowerId() {
+                return followerId;
+            }
+
+            @Override
+            public long getFriendId() {
+                return friendId;
+            }
+        };
+    }
+}
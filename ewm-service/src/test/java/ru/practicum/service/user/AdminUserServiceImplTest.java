@@ -1,10 +1,12 @@
 package ru.practicum.service.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
@@ -18,6 +20,7 @@ import ru.practicum.model.User;
 import ru.practicum.repository.EventRepository;
 import ru.practicum.repository.RequestRepository;
 import ru.practicum.repository.UserRepository;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 import ru.practicum.utils.TestInitDataUtil;
 
@@ -43,6 +46,8 @@ class AdminUserServiceImplTest {
     private EventRepository eventRepository;
     @Mock
     private RequestRepository requestRepository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private UserServiceImpl service;
     private List<User> userList;
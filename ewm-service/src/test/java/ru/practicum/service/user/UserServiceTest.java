@@ -1,14 +1,19 @@
 package ru.practicum.service.user;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.exception.NotFoundException;
 import ru.practicum.repository.UserRepository;
 import ru.practicum.model.User;
+import ru.practicum.service.ReferenceDataCache;
 import ru.practicum.utils.Constants;
 
 import java.util.Optional;
@@ -24,6 +29,8 @@ import static org.mockito.Mockito.when;
 class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Spy
+    private final ReferenceDataCache cache = new ReferenceDataCache(new SimpleMeterRegistry(), 60_000, 100);
     @InjectMocks
     private UserServiceImpl userUtilService;
     private final long userId = 1L;
@@ -41,22 +48,23 @@ class UserServiceTest {
 
     @Test
     void checkExistById() {
-        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(expectedUser));
+        userUtilService.checkExistById(userId);
         userUtilService.checkExistById(userId);
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
     }
 
 
     @Test
     void checkExistById_ThrowExeption() {
-        when(userRepository.existsById(anyLong())).thenReturn(false);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         final NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> userUtilService.checkExistById(userId));
 
         assertEquals(expectedErrMessage, exception.getMessage());
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
     }
 
     @Test
@@ -77,4 +85,44 @@ class UserServiceTest {
         assertEquals(expectedErrMessage, exception.getMessage());
         verify(userRepository, times(1)).findById(userId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findUserById_FromCache() {
+        when(userRepository.findById(userId)).thenReturn(Optional.of(expectedUser));
+
+        userUtilService.findUserById(userId);
+        final User actualUser = userUtilService.findUserById(userId);
+        actualUser.setName("Changed");
+
+        assertEquals(expectedUser, userUtilService.findUserById(userId));
+        verify(userRepository, times(1)).findById(userId);
+    }
+
+    @Test
+    void changeSubscribeMode_EvictUser() {
+        when(userRepository.findById(userId)).thenReturn(Optional.of(expectedUser));
+
+        userUtilService.changeSubscribeMode(userId, true);
+        userUtilService.findUserById(userId);
+
+        verify(userRepository, times(2)).findById(userId);
+    }
+
+    @Test
+    void changeSubscribeMode_InTransaction_EvictUserAfterCommit() {
+        when(userRepository.findById(userId)).thenReturn(Optional.of(expectedUser));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userUtilService.changeSubscribeMode(userId, true);
+//            строка, закэшированная до коммита, удаляется из кэша после него
+            userUtilService.findUserById(userId);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        userUtilService.findUserById(userId);
+
+        verify(userRepository, times(3)).findById(userId);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeohashTest {
+
+    @Test
+    void encode() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pru", Geohash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    void cover_ContainsPointsInsideCircle() {
+        final List<String> cells = Geohash.cover(55.7558, 37.6173, 10);
+
+        assertTrue(cells.size() <= 9);
+        final int precision = cells.get(0).length();
+        for (double[] point : new double[][]{{55.84, 37.6173}, {55.67, 37.6173}, {55.7558, 37.77}, {55.7558, 37.46}}) {
+            assertTrue(Geohash.distanceKm(55.7558, 37.6173, point[0], point[1]) <= 10);
+            assertTrue(cells.contains(Geohash.encode(point[0], point[1], precision)), point[0] + "," + point[1]);
+        }
+    }
+
+    @Test
+    void cover_CircleAroundPole() {
+        assertEquals(List.of(), Geohash.cover(89.9, 0, 50));
+    }
+
+    @Test
+    void distanceKm() {
+        assertEquals(634, Geohash.distanceKm(55.7558, 37.6173, 59.9386, 30.3141), 5);
+        assertEquals(0, Geohash.distanceKm(10, 20, 10, 20), 1e-9);
+    }
+}
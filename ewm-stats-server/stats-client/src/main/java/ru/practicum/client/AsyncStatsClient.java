@@ -0,0 +1,110 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.practicum.Constants.FORMATTER;
+import static ru.practicum.Constants.STATS_ENDPOINT;
+
+/**
+ * Неблокирующий клиент сервиса статистики на {@link HttpClient}.<br>
+ * - один HttpClient на приложение: соединения переиспользуются (keep-alive)<br>
+ * - размер пула и время простоя соединения JDK читает только из системных свойств
+ * {@code jdk.httpclient.connectionPoolSize} и {@code jdk.httpclient.keepalive.timeout}, один раз на JVM;
+ * клиент выставляет их до создания первого HttpClient, если они не заданы при запуске<br>
+ * - ответ сразу разбирается в список {@link ViewStatsDto}<br>
+ * - ошибки ответа и сети завершают future исключениями {@link RestClientException},
+ * как у {@link StatsClient}
+ */
+@Service
+public class AsyncStatsClient {
+    static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private static final TypeReference<List<ViewStatsDto>> VIEW_STATS_LIST = new TypeReference<>() {
+    };
+
+    private final String serverUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+
+    public AsyncStatsClient(@Value("${ewm-stats-server.url}") String serverUrl,
+                            @Value("${stats-client.connect-timeout-ms:1000}") long connectTimeoutMs,
+                            @Value("${stats-client.read-timeout-ms:2000}") long readTimeoutMs,
+                            @Value("${stats-client.keep-alive-ms:30000}") long keepAliveMs,
+                            @Value("${stats-client.pool-size:50}") int poolSize,
+                            ObjectMapper objectMapper) {
+        configureConnectionPool(keepAliveMs, poolSize);
+        this.serverUrl = serverUrl;
+        this.objectMapper = objectMapper;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Пул соединений HttpClient общий для JVM и настраивается только системными свойствами,
+     * которые читаются при создании первого клиента. Явно заданные при запуске значения не перезаписываются.
+     */
+    static void configureConnectionPool(long keepAliveMs, int poolSize) {
+        if (System.getProperty(POOL_SIZE_PROPERTY) == null) {
+            System.setProperty(POOL_SIZE_PROPERTY, String.valueOf(poolSize));
+        }
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, String.valueOf(Math.max(1, keepAliveMs / 1000)));
+        }
+    }
+
+    public CompletableFuture<List<ViewStatsDto>> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                          boolean unique, boolean approximate) {
+        final UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(serverUrl + STATS_ENDPOINT);
+        if (start != null) builder.queryParam("start", start.format(FORMATTER));
+        if (end != null) builder.queryParam("end", end.format(FORMATTER));
+        if (uris != null && !uris.isEmpty()) builder.queryParam("uris", uris.toArray());
+        builder.queryParam("unique", unique);
+        if (approximate) builder.queryParam("approximate", true);
+
+        final URI uri = builder.encode().build().toUri();
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        throw new RestClientException("Failed to get data from stats service: " + e.getMessage(), e);
+                    }
+                    return parse(response);
+                });
+    }
+
+    private List<ViewStatsDto> parse(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new RestClientException("Failed to get data from stats service. Status: " + response.statusCode());
+        }
+        try {
+            return objectMapper.readValue(response.body(), VIEW_STATS_LIST);
+        } catch (IOException e) {
+            throw new RestClientException("Failed to parse stats service response", e);
+        }
+    }
+}
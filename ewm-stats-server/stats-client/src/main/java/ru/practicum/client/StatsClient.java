@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.dto.EndpointHitDto;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 
 import static ru.practicum.Constants.FORMATTER;
+import static ru.practicum.Constants.HIT_BATCH_ENDPOINT;
 import static ru.practicum.Constants.HIT_ENDPOINT;
 import static ru.practicum.Constants.STATS_ENDPOINT;
 
@@ -25,12 +27,26 @@ public class StatsClient {
     private final RestTemplate restTemplate;
 
     @Autowired
-    public StatsClient(@Value("${ewm-stats-server.url}") String serverUrl) {
+    public StatsClient(@Value("${ewm-stats-server.url}") String serverUrl,
+                       @Value("${stats-client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                       @Value("${stats-client.read-timeout-ms:2000}") int readTimeoutMs) {
         this.serverUrl = serverUrl;
-        this.restTemplate = new RestTemplate();
+        final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
     }
 
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    /**
+     * Статистика просмотров
+     * @param approximate при unique = true оценить количество уникальных ip по скетчам HyperLogLog
+     */
+    public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                           boolean approximate) {
         final List<String> path = new ArrayList<>();
         final Map<String, Object> parameters = new HashMap<>();
 
@@ -49,6 +65,10 @@ public class StatsClient {
 
         parameters.put("unique", unique);
         path.add("unique={unique}");
+        if (approximate) {
+            parameters.put("approximate", true);
+            path.add("approximate={approximate}");
+        }
 
         final String url = serverUrl + STATS_ENDPOINT + "?" + String.join("&", path);
         return restTemplate.getForEntity(url, Object.class, parameters);
@@ -57,4 +77,8 @@ public class StatsClient {
     public ResponseEntity<Object> saveHit(EndpointHitDto dto) {
         return restTemplate.postForEntity(serverUrl + HIT_ENDPOINT, dto, Object.class);
     }
+
+    public ResponseEntity<Object> saveHits(List<EndpointHitDto> dtos) {
+        return restTemplate.postForEntity(serverUrl + HIT_BATCH_ENDPOINT, dtos, Object.class);
+    }
 }
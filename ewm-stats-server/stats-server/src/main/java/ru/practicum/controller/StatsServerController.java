@@ -17,12 +17,14 @@ import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.service.StatsService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static ru.practicum.Constants.FORMATTER;
+import static ru.practicum.Constants.HIT_BATCH_ENDPOINT;
 import static ru.practicum.Constants.HIT_ENDPOINT;
 import static ru.practicum.Constants.STATS_ENDPOINT;
 import static ru.practicum.Constants.YYYY_MM_DD_HH_MM_SS;
@@ -42,6 +44,13 @@ public class StatsServerController {
         statsService.saveHit(dto);
     }
 
+    @PostMapping(HIT_BATCH_ENDPOINT)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveHits(@RequestBody @NotEmpty List<@Valid EndpointHitDto> dtos) {
+        log.debug("Request received POST '{}' : {} hits", HIT_BATCH_ENDPOINT, dtos.size());
+        statsService.saveHits(dtos);
+    }
+
     @GetMapping(STATS_ENDPOINT)
     public List<ViewStatsDto> getStats(@RequestParam(name = "start")
                                        @DateTimeFormat(pattern = YYYY_MM_DD_HH_MM_SS)
@@ -50,22 +59,25 @@ public class StatsServerController {
                                        @DateTimeFormat(pattern = YYYY_MM_DD_HH_MM_SS)
                                        LocalDateTime end,
                                        @RequestParam(name = "uris") String[] uris,
-                                       @RequestParam(name = "unique", defaultValue = "false") boolean unique
+                                       @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                       @RequestParam(name = "approximate", defaultValue = "false") boolean approximate
     ) {
-        final String pathStr = getPathStr(start, end, uris, unique);
+        final String pathStr = getPathStr(start, end, uris, unique, approximate);
         log.debug("Request received GET '{}?{}'", STATS_ENDPOINT, pathStr);
 
-        return statsService.getStats(start, end, uris, unique)
+        return statsService.getStats(start, end, uris, unique, approximate)
                 .stream().sorted()
                 .collect(Collectors.toList());
     }
 
-    private String getPathStr(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique) {
+    private String getPathStr(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique,
+                              boolean approximate) {
         final List<String> path = new ArrayList<>();
         if (start != null) path.add("start=" + start.format(FORMATTER));
         if (end != null) path.add("end=" + end.format(FORMATTER));
         if (uris != null) path.add("uris=" + String.join("&uris=", uris));
         path.add("unique=" + unique);
+        if (approximate) path.add("approximate=true");
 
         return String.join("&", path);
     }
@@ -2,6 +2,7 @@ package ru.practicum.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
@@ -13,6 +14,7 @@ import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 @Builder(toBuilder = true)
+@Getter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
@@ -30,4 +32,7 @@ public class EndpointHit {
     private String ip;
     @Column(name = "created")
     private LocalDateTime timestamp;
+    /** Просмотр уже учтен в корзинах агрегата endpoint_hit_rollup */
+    @Column(name = "rolled_up")
+    private boolean rolledUp;
 }
\ No newline at end of file
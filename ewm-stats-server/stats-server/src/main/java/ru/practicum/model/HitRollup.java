@@ -0,0 +1,39 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+
+/** Корзина агрегата: количество просмотров uri приложения и скетч уникальных ip */
+@Getter
+@AllArgsConstructor
+public class HitRollup {
+    private final Key key;
+    private long hits;
+    private HyperLogLog ipSketch;
+
+    public HitRollup(Key key, int precision) {
+        this(key, 0, new HyperLogLog(precision));
+    }
+
+    public void add(String ip) {
+        hits++;
+        ipSketch.add(ip);
+    }
+
+    public void merge(HitRollup other) {
+        hits += other.hits;
+        ipSketch = HyperLogLog.union(ipSketch, other.ipSketch);
+    }
+
+    @Value
+    public static class Key {
+        RollupGranularity granularity;
+        LocalDateTime bucketStart;
+        String app;
+        String uri;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * План обслуживания месячных секций endpoint_hit (endpoint_hit_pYYYYMM).<br>
+ * - toCreate - отсутствующие секции на текущий и monthsAhead следующих месяцев<br>
+ * - toDrop - секции месяцев раньше current - retentionMonths (0 - хранить всё);
+ * секция по умолчанию и таблицы с другими именами не трогаются
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class PartitionPlan {
+    private static final String PREFIX = "endpoint_hit_p";
+    private static final Pattern NAME_PATTERN = Pattern.compile(PREFIX + "(\\d{4})(0[1-9]|1[0-2])");
+
+    private final List<YearMonth> toCreate;
+    private final List<String> toDrop;
+
+    /**
+     * @param current текущий месяц
+     * @param partitions имена существующих секций
+     */
+    public static PartitionPlan of(YearMonth current, Collection<String> partitions, int monthsAhead,
+                                   int retentionMonths) {
+        final List<YearMonth> toCreate = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            final YearMonth month = current.plusMonths(i);
+            if (!partitions.contains(getPartitionName(month))) {
+                toCreate.add(month);
+            }
+        }
+
+        final Set<String> toDrop = new TreeSet<>();
+        if (retentionMonths > 0) {
+            final YearMonth oldest = current.minusMonths(retentionMonths);
+            for (String name : partitions) {
+                getPartitionMonth(name)
+                        .filter(month -> month.isBefore(oldest))
+                        .ifPresent(month -> toDrop.add(name));
+            }
+        }
+        return new PartitionPlan(toCreate, new ArrayList<>(toDrop));
+    }
+
+    public static String getPartitionName(YearMonth month) {
+        return String.format("%s%04d%02d", PREFIX, month.getYear(), month.getMonthValue());
+    }
+
+    /** Месяц секции по ее имени (пусто для секции по умолчанию и чужих таблиц) */
+    public static Optional<YearMonth> getPartitionMonth(String name) {
+        final Matcher matcher = NAME_PATTERN.matcher(name);
+        if (!matcher.matches()) return Optional.empty();
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * План выборки статистики за период (start, end).<br>
+ * - [rolledFrom, rolledTo) - часть периода, целиком покрытая минутными корзинами<br>
+ * - segments - разбиение этой части на корзины: сначала самые крупные (дни),
+ * остатки по краям - часами, затем минутами<br>
+ * - просмотры вне [rolledFrom, rolledTo) (рваные края периода) и еще не агрегированные просмотры
+ * считаются по исходной таблице
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class RollupPlan {
+    private final LocalDateTime rolledFrom;
+    private final LocalDateTime rolledTo;
+    private final List<RollupSegment> segments;
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Построить план для периода с исключающими границами (как в фильтре по исходной таблице)
+     * @param start начало периода (не включается)
+     * @param end конец периода (не включается)
+     */
+    public static RollupPlan of(LocalDateTime start, LocalDateTime end) {
+        final LocalDateTime from = RollupGranularity.MINUTE.floor(start).plusMinutes(1);
+        final LocalDateTime to = RollupGranularity.MINUTE.floor(end);
+        final List<RollupSegment> segments = new ArrayList<>();
+        if (from.isBefore(to)) {
+            cover(from, to, RollupGranularity.values().length - 1, segments);
+        }
+        return new RollupPlan(from, to, segments);
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, int level, List<RollupSegment> segments) {
+        if (!from.isBefore(to)) return;
+
+        final RollupGranularity granularity = RollupGranularity.values()[level];
+        if (level == 0) {
+            segments.add(new RollupSegment(granularity, from, to));
+            return;
+        }
+        final LocalDateTime innerFrom = granularity.ceil(from);
+        final LocalDateTime innerTo = granularity.floor(to);
+        if (!innerFrom.isBefore(innerTo)) {
+            cover(from, to, level - 1, segments);
+            return;
+        }
+        segments.add(new RollupSegment(granularity, innerFrom, innerTo));
+        cover(from, innerFrom, level - 1, segments);
+        cover(innerTo, to, level - 1, segments);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.PartitionPlan;
+import ru.practicum.storage.HitPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.HashSet;
+
+/**
+ * Обслуживание месячных секций endpoint_hit.<br>
+ * - заранее создает секции на текущий и monthsAhead следующих месяцев<br>
+ * - удаляет секции старше retentionMonths (0 - хранить всё), если все их просмотры уже учтены в агрегатах
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.partition.enabled", havingValue = "true")
+public class HitPartitionJob {
+    private final HitPartitionRepository partitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public HitPartitionJob(HitPartitionRepository partitionRepository,
+                           @Value("${stats.partition.months-ahead:3}") int monthsAhead,
+                           @Value("${stats.partition.retention-months:24}") int retentionMonths) {
+        if (monthsAhead < 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("Partition months ahead and retention months must not be negative");
+        }
+        this.partitionRepository = partitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${stats.partition.interval-ms:3600000}")
+    public void maintain() {
+        partitionRepository.lock();
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.now(), new HashSet<>(partitionRepository.findPartitions()),
+                monthsAhead, retentionMonths);
+
+        for (YearMonth month : plan.getToCreate()) {
+            partitionRepository.createPartition(month);
+            log.info("Created endpoint_hit partition for {}", month);
+        }
+
+        for (String name : plan.getToDrop()) {
+            if (partitionRepository.hasNotRolledUp(name)) {
+                log.warn("Partition {} is out of retention but has hits that are not rolled up yet", name);
+                continue;
+            }
+            partitionRepository.dropPartition(name);
+            log.info("Dropped endpoint_hit partition {}", name);
+        }
+    }
+}
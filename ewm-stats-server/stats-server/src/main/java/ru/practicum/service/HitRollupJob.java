@@ -0,0 +1,35 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Периодический запуск агрегации просмотров */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.rollup.enabled", havingValue = "true", matchIfMissing = true)
+public class HitRollupJob {
+    private final HitRollupService rollupService;
+    private final int maxBatchesPerRun;
+
+    public HitRollupJob(HitRollupService rollupService,
+                        @Value("${stats.rollup.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.rollupService = rollupService;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.rollup.interval-ms:10000}")
+    public void rollUp() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            final int count = rollupService.rollUpNext();
+            total += count;
+            if (count < rollupService.getBatchSize()) break;
+        }
+        if (total > 0) {
+            log.info("Rolled up {} hits", total);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitRollup;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.sketch.HyperLogLog;
+import ru.practicum.storage.HitRollupRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инкрементальная агрегация просмотров в корзины по минутам, часам и дням.<br>
+ * За один вызов {@link #rollUpNext()} в одной транзакции:<br>
+ * - берется пачка еще не агрегированных просмотров<br>
+ * - просмотры добавляются в корзины всех размеров (количество + скетч уникальных ip)<br>
+ * - просмотры помечаются как агрегированные<br>
+ * Поэтому в любой момент каждый просмотр учтен либо в корзинах, либо среди неагрегированных, но не дважды.
+ */
+@Slf4j
+@Service
+public class HitRollupService {
+    private final HitRollupRepository rollupRepository;
+    private final int batchSize;
+    private final int sketchPrecision;
+
+    public HitRollupService(HitRollupRepository rollupRepository,
+                            @Value("${stats.rollup.batch-size:5000}") int batchSize,
+                            @Value("${stats.rollup.sketch-precision:12}") int sketchPrecision) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Rollup batch size must be positive");
+        }
+        if (sketchPrecision < HyperLogLog.MIN_PRECISION || sketchPrecision > HyperLogLog.MAX_PRECISION) {
+            throw new IllegalArgumentException("Wrong rollup sketch precision: " + sketchPrecision);
+        }
+        this.rollupRepository = rollupRepository;
+        this.batchSize = batchSize;
+        this.sketchPrecision = sketchPrecision;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Агрегировать следующую пачку просмотров
+     * @return количество агрегированных просмотров
+     */
+    @Transactional
+    public int rollUpNext() {
+        rollupRepository.lock();
+        final List<EndpointHit> hits = rollupRepository.findNotRolledUp(batchSize);
+        if (hits.isEmpty()) return 0;
+
+        final Map<HitRollup.Key, HitRollup> delta = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                final HitRollup.Key key = new HitRollup.Key(granularity, granularity.floor(hit.getTimestamp()),
+                        hit.getApp(), hit.getUri());
+                delta.computeIfAbsent(key, k -> new HitRollup(k, sketchPrecision)).add(hit.getIp());
+            }
+        }
+
+        final Map<HitRollup.Key, HitRollup> existing = rollupRepository.findByKeys(delta.keySet());
+        final List<HitRollup> inserts = new ArrayList<>();
+        final List<HitRollup> updates = new ArrayList<>();
+        delta.forEach((key, bucket) -> {
+            final HitRollup stored = existing.get(key);
+            if (stored == null) {
+                inserts.add(bucket);
+            } else {
+                stored.merge(bucket);
+                updates.add(stored);
+            }
+        });
+        rollupRepository.insertAll(inserts);
+        rollupRepository.updateAll(updates);
+        rollupRepository.markRolledUp(hits);
+
+        log.debug("Rolled up {} hits: {} new buckets, {} updated buckets", hits.size(), inserts.size(), updates.size());
+        return hits.size();
+    }
+}
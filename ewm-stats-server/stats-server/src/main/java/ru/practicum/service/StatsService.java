@@ -13,13 +13,22 @@ public interface StatsService {
      */
     void saveHit(EndpointHitDto dto);
 
+    /**
+     * Add endpoints to storage in one transaction
+     * @param dtos input data
+     * @return count of saved records
+     */
+    int saveHits(List<EndpointHitDto> dtos);
+
     /**
      * get stats from storage
      * @param start start time for filter statistic
      * @param end end time for filter statistic
      * @param uris list or uri for filter statistic
      * @param unique true or false(if true get unique records by ip)
+     * @param approximate if true unique records are estimated by HyperLogLog sketches of rollup buckets
      * @return stats list in ViewStatsDto format
      */
-    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, Boolean unique);
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, Boolean unique,
+                                boolean approximate);
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package ru.practicum.service;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ConstructorExpression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Projections;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.dto.ViewStatsDto;
@@ -13,12 +16,21 @@ import ru.practicum.exeption.ValidateException;
 import ru.practicum.model.EndpointHit;
 import ru.practicum.model.EndpointHitFilter;
 import ru.practicum.model.EndpointHitMapper;
+import ru.practicum.model.HitRollup;
+import ru.practicum.model.RollupPlan;
+import ru.practicum.sketch.HyperLogLog;
 import ru.practicum.storage.EndpointHitsRepository;
+import ru.practicum.storage.HitRollupRepository;
 import ru.practicum.utils.QPredicate;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ru.practicum.model.QEndpointHit.endpointHit;
 
@@ -28,11 +40,16 @@ import static ru.practicum.model.QEndpointHit.endpointHit;
 public class StatsServiceImpl implements StatsService {
 
     private final EndpointHitsRepository repository;
+    private final HitRollupRepository rollupRepository;
     private final JPAQueryFactory queryFactory;
+    private final int sketchPrecision;
 
-    public StatsServiceImpl(EndpointHitsRepository repository, EntityManager em) {
+    public StatsServiceImpl(EndpointHitsRepository repository, HitRollupRepository rollupRepository, EntityManager em,
+                            @Value("${stats.rollup.sketch-precision:12}") int sketchPrecision) {
         this.repository = repository;
+        this.rollupRepository = rollupRepository;
         this.queryFactory = new JPAQueryFactory(em);
+        this.sketchPrecision = sketchPrecision;
     }
 
     @Override
@@ -43,7 +60,27 @@ public class StatsServiceImpl implements StatsService {
     }
 
     @Override
-    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, Boolean unique) {
+    @Transactional
+    public int saveHits(List<EndpointHitDto> dtos) {
+        final List<EndpointHit> hits = dtos.stream()
+                .map(EndpointHitMapper::fromDto)
+                .collect(Collectors.toList());
+        return repository.insertAll(hits);
+    }
+
+    /**
+     * Неуникальные просмотры за период считаются по корзинам агрегата (см. {@link RollupPlan}),
+     * по исходной таблице - только края периода и еще не агрегированные просмотры.<br>
+     * Уникальные просмотры считаются точно по исходной таблице, а при approximate = true оцениваются
+     * объединением скетчей HyperLogLog тех же корзин и ip из исходной таблицы на краях периода
+     * (стандартная ошибка 1.04/√(2^stats.rollup.sketch-precision)).<br>
+     * Обе выборки читаются из одного снимка данных (REPEATABLE_READ), чтобы агрегация,
+     * идущая параллельно, не учла просмотр дважды.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, Boolean unique,
+                                       boolean approximate) {
         if (start != null && end != null && start.isAfter(end)) {
             throw new ValidateException("Start time must be before end end");
         }
@@ -53,11 +90,63 @@ public class StatsServiceImpl implements StatsService {
                 .uris(uris)
                 .build();
 
-        return getByFilter(unique, filter);
+        final boolean isUnique = Boolean.TRUE.equals(unique);
+        if (start == null || end == null || (isUnique && !approximate)) {
+            return getByFilter(unique, filter, null);
+        }
+        final RollupPlan plan = RollupPlan.of(start, end);
+        if (plan.isEmpty()) {
+            return getByFilter(unique, filter, null);
+        }
+        final Predicate notRolledUp = endpointHit.rolledUp.isFalse()
+                .or(endpointHit.timestamp.before(plan.getRolledFrom()))
+                .or(endpointHit.timestamp.goe(plan.getRolledTo()));
+        if (isUnique) {
+            return getApproximateUnique(filter, notRolledUp, plan, uris);
+        }
+        return merge(getByFilter(false, filter, notRolledUp), rollupRepository.sumHits(plan.getSegments(), uris));
     }
 
-    private List<ViewStatsDto> getByFilter(Boolean unique, EndpointHitFilter filter) {
-        final Predicate predicate = getEndpointHitPredicate(filter);
+    private List<ViewStatsDto> getApproximateUnique(EndpointHitFilter filter, Predicate notRolledUp, RollupPlan plan,
+                                                    String[] uris) {
+        final Map<List<String>, HyperLogLog> sketches = new LinkedHashMap<>();
+        for (HitRollup bucket : rollupRepository.findSketches(plan.getSegments(), uris)) {
+            sketches.merge(List.of(bucket.getKey().getApp(), bucket.getKey().getUri()), bucket.getIpSketch(),
+                    HyperLogLog::union);
+        }
+        final List<Tuple> edgeIps = queryFactory.from(endpointHit)
+                .select(endpointHit.app, endpointHit.uri, endpointHit.ip)
+                .distinct()
+                .where(QPredicate.builder()
+                        .add(getEndpointHitPredicate(filter), Function.identity())
+                        .add(notRolledUp, Function.identity())
+                        .buildAnd())
+                .fetch();
+        for (Tuple tuple : edgeIps) {
+            sketches.computeIfAbsent(List.of(tuple.get(endpointHit.app), tuple.get(endpointHit.uri)),
+                    key -> new HyperLogLog(sketchPrecision)).add(tuple.get(endpointHit.ip));
+        }
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().get(0), entry.getKey().get(1), entry.getValue().estimate()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<ViewStatsDto> merge(List<ViewStatsDto> raw, List<ViewStatsDto> rolledUp) {
+        final Map<List<String>, ViewStatsDto> result = new LinkedHashMap<>();
+        Stream.concat(raw.stream(), rolledUp.stream())
+                .forEach(stats -> result.merge(List.of(stats.getApp(), stats.getUri()), stats,
+                        (a, b) -> new ViewStatsDto(a.getApp(), a.getUri(), a.getHits() + b.getHits())));
+        return result.values().stream()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<ViewStatsDto> getByFilter(Boolean unique, EndpointHitFilter filter, Predicate extra) {
+        final Predicate predicate = QPredicate.builder()
+                .add(getEndpointHitPredicate(filter), Function.identity())
+                .add(extra, Function.identity())
+                .buildAnd();
         final ConstructorExpression<ViewStatsDto> expression =
                 Projections.constructor(
                         ViewStatsDto.class,
@@ -0,0 +1,230 @@
+package ru.practicum.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Скетч HyperLogLog для оценки количества уникальных значений (уникальных ip).<br>
+ * - m = 2^precision регистров по одному байту<br>
+ * - два скетча одинаковой точности объединяются поэлементным максимумом регистров,
+ * поэтому скетчи минутных корзин можно сливать в часовые и дневные<br>
+ * - хеш фиксирован (MurmurHash64A с постоянным seed), скетчи, посчитанные на разных узлах, совместимы<br>
+ * - относительная стандартная ошибка оценки 1.04/√m: для precision = 12 (4 КБ) около 1.6%,
+ * для precision = 14 (16 КБ) около 0.8%
+ */
+public final class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+    private static final long SEED = 0x2f3a6c5b1e4d7c9aL;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    String.format("HyperLogLog precision must be between %d and %d", MIN_PRECISION, MAX_PRECISION));
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /** Относительная стандартная ошибка оценки */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public void add(String value) {
+        final long hash = hash64(value.getBytes(StandardCharsets.UTF_8));
+        final int index = (int) (hash >>> (Long.SIZE - precision));
+        final long rest = (hash << precision) | (1L << (precision - 1));
+        final byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Объединить с другим скетчем той же точности
+     * @param other скетч, который добавляется к текущему
+     * @return текущий скетч
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Can't merge HyperLogLog sketches with different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Понизить точность скетча (результат такой же, как если бы значения сразу добавлялись в скетч меньшей точности)
+     * @param newPrecision новая точность, не больше текущей
+     * @return новый скетч
+     */
+    public HyperLogLog reduce(int newPrecision) {
+        if (newPrecision > precision) {
+            throw new IllegalArgumentException("Can't increase HyperLogLog precision");
+        }
+        final HyperLogLog result = new HyperLogLog(newPrecision);
+        final int shift = precision - newPrecision;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) continue;
+
+            final int low = i & ((1 << shift) - 1);
+            final byte rank = low == 0
+                    ? (byte) (registers[i] + shift)
+                    : (byte) (Integer.numberOfLeadingZeros(low) - (Integer.SIZE - shift) + 1);
+            final int index = i >>> shift;
+            if (result.registers[index] < rank) {
+                result.registers[index] = rank;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Объединение скетчей, в том числе разной точности (результат - с меньшей из них)
+     * @return a, если его точность не больше точности b, иначе новый скетч
+     */
+    public static HyperLogLog union(HyperLogLog a, HyperLogLog b) {
+        if (a.precision > b.precision) {
+            return a.reduce(b.precision).merge(b);
+        }
+        if (a.precision < b.precision) {
+            return a.merge(b.reduce(a.precision));
+        }
+        return a.merge(b);
+    }
+
+    /** Оценка количества уникальных значений */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Сериализация: [формат, точность, данные].<br>
+     * Пока заполнено мало регистров - разреженный формат (количество, затем пары индекс/значение),
+     * иначе - все регистры подряд
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) nonZero++;
+        }
+        final int sparseSize = 2 + Integer.BYTES + nonZero * 3;
+        if (sparseSize >= 2 + registers.length) {
+            final ByteBuffer buffer = ByteBuffer.allocate(2 + registers.length);
+            buffer.put(DENSE).put((byte) precision).put(registers);
+            return buffer.array();
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(sparseSize);
+        buffer.put(SPARSE).put((byte) precision).putInt(nonZero);
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final byte format = buffer.get();
+        final HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (format == DENSE) {
+            buffer.get(sketch.registers);
+        } else if (format == SPARSE) {
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final int index = Short.toUnsignedInt(buffer.getShort());
+                sketch.registers[index] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format: " + format);
+        }
+        return sketch;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HyperLogLog)) return false;
+        final HyperLogLog that = (HyperLogLog) o;
+        return precision == that.precision && Arrays.equals(registers, that.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * precision + Arrays.hashCode(registers);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /** MurmurHash64A */
+    static long hash64(byte[] data) {
+        final long m = 0xc6a4a7935bd1e995L;
+        final int r = 47;
+        long h = SEED ^ (data.length * m);
+
+        final int blocks = data.length / Long.BYTES;
+        for (int i = 0; i < blocks; i++) {
+            long k = 0;
+            for (int j = Long.BYTES - 1; j >= 0; j--) {
+                k = (k << 8) | (data[i * Long.BYTES + j] & 0xffL);
+            }
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h ^= k;
+            h *= m;
+        }
+
+        final int tail = blocks * Long.BYTES;
+        if (tail < data.length) {
+            for (int j = data.length - 1; j >= tail; j--) {
+                h ^= (data[j] & 0xffL) << (8 * (j - tail));
+            }
+            h *= m;
+        }
+
+        h ^= h >>> r;
+        h *= m;
+        h ^= h >>> r;
+        return h;
+    }
+}
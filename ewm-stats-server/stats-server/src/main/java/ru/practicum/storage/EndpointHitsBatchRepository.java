@@ -0,0 +1,14 @@
+package ru.practicum.storage;
+
+import ru.practicum.model.EndpointHit;
+
+import java.util.List;
+
+public interface EndpointHitsBatchRepository {
+    /**
+     * Сохранить список просмотров пакетными вставками JDBC (без загрузки сущностей в контекст Hibernate)
+     * @param hits просмотры
+     * @return количество сохраненных просмотров
+     */
+    int insertAll(List<EndpointHit> hits);
+}
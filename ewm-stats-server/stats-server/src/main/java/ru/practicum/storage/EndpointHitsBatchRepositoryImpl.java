@@ -0,0 +1,34 @@
+package ru.practicum.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class EndpointHitsBatchRepositoryImpl implements EndpointHitsBatchRepository {
+    private static final String INSERT_HIT = "INSERT INTO endpoint_hit (app, uri, ip, created) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public EndpointHitsBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                           @Value("${stats.hits.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int insertAll(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return 0;
+
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        return hits.size();
+    }
+}
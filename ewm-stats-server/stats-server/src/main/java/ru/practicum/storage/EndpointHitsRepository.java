@@ -6,5 +6,6 @@ import org.springframework.stereotype.Repository;
 import ru.practicum.model.EndpointHit;
 
 @Repository
-public interface EndpointHitsRepository extends JpaRepository<EndpointHit, Long>, QuerydslPredicateExecutor<EndpointHit> {
+public interface EndpointHitsRepository extends JpaRepository<EndpointHit, Long>, QuerydslPredicateExecutor<EndpointHit>,
+        EndpointHitsBatchRepository {
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package ru.practicum.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.PartitionPlan;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+
+/** Месячные секции таблицы endpoint_hit (PostgreSQL) */
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(hashtext('endpoint_hit_partitions'))";
+    private static final String FIND_PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'endpoint_hit'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Заблокировать обслуживание секций до конца транзакции: одновременно секции меняет только один узел */
+    public void lock() {
+        jdbcTemplate.execute(LOCK);
+    }
+
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS, String.class);
+    }
+
+    /**
+     * Создать секцию за месяц. Просмотры этого месяца, попавшие в секцию по умолчанию,
+     * переносятся в новую секцию до ее подключения.
+     */
+    public void createPartition(YearMonth month) {
+        final String name = PartitionPlan.getPartitionName(month);
+        final Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        final Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE endpoint_hit INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM endpoint_hit_default WHERE created >= ? AND created < ? "
+                + "RETURNING *) INSERT INTO " + name + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE endpoint_hit ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    public boolean hasNotRolledUp(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + name + " WHERE NOT rolled_up)", Boolean.class));
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE endpoint_hit DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
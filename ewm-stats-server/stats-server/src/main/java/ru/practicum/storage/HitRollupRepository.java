@@ -0,0 +1,178 @@
+package ru.practicum.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitRollup;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.model.RollupSegment;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** Хранилище агрегатов просмотров (таблица endpoint_hit_rollup) */
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final String LOCK = "SELECT name FROM rollup_lock WHERE name = 'endpoint_hit' FOR UPDATE";
+    private static final String FIND_NOT_ROLLED_UP = "SELECT id, app, uri, ip, created FROM endpoint_hit "
+            + "WHERE rolled_up = false ORDER BY id LIMIT :limit";
+    private static final String MARK_ROLLED_UP = "UPDATE endpoint_hit SET rolled_up = true "
+            + "WHERE id IN (:ids) AND created BETWEEN :from AND :to";
+    private static final String FIND_BUCKETS = "SELECT granularity, bucket_start, app, uri, hits, ip_sketch "
+            + "FROM endpoint_hit_rollup "
+            + "WHERE granularity = :granularity AND uri IN (:uris) AND bucket_start BETWEEN :from AND :to";
+    private static final String INSERT_BUCKET = "INSERT INTO endpoint_hit_rollup "
+            + "(granularity, bucket_start, app, uri, hits, ip_sketch) "
+            + "VALUES (:granularity, :bucketStart, :app, :uri, :hits, :ipSketch)";
+    private static final String UPDATE_BUCKET = "UPDATE endpoint_hit_rollup SET hits = :hits, ip_sketch = :ipSketch "
+            + "WHERE granularity = :granularity AND bucket_start = :bucketStart AND app = :app AND uri = :uri";
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Заблокировать агрегаты до конца транзакции: одновременно агрегирует только один узел */
+    public void lock() {
+        jdbcTemplate.queryForList(LOCK, Map.of(), String.class);
+    }
+
+    public List<EndpointHit> findNotRolledUp(int limit) {
+        return jdbcTemplate.query(FIND_NOT_ROLLED_UP, Map.of("limit", limit), (rs, rowNum) -> EndpointHit.builder()
+                .id(rs.getLong("id"))
+                .app(rs.getString("app"))
+                .uri(rs.getString("uri"))
+                .ip(rs.getString("ip"))
+                .timestamp(rs.getTimestamp("created").toLocalDateTime())
+                .build());
+    }
+
+    /** Пометить просмотры как агрегированные (границы по времени нужны, чтобы не обходить все секции таблицы) */
+    public void markRolledUp(List<EndpointHit> hits) {
+        for (int i = 0; i < hits.size(); i += IN_CHUNK_SIZE) {
+            final List<EndpointHit> chunk = hits.subList(i, Math.min(i + IN_CHUNK_SIZE, hits.size()));
+            final MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", chunk.stream().map(EndpointHit::getId).collect(Collectors.toList()))
+                    .addValue("from", Timestamp.valueOf(chunk.stream().map(EndpointHit::getTimestamp)
+                            .min(LocalDateTime::compareTo).orElseThrow()))
+                    .addValue("to", Timestamp.valueOf(chunk.stream().map(EndpointHit::getTimestamp)
+                            .max(LocalDateTime::compareTo).orElseThrow()));
+            jdbcTemplate.update(MARK_ROLLED_UP, params);
+        }
+    }
+
+    /** Найти существующие корзины по ключам */
+    public Map<HitRollup.Key, HitRollup> findByKeys(Set<HitRollup.Key> keys) {
+        final Map<HitRollup.Key, HitRollup> result = new HashMap<>();
+        final Map<RollupGranularity, List<HitRollup.Key>> byGranularity = keys.stream()
+                .collect(Collectors.groupingBy(HitRollup.Key::getGranularity));
+        byGranularity.forEach((granularity, granularityKeys) -> {
+            final MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("granularity", granularity.name())
+                    .addValue("uris", granularityKeys.stream().map(HitRollup.Key::getUri).collect(Collectors.toSet()))
+                    .addValue("from", Timestamp.valueOf(granularityKeys.stream().map(HitRollup.Key::getBucketStart)
+                            .min(LocalDateTime::compareTo).orElseThrow()))
+                    .addValue("to", Timestamp.valueOf(granularityKeys.stream().map(HitRollup.Key::getBucketStart)
+                            .max(LocalDateTime::compareTo).orElseThrow()));
+            jdbcTemplate.query(FIND_BUCKETS, params, rs -> {
+                final HitRollup bucket = mapRow(rs);
+                if (keys.contains(bucket.getKey())) {
+                    result.put(bucket.getKey(), bucket);
+                }
+            });
+        });
+        return result;
+    }
+
+    public void insertAll(Collection<HitRollup> buckets) {
+        if (buckets.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_BUCKET, toParams(buckets));
+    }
+
+    public void updateAll(Collection<HitRollup> buckets) {
+        if (buckets.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPDATE_BUCKET, toParams(buckets));
+    }
+
+    /**
+     * Сумма просмотров по корзинам плана, сгруппированная по приложению и uri
+     * @param segments диапазоны корзин
+     * @param uris список uri для фильтра (null - все uri)
+     */
+    public List<ViewStatsDto> sumHits(List<RollupSegment> segments, String[] uris) {
+        if (uris != null && uris.length == 0) return List.of();
+
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+        final String sql = "SELECT app, uri, SUM(hits) AS hits FROM endpoint_hit_rollup WHERE "
+                + getSegmentsCondition(segments, uris, params) + " GROUP BY app, uri";
+        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Скетчи уникальных ip всех корзин плана
+     * @param segments диапазоны корзин
+     * @param uris список uri для фильтра (null - все uri)
+     */
+    public List<HitRollup> findSketches(List<RollupSegment> segments, String[] uris) {
+        if (uris != null && uris.length == 0) return List.of();
+
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+        final String sql = "SELECT granularity, bucket_start, app, uri, hits, ip_sketch FROM endpoint_hit_rollup WHERE "
+                + getSegmentsCondition(segments, uris, params);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> mapRow(rs));
+    }
+
+    private static String getSegmentsCondition(List<RollupSegment> segments, String[] uris,
+                                               MapSqlParameterSource params) {
+        final StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < segments.size(); i++) {
+            final RollupSegment segment = segments.get(i);
+            if (i > 0) sql.append(" OR ");
+            sql.append(String.format("(granularity = :g%1$d AND bucket_start >= :f%1$d AND bucket_start < :t%1$d)", i));
+            params.addValue("g" + i, segment.getGranularity().name())
+                    .addValue("f" + i, Timestamp.valueOf(segment.getFrom()))
+                    .addValue("t" + i, Timestamp.valueOf(segment.getTo()));
+        }
+        sql.append(")");
+        if (uris != null) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", Arrays.asList(uris));
+        }
+        return sql.toString();
+    }
+
+    private static HitRollup mapRow(ResultSet rs) throws SQLException {
+        final HitRollup.Key key = new HitRollup.Key(
+                RollupGranularity.valueOf(rs.getString("granularity")),
+                rs.getTimestamp("bucket_start").toLocalDateTime(),
+                rs.getString("app"),
+                rs.getString("uri"));
+        return new HitRollup(key, rs.getLong("hits"), HyperLogLog.fromBytes(rs.getBytes("ip_sketch")));
+    }
+
+    private static SqlParameterSource[] toParams(Collection<HitRollup> buckets) {
+        return buckets.stream()
+                .map(bucket -> new MapSqlParameterSource()
+                        .addValue("granularity", bucket.getKey().getGranularity().name())
+                        .addValue("bucketStart", Timestamp.valueOf(bucket.getKey().getBucketStart()))
+                        .addValue("app", bucket.getKey().getApp())
+                        .addValue("uri", bucket.getKey().getUri())
+                        .addValue("hits", bucket.getHits())
+                        .addValue("ipSketch", bucket.getIpSketch().toBytes()))
+                .toArray(SqlParameterSource[]::new);
+    }
+}
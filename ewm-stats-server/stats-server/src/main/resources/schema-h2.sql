@@ -0,0 +1,14 @@
+DROP TABLE IF EXISTS endpoint_hit;
+
+CREATE TABLE IF NOT EXISTS endpoint_hit (
+  id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  app VARCHAR(64) NOT NULL,
+  uri VARCHAR NOT NULL,
+  ip VARCHAR(16) NOT NULL,
+  created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  rolled_up BOOLEAN NOT NULL DEFAULT false
+);
+
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_uri_created ON endpoint_hit (uri, created);
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_app_uri_created ON endpoint_hit (app, uri, created);
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_rolled_up ON endpoint_hit (rolled_up, id);
@@ -0,0 +1,20 @@
+DROP TABLE IF EXISTS endpoint_hit;
+
+-- Просмотры секционированы по месяцам (endpoint_hit_pYYYYMM), секции создает и удаляет HitPartitionJob
+-- по плану PartitionPlan.
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования.
+CREATE TABLE IF NOT EXISTS endpoint_hit (
+  id BIGSERIAL,
+  app VARCHAR(64) NOT NULL,
+  uri VARCHAR NOT NULL,
+  ip VARCHAR(16) NOT NULL,
+  created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  rolled_up BOOLEAN NOT NULL DEFAULT false,
+  CONSTRAINT pk_endpoint_hit PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_default PARTITION OF endpoint_hit DEFAULT;
+
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_uri_created ON endpoint_hit (uri, created);
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_app_uri_created ON endpoint_hit (app, uri, created);
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_not_rolled_up ON endpoint_hit (id) WHERE NOT rolled_up;
@@ -1,9 +1,20 @@
-DROP TABLE IF EXISTS endpoint_hit;
+DROP TABLE IF EXISTS endpoint_hit_rollup;
+DROP TABLE IF EXISTS rollup_lock;
 
-CREATE TABLE IF NOT EXISTS endpoint_hit (
-  id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS endpoint_hit_rollup (
+  granularity VARCHAR(8) NOT NULL,
+  bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   app VARCHAR(64) NOT NULL,
   uri VARCHAR NOT NULL,
-  ip VARCHAR(16) NOT NULL,
-  created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+  hits BIGINT NOT NULL,
+  ip_sketch BYTEA NOT NULL,
+  CONSTRAINT pk_endpoint_hit_rollup PRIMARY KEY (granularity, uri, bucket_start, app)
 );
+
+CREATE INDEX IF NOT EXISTS ix_endpoint_hit_rollup_bucket ON endpoint_hit_rollup (granularity, bucket_start);
+
+CREATE TABLE IF NOT EXISTS rollup_lock (
+  name VARCHAR(32) PRIMARY KEY
+);
+
+INSERT INTO rollup_lock (name) VALUES ('endpoint_hit');
@@ -0,0 +1,82 @@
+package ru.practicum.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.service.StatsService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.Constants.HIT_BATCH_ENDPOINT;
+
+@WebMvcTest(controllers = StatsServerController.class)
+class StatsServerControllerTest {
+    @MockBean
+    private StatsService statsService;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void saveHits() throws Exception {
+        final List<EndpointHitDto> hits = List.of(
+                hit("/events/1", "192.168.0.1"),
+                hit("/events/2", "192.168.0.2"));
+
+        mvc.perform(post(HIT_BATCH_ENDPOINT)
+                        .content(mapper.writeValueAsString(hits))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        verify(statsService).saveHits(hits);
+    }
+
+    @Test
+    void saveHits_EmptyList_BadRequest() throws Exception {
+        mvc.perform(post(HIT_BATCH_ENDPOINT)
+                        .content("[]")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(statsService, never()).saveHits(any());
+    }
+
+    @Test
+    void saveHits_OneInvalidHit_BadRequest() throws Exception {
+        final List<EndpointHitDto> hits = List.of(
+                hit("/events/1", "192.168.0.1"),
+                hit("/events/2", " "));
+
+        mvc.perform(post(HIT_BATCH_ENDPOINT)
+                        .content(mapper.writeValueAsString(hits))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(statsService, never()).saveHits(any());
+    }
+
+    private static EndpointHitDto hit(String uri, String ip) {
+        return EndpointHitDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip(ip)
+                .timestamp(LocalDateTime.of(2023, 3, 1, 12, 30, 15))
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionPlanTest {
+
+    @Test
+    void getPartitionName_MonthBoundaries() {
+        assertEquals("endpoint_hit_p202301", PartitionPlan.getPartitionName(YearMonth.of(2023, 1)));
+        assertEquals("endpoint_hit_p202312", PartitionPlan.getPartitionName(YearMonth.of(2023, 12)));
+        assertEquals(Optional.of(YearMonth.of(2023, 1)), PartitionPlan.getPartitionMonth("endpoint_hit_p202301"));
+        assertEquals(Optional.of(YearMonth.of(2023, 12)), PartitionPlan.getPartitionMonth("endpoint_hit_p202312"));
+    }
+
+    @Test
+    void getPartitionMonth_NotMatchingName_Empty() {
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_default"));
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_p2023"));
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_p202300"));
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_p202313"));
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_p2023011"));
+        assertEquals(Optional.empty(), PartitionPlan.getPartitionMonth("endpoint_hit_rollup"));
+    }
+
+    @Test
+    void of_DecemberRollover_CreatesNextYear() {
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.of(2023, 11), Set.of("endpoint_hit_p202312"), 3, 0);
+
+        assertEquals(List.of(YearMonth.of(2023, 11), YearMonth.of(2024, 1), YearMonth.of(2024, 2)),
+                plan.getToCreate());
+        assertTrue(plan.getToDrop().isEmpty());
+    }
+
+    @Test
+    void of_AllExist_NothingToCreate() {
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.of(2024, 1),
+                Set.of("endpoint_hit_p202401", "endpoint_hit_p202402"), 1, 0);
+
+        assertTrue(plan.getToCreate().isEmpty());
+    }
+
+    @Test
+    void of_RetentionCutOff() {
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.of(2024, 2), Set.of(
+                "endpoint_hit_p202311", "endpoint_hit_p202312", "endpoint_hit_p202401", "endpoint_hit_p202402",
+                "endpoint_hit_default", "endpoint_hit_p202313"), 0, 2);
+
+        assertEquals(List.of("endpoint_hit_p202311"), plan.getToDrop());
+        assertTrue(plan.getToCreate().isEmpty());
+    }
+
+    @Test
+    void of_RetentionAcrossYear() {
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.of(2024, 1), Set.of(
+                "endpoint_hit_p202211", "endpoint_hit_p202212", "endpoint_hit_p202301"), 0, 12);
+
+        assertEquals(List.of("endpoint_hit_p202211", "endpoint_hit_p202212"), plan.getToDrop());
+    }
+
+    @Test
+    void of_ZeroRetention_KeepAll() {
+        final PartitionPlan plan = PartitionPlan.of(YearMonth.of(2024, 1), Set.of("endpoint_hit_p200001"), 0, 0);
+
+        assertTrue(plan.getToDrop().isEmpty());
+        assertEquals(List.of(YearMonth.of(2024, 1)), plan.getToCreate());
+    }
+}
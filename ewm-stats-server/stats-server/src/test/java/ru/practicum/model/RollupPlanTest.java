@@ -0,0 +1,91 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupPlanTest {
+
+    @Test
+    void of_AlignedDays_OneDaySegment() {
+        final RollupPlan plan = RollupPlan.of(LocalDateTime.of(2023, 12, 31, 23, 59),
+                LocalDateTime.of(2024, 1, 3, 0, 0));
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), plan.getRolledFrom());
+        assertEquals(LocalDateTime.of(2024, 1, 3, 0, 0), plan.getRolledTo());
+        assertEquals(List.of("DAY 2024-01-01T00:00 2024-01-03T00:00"), describe(plan));
+    }
+
+    @Test
+    void of_UnalignedEdges_CoarseToFine() {
+        final RollupPlan plan = RollupPlan.of(LocalDateTime.of(2023, 1, 1, 22, 29, 30),
+                LocalDateTime.of(2023, 1, 4, 1, 30, 15));
+
+        assertEquals(LocalDateTime.of(2023, 1, 1, 22, 30), plan.getRolledFrom());
+        assertEquals(LocalDateTime.of(2023, 1, 4, 1, 30), plan.getRolledTo());
+        assertEquals(List.of(
+                "DAY 2023-01-02T00:00 2023-01-04T00:00",
+                "HOUR 2023-01-01T23:00 2023-01-02T00:00",
+                "MINUTE 2023-01-01T22:30 2023-01-01T23:00",
+                "HOUR 2023-01-04T00:00 2023-01-04T01:00",
+                "MINUTE 2023-01-04T01:00 2023-01-04T01:30"), describe(plan));
+        assertCovers(plan);
+    }
+
+    @Test
+    void of_StartOnMinuteBoundary_StartMinuteExcluded() {
+        final RollupPlan plan = RollupPlan.of(LocalDateTime.of(2023, 1, 1, 10, 0), LocalDateTime.of(2023, 1, 1, 12, 0));
+
+        assertEquals(List.of(
+                "HOUR 2023-01-01T11:00 2023-01-01T12:00",
+                "MINUTE 2023-01-01T10:01 2023-01-01T11:00"), describe(plan));
+        assertCovers(plan);
+    }
+
+    @Test
+    void of_LessThanHour_OnlyMinutes() {
+        final RollupPlan plan = RollupPlan.of(LocalDateTime.of(2023, 1, 1, 10, 5, 10),
+                LocalDateTime.of(2023, 1, 1, 10, 20));
+
+        assertEquals(List.of("MINUTE 2023-01-01T10:06 2023-01-01T10:20"), describe(plan));
+    }
+
+    @Test
+    void of_WithinOneMinute_Empty() {
+        assertTrue(RollupPlan.of(LocalDateTime.of(2023, 1, 1, 10, 5, 10),
+                LocalDateTime.of(2023, 1, 1, 10, 5, 50)).isEmpty());
+        assertTrue(RollupPlan.of(LocalDateTime.of(2023, 1, 1, 10, 5),
+                LocalDateTime.of(2023, 1, 1, 10, 6, 59)).isEmpty());
+    }
+
+    @Test
+    void of_EndBeforeStart_Empty() {
+        assertTrue(RollupPlan.of(LocalDateTime.of(2023, 1, 2, 0, 0), LocalDateTime.of(2023, 1, 1, 0, 0)).isEmpty());
+    }
+
+    private static List<String> describe(RollupPlan plan) {
+        return plan.getSegments().stream()
+                .map(s -> s.getGranularity() + " " + s.getFrom() + " " + s.getTo())
+                .collect(Collectors.toList());
+    }
+
+    /** Корзины сегментов без пропусков и наложений покрывают [rolledFrom, rolledTo) */
+    private static void assertCovers(RollupPlan plan) {
+        final List<RollupSegment> segments = plan.getSegments().stream()
+                .sorted((a, b) -> a.getFrom().compareTo(b.getFrom()))
+                .collect(Collectors.toList());
+        LocalDateTime time = plan.getRolledFrom();
+        for (RollupSegment segment : segments) {
+            assertEquals(time, segment.getFrom());
+            assertEquals(segment.getGranularity().floor(segment.getFrom()), segment.getFrom());
+            assertEquals(segment.getGranularity().floor(segment.getTo()), segment.getTo());
+            time = segment.getTo();
+        }
+        assertEquals(plan.getRolledTo(), time);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitRollup;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.sketch.HyperLogLog;
+import ru.practicum.storage.HitRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HitRollupServiceTest {
+    private static final String APP = "ewm-main-service";
+    private static final String URI = "/events/1";
+
+    @Mock
+    private HitRollupRepository rollupRepository;
+    @Captor
+    private ArgumentCaptor<Collection<HitRollup>> inserts;
+    @Captor
+    private ArgumentCaptor<Collection<HitRollup>> updates;
+    @Captor
+    private ArgumentCaptor<Set<HitRollup.Key>> keys;
+    private HitRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new HitRollupService(rollupRepository, 100, 10);
+    }
+
+    @Test
+    void rollUpNext_NewAndExistingBuckets() {
+        final List<EndpointHit> hits = List.of(
+                hit(1L, LocalDateTime.of(2023, 1, 1, 10, 15, 20), "192.168.0.1"),
+                hit(2L, LocalDateTime.of(2023, 1, 1, 10, 15, 40), "192.168.0.2"));
+        final HitRollup.Key dayKey = key(RollupGranularity.DAY, LocalDateTime.of(2023, 1, 1, 0, 0));
+        final HyperLogLog storedSketch = new HyperLogLog(10);
+        storedSketch.add("192.168.0.1");
+        when(rollupRepository.findNotRolledUp(100)).thenReturn(hits);
+        when(rollupRepository.findByKeys(any())).thenReturn(Map.of(dayKey, new HitRollup(dayKey, 5, storedSketch)));
+
+        assertEquals(2, service.rollUpNext());
+
+        final InOrder inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).lock();
+        inOrder.verify(rollupRepository).findNotRolledUp(100);
+        inOrder.verify(rollupRepository).findByKeys(keys.capture());
+        inOrder.verify(rollupRepository).insertAll(inserts.capture());
+        inOrder.verify(rollupRepository).updateAll(updates.capture());
+        inOrder.verify(rollupRepository).markRolledUp(hits);
+
+        assertEquals(Set.of(key(RollupGranularity.MINUTE, LocalDateTime.of(2023, 1, 1, 10, 15)),
+                key(RollupGranularity.HOUR, LocalDateTime.of(2023, 1, 1, 10, 0)), dayKey), keys.getValue());
+        final Map<RollupGranularity, HitRollup> inserted = inserts.getValue().stream()
+                .collect(Collectors.toMap(b -> b.getKey().getGranularity(), b -> b));
+        assertEquals(Set.of(RollupGranularity.MINUTE, RollupGranularity.HOUR), inserted.keySet());
+        inserted.values().forEach(bucket -> {
+            assertEquals(2, bucket.getHits());
+            assertEquals(2, bucket.getIpSketch().estimate());
+        });
+        final HitRollup updated = updates.getValue().iterator().next();
+        assertEquals(dayKey, updated.getKey());
+        assertEquals(7, updated.getHits());
+        assertEquals(2, updated.getIpSketch().estimate());
+    }
+
+    @Test
+    void rollUpNext_NothingToRollUp() {
+        when(rollupRepository.findNotRolledUp(100)).thenReturn(List.of());
+
+        assertEquals(0, service.rollUpNext());
+        verify(rollupRepository).lock();
+        verify(rollupRepository, never()).insertAll(any());
+        verify(rollupRepository, never()).markRolledUp(any());
+    }
+
+    @Test
+    void create_WrongSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new HitRollupService(rollupRepository, 0, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HitRollupService(rollupRepository, 100, HyperLogLog.MAX_PRECISION + 1));
+    }
+
+    private static EndpointHit hit(Long id, LocalDateTime timestamp, String ip) {
+        return EndpointHit.builder()
+                .id(id)
+                .app(APP)
+                .uri(URI)
+                .ip(ip)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static HitRollup.Key key(RollupGranularity granularity, LocalDateTime bucketStart) {
+        return new HitRollup.Key(granularity, bucketStart, APP, URI);
+    }
+}
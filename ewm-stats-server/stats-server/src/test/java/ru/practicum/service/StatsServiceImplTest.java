@@ -0,0 +1,136 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Статистика по агрегатам совпадает со статистикой по исходной таблице */
+@SpringBootTest(properties = {"stats.rollup.enabled=false", "stats.rollup.batch-size=50"})
+class StatsServiceImplTest {
+    private static final String APP = "ewm-main-service";
+    private static final LocalDateTime BASE = LocalDateTime.of(2023, 3, 1, 21, 10, 5);
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private HitRollupService rollupService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private List<EndpointHitDto> hits;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM endpoint_hit");
+        jdbcTemplate.update("DELETE FROM endpoint_hit_rollup");
+        hits = new ArrayList<>();
+//        ~5 суток просмотров с шагом 37 минут и разными секундами, чтобы были просмотры на границах корзин
+        for (int i = 0; i < 200; i++) {
+            hits.add(new EndpointHitDto(APP, "/events/" + i % 3, "192.168.0." + i % 7,
+                    BASE.plusMinutes(37L * i).plusSeconds(i * 13L % 60)));
+        }
+        hits.add(new EndpointHitDto(APP, "/events/0", "10.0.0.1", LocalDateTime.of(2023, 3, 2, 0, 0)));
+        hits.add(new EndpointHitDto(APP, "/events/1", "10.0.0.1", LocalDateTime.of(2023, 3, 3, 13, 0)));
+        statsService.saveHits(hits);
+    }
+
+    @Test
+    void getStats_AllRolledUp_SameAsRaw() {
+        rollUpAll();
+
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 1, 0, 0), LocalDateTime.of(2023, 3, 6, 0, 0), null);
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 2, 0, 0), LocalDateTime.of(2023, 3, 4, 0, 0), null);
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 1, 23, 17, 42), LocalDateTime.of(2023, 3, 4, 2, 3, 9), null);
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 3, 12, 59, 59), LocalDateTime.of(2023, 3, 3, 13, 0, 1),
+                new String[]{"/events/1"});
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 2, 5, 30), LocalDateTime.of(2023, 3, 2, 7, 45),
+                new String[]{"/events/0", "/events/2"});
+    }
+
+    @Test
+    void getStats_PartlyRolledUp_SameAsRaw() {
+        rollupService.rollUpNext();
+
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 1, 0, 0), LocalDateTime.of(2023, 3, 6, 0, 0), null);
+        assertHitsAsRaw(LocalDateTime.of(2023, 3, 1, 23, 17, 42), LocalDateTime.of(2023, 3, 4, 2, 3, 9), null);
+    }
+
+    @Test
+    void getStats_ApproximateUnique_RollupSketchesAndEdgeIps() {
+        final String uri = "/events/9";
+        statsService.saveHits(List.of(
+                new EndpointHitDto(APP, uri, "10.1.1.1", LocalDateTime.of(2023, 3, 10, 10, 0, 10)),
+                new EndpointHitDto(APP, uri, "10.2.2.2", LocalDateTime.of(2023, 3, 10, 12, 0, 0)),
+                new EndpointHitDto(APP, uri, "10.1.1.1", LocalDateTime.of(2023, 3, 10, 13, 0, 0)),
+                new EndpointHitDto(APP, uri, "10.3.3.3", LocalDateTime.of(2023, 3, 10, 14, 30, 30))));
+        rollUpAll();
+        final LocalDateTime start = LocalDateTime.of(2023, 3, 10, 10, 0, 5);
+        final LocalDateTime end = LocalDateTime.of(2023, 3, 10, 14, 30, 45);
+
+//        10.1.1.1 есть и на краю периода, и в корзинах, а 10.3.3.3 - только на краю
+        assertEquals(List.of(new ViewStatsDto(APP, uri, 3)),
+                statsService.getStats(start, end, new String[]{uri}, true, true));
+        assertEquals(List.of(new ViewStatsDto(APP, uri, 2)),
+                statsService.getStats(start, end.minusSeconds(20), new String[]{uri}, true, true));
+    }
+
+    @Test
+    void getStats_ApproximateUnique_SameAsExact() {
+        rollupService.rollUpNext();
+
+        assertUniqueAsExact(LocalDateTime.of(2023, 3, 1, 0, 0), LocalDateTime.of(2023, 3, 6, 0, 0));
+        rollUpAll();
+        assertUniqueAsExact(LocalDateTime.of(2023, 3, 1, 0, 0), LocalDateTime.of(2023, 3, 6, 0, 0));
+        assertUniqueAsExact(LocalDateTime.of(2023, 3, 1, 23, 17, 42), LocalDateTime.of(2023, 3, 4, 2, 3, 9));
+        assertUniqueAsExact(LocalDateTime.of(2023, 3, 2, 5, 30), LocalDateTime.of(2023, 3, 2, 7, 45));
+    }
+
+    @Test
+    void getStats_EmptyRange() {
+        rollUpAll();
+
+        assertTrue(statsService.getStats(LocalDateTime.of(2023, 4, 1, 0, 0), LocalDateTime.of(2023, 4, 2, 0, 0),
+                null, false, false).isEmpty());
+    }
+
+    private void rollUpAll() {
+        int count;
+        do {
+            count = rollupService.rollUpNext();
+        } while (count > 0);
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM endpoint_hit WHERE rolled_up = false", Integer.class));
+    }
+
+    /** Уникальных ip немного, поэтому оценка по скетчам должна совпасть с точным подсчетом */
+    private void assertUniqueAsExact(LocalDateTime start, LocalDateTime end) {
+        final Map<String, Long> exact = statsService.getStats(start, end, null, true, false).stream()
+                .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+        final Map<String, Long> approximate = statsService.getStats(start, end, null, true, true).stream()
+                .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+        assertEquals(exact, approximate, "start=" + start + ", end=" + end);
+    }
+
+    /** Просмотры за период по агрегатам равны подсчету по исходным строкам (границы периода не включаются) */
+    private void assertHitsAsRaw(LocalDateTime start, LocalDateTime end, String[] uris) {
+        final Map<String, Long> expected = hits.stream()
+                .filter(hit -> hit.getTimestamp().isAfter(start) && hit.getTimestamp().isBefore(end))
+                .filter(hit -> uris == null || List.of(uris).contains(hit.getUri()))
+                .collect(Collectors.groupingBy(EndpointHitDto::getUri, Collectors.counting()));
+        final Map<String, Long> actual = statsService.getStats(start, end, uris, false, false).stream()
+                .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+        assertEquals(expected, actual, "start=" + start + ", end=" + end);
+    }
+}
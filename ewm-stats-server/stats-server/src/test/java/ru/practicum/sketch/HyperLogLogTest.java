@@ -0,0 +1,111 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+
+    @Test
+    void toBytes_FewValues_SparseRoundTrip() {
+        final HyperLogLog sketch = sketch(12, 0, 20);
+
+        final byte[] bytes = sketch.toBytes();
+
+        assertEquals(SPARSE, bytes[0]);
+        assertTrue(bytes.length < 2 + (1 << 12));
+        assertEquals(sketch, HyperLogLog.fromBytes(bytes));
+    }
+
+    @Test
+    void toBytes_ManyValues_DenseRoundTrip() {
+        final HyperLogLog sketch = sketch(12, 0, 20_000);
+
+        final byte[] bytes = sketch.toBytes();
+
+        assertEquals(DENSE, bytes[0]);
+        assertEquals(2 + (1 << 12), bytes.length);
+        assertEquals(sketch, HyperLogLog.fromBytes(bytes));
+    }
+
+    @Test
+    void toBytes_Empty_RoundTrip() {
+        final HyperLogLog sketch = new HyperLogLog(16);
+
+        final HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch, restored);
+        assertEquals(0, restored.estimate());
+    }
+
+    @Test
+    void fromBytes_UnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{7, 12}));
+    }
+
+    @Test
+    void reduce_SameAsAddingWithLowerPrecision() {
+        assertEquals(sketch(8, 0, 5_000), sketch(14, 0, 5_000).reduce(8));
+        assertEquals(sketch(4, 0, 300), sketch(12, 0, 300).reduce(4));
+        assertThrows(IllegalArgumentException.class, () -> sketch(8, 0, 10).reduce(9));
+    }
+
+    @Test
+    void union_DifferentPrecision_LowerPrecisionOfBothSets() {
+        final HyperLogLog expected = sketch(10, 0, 3_000);
+
+        assertEquals(expected, HyperLogLog.union(sketch(12, 0, 2_000), sketch(10, 1_000, 3_000)));
+        final HyperLogLog fine = sketch(14, 1_000, 3_000);
+        final HyperLogLog union = HyperLogLog.union(sketch(10, 0, 2_000), fine);
+        assertEquals(expected, union);
+        assertEquals(sketch(14, 1_000, 3_000), fine);
+    }
+
+    @Test
+    void union_SamePrecision_MergedIntoFirst() {
+        final HyperLogLog a = sketch(12, 0, 100);
+        final HyperLogLog b = sketch(12, 50, 150);
+
+        final HyperLogLog union = HyperLogLog.union(a, b);
+
+        assertEquals(sketch(12, 0, 150), union);
+        assertNotSame(b, union);
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(10)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 10_000, 100_000, 1_000_000})
+    void estimate_WithinThreeStandardErrors(int cardinality) {
+        final HyperLogLog sketch = sketch(12, 0, cardinality);
+
+        final double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+
+        assertTrue(error <= 3 * sketch.relativeError(), "cardinality=" + cardinality + ", error=" + error);
+    }
+
+    @Test
+    void estimate_Duplicates_NotCounted() {
+        final HyperLogLog sketch = sketch(12, 0, 1_000);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("192.168." + i / 256 + "." + i % 256);
+        }
+
+        assertEquals(sketch(12, 0, 1_000), sketch);
+    }
+
+    /** Скетч ip с номерами [from, to) */
+    private static HyperLogLog sketch(int precision, int from, int to) {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = from; i < to; i++) {
+            sketch.add("192.168." + i / 256 + "." + i % 256);
+        }
+        return sketch;
+    }
+}
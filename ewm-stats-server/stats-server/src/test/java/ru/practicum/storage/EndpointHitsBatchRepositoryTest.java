@@ -0,0 +1,52 @@
+package ru.practicum.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/** Пакетная вставка частями по stats.hits.jdbc-batch-size строк */
+@DataJpaTest(properties = "stats.hits.jdbc-batch-size=2")
+class EndpointHitsBatchRepositoryTest {
+    @Autowired
+    private EndpointHitsRepository repository;
+
+    @Test
+    void insertAll_EveryRowSaved() {
+        final List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            hits.add(EndpointHit.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + i)
+                    .ip("192.168.0." + i)
+                    .timestamp(LocalDateTime.of(2023, 3, 1, 12, i, 15))
+                    .build());
+        }
+
+        assertEquals(5, repository.insertAll(hits));
+
+        final List<EndpointHit> saved = repository.findAll(Sort.by("id"));
+        assertEquals(hits.size(), saved.size());
+        for (int i = 0; i < hits.size(); i++) {
+            assertEquals(hits.get(i).getApp(), saved.get(i).getApp());
+            assertEquals(hits.get(i).getUri(), saved.get(i).getUri());
+            assertEquals(hits.get(i).getIp(), saved.get(i).getIp());
+            assertEquals(hits.get(i).getTimestamp(), saved.get(i).getTimestamp());
+            assertFalse(saved.get(i).isRolledUp());
+        }
+    }
+
+    @Test
+    void insertAll_Empty() {
+        assertEquals(0, repository.insertAll(List.of()));
+        assertEquals(0, repository.count());
+    }
+}